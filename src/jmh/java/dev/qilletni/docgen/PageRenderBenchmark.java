@@ -0,0 +1,94 @@
+package dev.qilletni.docgen;
+
+import dev.qilletni.api.lang.docs.structure.DocumentedFile;
+import dev.qilletni.api.lang.docs.structure.DocumentedItem;
+import dev.qilletni.api.lang.docs.structure.text.inner.EntityDoc;
+import dev.qilletni.docgen.benchmark.DiscardingOutputSink;
+import dev.qilletni.docgen.benchmark.SyntheticDocs;
+import dev.qilletni.docgen.cache.CachedDocHandler;
+import dev.qilletni.docgen.pages.PageRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Renders each page template the way {@link DocParser} does, creating the page's context and writing it through
+ * {@link PageRenderer} to a sink that discards it. Each benchmark renders a single page, so the gc profiler's
+ * allocation per operation is the allocation per page.
+ * <br><br>
+ * The library and file tree pages grow with the number of files in a library, while entity and source file pages
+ * grow with the number of functions in an entity.
+ */
+public class PageRenderBenchmark {
+
+    private static final Path OUTPUT_FILE = Path.of("page.html");
+    private static final DiscardingOutputSink OUTPUT_SINK = new DiscardingOutputSink();
+
+    @State(Scope.Benchmark)
+    public static class LibraryState {
+
+        @Param({"10", "100", "1000"})
+        public int fileCount;
+
+        private DocParser docParser;
+
+        @Setup
+        public void setup() {
+            var syntheticDocs = new SyntheticDocs("bench", 42);
+            docParser = createDocParser(syntheticDocs, syntheticDocs.createFiles(fileCount));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EntityState {
+
+        @Param({"4", "40", "400"})
+        public int functionsPerEntity;
+
+        private DocParser docParser;
+        private DocumentedFile documentedFile;
+        private DocumentedItem documentedEntity;
+
+        @Setup
+        public void setup() {
+            var syntheticDocs = new SyntheticDocs("bench", 42);
+            docParser = createDocParser(syntheticDocs, syntheticDocs.createFiles(10, functionsPerEntity));
+            documentedFile = docParser.getDocumentedFiles().getFirst();
+            documentedEntity = documentedFile.documentedItems().stream()
+                    .filter(documentedItem -> documentedItem.innerDoc() instanceof EntityDoc)
+                    .findFirst()
+                    .orElseThrow();
+        }
+    }
+
+    private static DocParser createDocParser(SyntheticDocs syntheticDocs, List<DocumentedFile> documentedFiles) {
+        var cachedDocHandler = new CachedDocHandler(Path.of(""), OUTPUT_SINK, Path.of(""), GenerationOptions.defaultOptions());
+
+        return DocParser.createInitializedParser(cachedDocHandler, syntheticDocs.createBasicQllData(), Path.of(""), documentedFiles);
+    }
+
+    @Benchmark
+    public int libraryPage(LibraryState state) throws Exception {
+        return PageRenderer.render(DocParser.LIBRARY_TEMPLATE, state.docParser.createLibraryIndexContext(), OUTPUT_SINK, OUTPUT_FILE);
+    }
+
+    @Benchmark
+    public int fileTreePage(LibraryState state) throws Exception {
+        return PageRenderer.render(DocParser.FILE_TREE_TEMPLATE, state.docParser.createLibraryFilesContext(), OUTPUT_SINK, OUTPUT_FILE);
+    }
+
+    @Benchmark
+    public int entityPage(EntityState state) throws Exception {
+        return PageRenderer.render(DocParser.ENTITY_TEMPLATE, state.docParser.createEntityContext(state.documentedEntity), OUTPUT_SINK, OUTPUT_FILE);
+    }
+
+    @Benchmark
+    public int sourceFilePage(EntityState state) throws Exception {
+        return PageRenderer.render(DocParser.FILE_TEMPLATE, state.docParser.createSourceFileContext(state.documentedFile), OUTPUT_SINK, OUTPUT_FILE);
+    }
+}
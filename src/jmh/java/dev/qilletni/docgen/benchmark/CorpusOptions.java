@@ -0,0 +1,71 @@
+package dev.qilletni.docgen.benchmark;
+
+/**
+ * The shape of a synthetic library created by {@link SyntheticDocs}. The same options always create the same library.
+ *
+ * @param fileCount              The number of source files
+ * @param directoryDepth         How many directories deep source files are nested. 0 puts every file at the root
+ * @param entitiesPerFile        The number of entities declared in each file
+ * @param functionsPerEntity     The number of member functions of each entity
+ * @param globalFunctionsPerFile The number of functions outside of entities in each file
+ * @param extensionsPerFile      The number of {@code on} extension functions in each file, on entities of the extended
+ *                               library
+ * @param javaRefsPerDescription The number of {@code [@java ...]} references in each function description
+ * @param markdownDescriptions   If descriptions have markdown headings, lists, emphasis and code blocks, instead of
+ *                               plain sentences
+ * @param seed                   The seed of every randomly chosen name, type and description
+ */
+public record CorpusOptions(int fileCount, int directoryDepth, int entitiesPerFile, int functionsPerEntity, int globalFunctionsPerFile,
+                            int extensionsPerFile, int javaRefsPerDescription, boolean markdownDescriptions, long seed) {
+
+    /**
+     * Creates options for a library of 100 flat files, each with one entity of four functions, three global functions
+     * and one extension function.
+     */
+    public static CorpusOptions defaultOptions() {
+        return new CorpusOptions(100, 0, 1, 4, 3, 1, 0, false, 42);
+    }
+
+    public CorpusOptions withFileCount(int fileCount) {
+        return new CorpusOptions(fileCount, directoryDepth, entitiesPerFile, functionsPerEntity, globalFunctionsPerFile, extensionsPerFile, javaRefsPerDescription, markdownDescriptions, seed);
+    }
+
+    public CorpusOptions withDirectoryDepth(int directoryDepth) {
+        return new CorpusOptions(fileCount, directoryDepth, entitiesPerFile, functionsPerEntity, globalFunctionsPerFile, extensionsPerFile, javaRefsPerDescription, markdownDescriptions, seed);
+    }
+
+    public CorpusOptions withEntitiesPerFile(int entitiesPerFile) {
+        return new CorpusOptions(fileCount, directoryDepth, entitiesPerFile, functionsPerEntity, globalFunctionsPerFile, extensionsPerFile, javaRefsPerDescription, markdownDescriptions, seed);
+    }
+
+    public CorpusOptions withFunctionsPerEntity(int functionsPerEntity) {
+        return new CorpusOptions(fileCount, directoryDepth, entitiesPerFile, functionsPerEntity, globalFunctionsPerFile, extensionsPerFile, javaRefsPerDescription, markdownDescriptions, seed);
+    }
+
+    public CorpusOptions withGlobalFunctionsPerFile(int globalFunctionsPerFile) {
+        return new CorpusOptions(fileCount, directoryDepth, entitiesPerFile, functionsPerEntity, globalFunctionsPerFile, extensionsPerFile, javaRefsPerDescription, markdownDescriptions, seed);
+    }
+
+    public CorpusOptions withExtensionsPerFile(int extensionsPerFile) {
+        return new CorpusOptions(fileCount, directoryDepth, entitiesPerFile, functionsPerEntity, globalFunctionsPerFile, extensionsPerFile, javaRefsPerDescription, markdownDescriptions, seed);
+    }
+
+    public CorpusOptions withJavaRefsPerDescription(int javaRefsPerDescription) {
+        return new CorpusOptions(fileCount, directoryDepth, entitiesPerFile, functionsPerEntity, globalFunctionsPerFile, extensionsPerFile, javaRefsPerDescription, markdownDescriptions, seed);
+    }
+
+    public CorpusOptions withMarkdownDescriptions(boolean markdownDescriptions) {
+        return new CorpusOptions(fileCount, directoryDepth, entitiesPerFile, functionsPerEntity, globalFunctionsPerFile, extensionsPerFile, javaRefsPerDescription, markdownDescriptions, seed);
+    }
+
+    public CorpusOptions withSeed(long seed) {
+        return new CorpusOptions(fileCount, directoryDepth, entitiesPerFile, functionsPerEntity, globalFunctionsPerFile, extensionsPerFile, javaRefsPerDescription, markdownDescriptions, seed);
+    }
+
+    /**
+     * Gets the total number of functions in the library, including constructors.
+     */
+    public long getFunctionCount() {
+        return (long) fileCount * (entitiesPerFile * (functionsPerEntity + 1L) + globalFunctionsPerFile + extensionsPerFile);
+    }
+}
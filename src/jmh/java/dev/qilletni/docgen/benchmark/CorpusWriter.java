@@ -0,0 +1,234 @@
+package dev.qilletni.docgen.benchmark;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import dev.qilletni.api.lang.docs.structure.DocumentedFile;
+import dev.qilletni.api.lang.docs.structure.DocumentedItem;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeEntity;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeEntityConstructor;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeField;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeFunction;
+import dev.qilletni.api.lang.docs.structure.text.DocDescription;
+import dev.qilletni.api.lang.docs.structure.text.ParamDoc;
+import dev.qilletni.api.lang.docs.structure.text.inner.ConstructorDoc;
+import dev.qilletni.api.lang.docs.structure.text.inner.EntityDoc;
+import dev.qilletni.api.lang.docs.structure.text.inner.FieldDoc;
+import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
+import dev.qilletni.docgen.cache.BasicQllData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Writes synthetic libraries created by {@link SyntheticDocs} as Qilletni sources, so they can be parsed by the full
+ * generation pipeline. Every library is written to {@code <corpus dir>/<library name>/qilletni-src}, along with a batch
+ * manifest of all of them.
+ */
+public class CorpusWriter {
+
+    private static final String INDENT = "    ";
+
+    private final Path corpusPath;
+    private final JsonArray manifest;
+    // The import path of every entity of every written library, keyed by library name then entity name
+    private final Map<String, Map<String, String>> entityImportPaths;
+
+    /**
+     * Creates a writer of libraries into a corpus directory.
+     *
+     * @param corpusPath The directory to write libraries and the manifest to
+     */
+    public CorpusWriter(Path corpusPath) {
+        this.corpusPath = corpusPath;
+        this.manifest = new JsonArray();
+        this.entityImportPaths = new HashMap<>();
+    }
+
+    /**
+     * Writes the sources of a library. A library must be written after the library its extension functions are on, so
+     * they can import the files of the entities they extend.
+     *
+     * @param basicQllData    The info of the library
+     * @param documentedFiles The files of the library
+     * @param extendedLibrary The name of the library extension functions are on
+     * @return The qilletni-src directory of the library
+     */
+    public Path writeLibrary(BasicQllData basicQllData, List<DocumentedFile> documentedFiles, String extendedLibrary) throws IOException {
+        var sourcePath = corpusPath.resolve(basicQllData.name()).resolve("qilletni-src");
+        var libraryImportPaths = entityImportPaths.computeIfAbsent(basicQllData.name(), _ -> new HashMap<>());
+
+        for (var documentedFile : documentedFiles) {
+            for (var documentedItem : documentedFile.documentedItems()) {
+                if (documentedItem.itemBeingDocumented() instanceof DocumentedTypeEntity documentedTypeEntity) {
+                    libraryImportPaths.put(documentedTypeEntity.name(), documentedFile.importPath().toString());
+                }
+            }
+        }
+
+        var extendedImportPaths = entityImportPaths.getOrDefault(extendedLibrary, Map.of());
+
+        for (var documentedFile : documentedFiles) {
+            var sourceFile = sourcePath.resolve(documentedFile.importPath().toString());
+            Files.createDirectories(sourceFile.getParent());
+            Files.writeString(sourceFile, createSource(documentedFile, basicQllData.name(), extendedLibrary, extendedImportPaths));
+        }
+
+        var libraryObject = new JsonObject();
+        libraryObject.addProperty("sourcePath", corpusPath.relativize(sourcePath).toString().replace("\\", "/"));
+        libraryObject.addProperty("name", basicQllData.name());
+        libraryObject.addProperty("version", basicQllData.version());
+        libraryObject.addProperty("author", basicQllData.author());
+        libraryObject.addProperty("description", basicQllData.description());
+        libraryObject.addProperty("sourceUrl", basicQllData.sourceUrl());
+        manifest.add(libraryObject);
+
+        return sourcePath;
+    }
+
+    /**
+     * Writes the batch manifest of every library written so far, in the order they were written.
+     *
+     * @return The path of the manifest
+     */
+    public Path writeManifest() throws IOException {
+        var manifestPath = corpusPath.resolve("manifest.json");
+        Files.createDirectories(corpusPath);
+        Files.writeString(manifestPath, new GsonBuilder().setPrettyPrinting().create().toJson(manifest));
+
+        return manifestPath;
+    }
+
+    private String createSource(DocumentedFile documentedFile, String libraryName, String extendedLibrary, Map<String, String> extendedImportPaths) {
+        var source = new StringBuilder();
+        var imports = new TreeSet<String>();
+
+        for (var documentedItem : documentedFile.documentedItems()) {
+            if (documentedItem.itemBeingDocumented() instanceof DocumentedTypeFunction documentedTypeFunction && documentedTypeFunction.onOptional().isPresent()) {
+                var importPath = extendedImportPaths.get(documentedTypeFunction.onOptional().get());
+
+                if (importPath == null) {
+                    continue;
+                }
+
+                if (!extendedLibrary.equals(libraryName)) {
+                    imports.add("%s:%s".formatted(extendedLibrary, importPath));
+                } else if (!importPath.equals(documentedFile.importPath().toString())) {
+                    imports.add(importPath);
+                }
+            }
+        }
+
+        imports.forEach(importPath -> source.append("import \"").append(importPath).append("\"\n"));
+
+        for (var documentedItem : documentedFile.documentedItems()) {
+            source.append('\n');
+            appendItem(source, documentedItem, "");
+        }
+
+        return source.toString();
+    }
+
+    private void appendItem(StringBuilder source, DocumentedItem documentedItem, String indent) {
+        switch (documentedItem.itemBeingDocumented()) {
+            case DocumentedTypeEntity documentedTypeEntity -> {
+                var entityDoc = (EntityDoc) documentedItem.innerDoc();
+                appendDocComment(source, indent, entityDoc.description(), List.of());
+                source.append(indent).append("entity ").append(documentedTypeEntity.name()).append(" {\n");
+
+                for (var containedItem : entityDoc.containedItems()) {
+                    source.append('\n');
+                    appendItem(source, containedItem, indent + INDENT);
+                }
+
+                source.append(indent).append("}\n");
+            }
+            case DocumentedTypeField documentedTypeField -> {
+                var fieldDoc = (FieldDoc) documentedItem.innerDoc();
+                appendDocComment(source, indent, fieldDoc.description(), List.of("@type %s".formatted(fieldDoc.fieldType().identifier())));
+                source.append(indent).append(documentedTypeField.type()).append(' ').append(documentedTypeField.name()).append('\n');
+            }
+            case DocumentedTypeEntityConstructor documentedTypeEntityConstructor -> {
+                var constructorDoc = (ConstructorDoc) documentedItem.innerDoc();
+                appendDocComment(source, indent, constructorDoc.description(), constructorDoc.paramDocs().stream().map(CorpusWriter::createParamTag).toList());
+                source.append(indent).append(documentedTypeEntityConstructor.name())
+                        .append('(').append(String.join(", ", documentedTypeEntityConstructor.params())).append(")\n");
+            }
+            case DocumentedTypeFunction documentedTypeFunction -> appendFunction(source, documentedTypeFunction, (FunctionDoc) documentedItem.innerDoc(), indent);
+            default -> throw new IllegalArgumentException("Unsupported item: " + documentedItem.itemBeingDocumented());
+        }
+    }
+
+    private void appendFunction(StringBuilder source, DocumentedTypeFunction documentedTypeFunction, FunctionDoc functionDoc, String indent) {
+        var tags = new ArrayList<String>();
+        functionDoc.paramDocs().forEach(paramDoc -> tags.add(createParamTag(paramDoc)));
+
+        if (functionDoc.returnDoc() != null) {
+            tags.add("@returns[@type %s] %s".formatted(functionDoc.returnDoc().docFieldType().identifier(), createText(functionDoc.returnDoc().description())));
+        }
+
+        if (functionDoc.docOnLine() != null) {
+            tags.add("@on[@type %s] %s".formatted(functionDoc.docOnLine().docFieldType().identifier(), createText(functionDoc.docOnLine().description())));
+        }
+
+        if (functionDoc.docErrors() != null) {
+            tags.add("@errors " + createText(functionDoc.docErrors().description()));
+        }
+
+        appendDocComment(source, indent, functionDoc.description(), tags);
+
+        source.append(indent);
+        if (documentedTypeFunction.isNative()) {
+            source.append("native ");
+        }
+
+        source.append("fun ").append(documentedTypeFunction.name()).append('(').append(String.join(", ", documentedTypeFunction.params())).append(')');
+        documentedTypeFunction.onOptional().ifPresent(onType -> source.append(" on ").append(onType));
+
+        source.append(documentedTypeFunction.isNative() ? "\n" : " {\n%s}\n".formatted(indent));
+    }
+
+    private static void appendDocComment(StringBuilder source, String indent, DocDescription description, List<String> tags) {
+        source.append(indent).append("/**\n");
+
+        for (var line : createText(description).split("\n")) {
+            source.append(indent).append(" * ").append(line.strip()).append('\n');
+        }
+
+        if (!tags.isEmpty()) {
+            source.append(indent).append(" *\n");
+            tags.forEach(tag -> source.append(indent).append(" * ").append(tag.replace("\n", " ")).append('\n'));
+        }
+
+        source.append(indent).append(" */\n");
+    }
+
+    private static String createParamTag(ParamDoc paramDoc) {
+        return "@param[@type %s] %s %s".formatted(paramDoc.docFieldType().identifier(), paramDoc.name(), createText(paramDoc.description()));
+    }
+
+    private static String createText(DocDescription description) {
+        if (description == null) {
+            return "";
+        }
+
+        var text = new StringBuilder();
+
+        for (var descriptionItem : description.descriptionItems()) {
+            switch (descriptionItem) {
+                case DocDescription.DocText docText -> text.append(docText.text());
+                case DocDescription.JavaRef javaRef -> text.append("[@java ").append(javaRef.javaName()).append(']');
+                case DocDescription.ParamRef paramRef -> text.append("[@param ").append(paramRef.paramName()).append(']');
+                case DocDescription.TypeRef typeRef -> text.append("[@type ").append(typeRef.typeName()).append(']');
+            }
+        }
+
+        return text.toString().strip();
+    }
+}
@@ -0,0 +1,33 @@
+package dev.qilletni.docgen.benchmark;
+
+import dev.qilletni.docgen.output.OutputSink;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Accepts every write without storing it, so benchmarks measure rendering rather than I/O.
+ */
+public class DiscardingOutputSink implements OutputSink {
+
+    @Override
+    public boolean write(Path outputFile, ByteBuffer content) {
+        return true;
+    }
+
+    @Override
+    public void delete(Path outputFile) {}
+
+    @Override
+    public boolean exists(Path outputFile) {
+        return false;
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return false;
+    }
+
+    @Override
+    public void close() {}
+}
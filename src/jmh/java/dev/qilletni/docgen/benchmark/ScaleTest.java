@@ -0,0 +1,256 @@
+package dev.qilletni.docgen.benchmark;
+
+import dev.qilletni.api.lang.docs.structure.DocumentedFile;
+import dev.qilletni.docgen.DocGenerator;
+import dev.qilletni.docgen.DocParser;
+import dev.qilletni.docgen.GenerationOptions;
+import dev.qilletni.docgen.LibrarySource;
+import dev.qilletni.docgen.cache.CachedDocHandler;
+import dev.qilletni.docgen.metrics.JsonMetricsExporter;
+import dev.qilletni.docgen.metrics.MetricsRegistry;
+import dev.qilletni.docgen.output.FileSystemOutputSink;
+import dev.qilletni.docgen.pages.GlobalIndexPageGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates documentation for a synthetic corpus of libraries, recording how long it took and the peak heap usage. The
+ * results are written to {@code scale-test.json} in the work directory, along with every metric docgen recorded during
+ * the run.
+ * <br><br>
+ * Usage: {@code <work dir> [--models] [key=value ...]}
+ * <br><br>
+ * By default the corpus is written as Qilletni sources and generated with {@link DocGenerator}, exactly like a batch
+ * manifest. With {@code --models}, the documentation models are passed straight to {@link DocParser}, which skips
+ * parsing the sources, but renders pages, search indices and caches the same way. The keys are:
+ * <ul>
+ *     <li>{@code libraries} - The number of libraries, each after the first having its extension functions on entities
+ *     of the first. Defaults to 2</li>
+ *     <li>{@code files}, {@code depth}, {@code entities}, {@code functions}, {@code globals}, {@code extensions},
+ *     {@code javaRefs}, {@code markdown} and {@code seed} - The {@link CorpusOptions} of every library</li>
+ * </ul>
+ * For example, {@code files=10000} tests a 10k file library, and {@code files=1000 functions=100} a library of over
+ * 100k functions. The work directory's {@code corpus}, {@code cache} and {@code docs} directories are replaced.
+ */
+public class ScaleTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScaleTest.class);
+
+    private static final List<String> WORK_DIRECTORIES = List.of("corpus", "cache", "docs");
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: <work dir> [--models] [key=value ...]");
+            System.exit(1);
+            return;
+        }
+
+        var workPath = Path.of(args[0]).toAbsolutePath();
+        var useModels = false;
+        var libraryCount = 2;
+        var options = CorpusOptions.defaultOptions();
+
+        for (var arg : List.of(args).subList(1, args.length)) {
+            if (arg.equals("--models")) {
+                useModels = true;
+                continue;
+            }
+
+            var separatorIndex = arg.indexOf('=');
+            if (separatorIndex == -1) {
+                System.err.println("Invalid argument, expected key=value: " + arg);
+                System.exit(1);
+                return;
+            }
+
+            var value = arg.substring(separatorIndex + 1);
+            switch (arg.substring(0, separatorIndex)) {
+                case "libraries" -> libraryCount = Integer.parseInt(value);
+                case "files" -> options = options.withFileCount(Integer.parseInt(value));
+                case "depth" -> options = options.withDirectoryDepth(Integer.parseInt(value));
+                case "entities" -> options = options.withEntitiesPerFile(Integer.parseInt(value));
+                case "functions" -> options = options.withFunctionsPerEntity(Integer.parseInt(value));
+                case "globals" -> options = options.withGlobalFunctionsPerFile(Integer.parseInt(value));
+                case "extensions" -> options = options.withExtensionsPerFile(Integer.parseInt(value));
+                case "javaRefs" -> options = options.withJavaRefsPerDescription(Integer.parseInt(value));
+                case "markdown" -> options = options.withMarkdownDescriptions(Boolean.parseBoolean(value));
+                case "seed" -> options = options.withSeed(Long.parseLong(value));
+                default -> {
+                    System.err.println("Unknown key: " + arg);
+                    System.exit(1);
+                    return;
+                }
+            }
+        }
+
+        new ScaleTest(workPath, libraryCount, options, useModels).run();
+    }
+
+    private final Path workPath;
+    private final int libraryCount;
+    private final CorpusOptions options;
+    private final boolean useModels;
+    private final MetricsRegistry registry;
+
+    /**
+     * Creates a scale test of a corpus.
+     *
+     * @param workPath     The directory the corpus, cache, docs and results are written to
+     * @param libraryCount The number of libraries in the corpus
+     * @param options      The shape of every library
+     * @param useModels    If the models are generated from directly, instead of from written sources
+     */
+    public ScaleTest(Path workPath, int libraryCount, CorpusOptions options, boolean useModels) {
+        this.workPath = workPath;
+        this.libraryCount = libraryCount;
+        this.options = options;
+        this.useModels = useModels;
+        this.registry = MetricsRegistry.global();
+    }
+
+    /**
+     * Creates the corpus, generates its documentation and writes the results.
+     */
+    public void run() throws IOException {
+        for (var directory : WORK_DIRECTORIES) {
+            deleteTree(workPath.resolve(directory));
+        }
+
+        LOGGER.info("Creating {} libraries of {} files and {} functions each", libraryCount, options.fileCount(), options.getFunctionCount());
+
+        var corpusStart = System.nanoTime();
+        var libraries = createLibraries();
+
+        var manifestPath = useModels ? null : writeCorpus(libraries);
+        if (!useModels) {
+            // Only the written sources are needed, so the models do not count towards the peak heap
+            libraries.clear();
+        }
+
+        registry.gauge("docgen_scale_corpus_seconds", "Time taken to create the corpus, and write it if sources are generated")
+                .set((System.nanoTime() - corpusStart) / 1e9);
+
+        System.gc();
+        resetPeakHeapUsage();
+
+        var generationStart = System.nanoTime();
+
+        if (useModels) {
+            generateFromModels(libraries);
+        } else {
+            new DocGenerator(workPath.resolve("cache"), workPath.resolve("docs")).generateDocs(LibrarySource.readManifest(manifestPath));
+        }
+
+        var generationNanos = System.nanoTime() - generationStart;
+        var peakHeapBytes = getPeakHeapUsage();
+
+        registry.gauge("docgen_scale_generation_seconds", "Time taken to generate the documentation of the corpus").set(generationNanos / 1e9);
+        registry.gauge("docgen_scale_peak_heap_bytes", "Sum of the peak usage of every heap memory pool while generating").set(peakHeapBytes);
+        registry.gauge("docgen_scale_libraries", "Libraries in the corpus").set(libraryCount);
+        registry.gauge("docgen_scale_files", "Source files in the corpus").set((double) libraryCount * options.fileCount());
+        registry.gauge("docgen_scale_functions", "Functions in the corpus, including constructors").set((double) libraryCount * options.getFunctionCount());
+
+        var resultsPath = workPath.resolve("scale-test.json");
+        JsonMetricsExporter.export(registry, resultsPath);
+
+        LOGGER.info("Generated {} files from {} in {} ms with a peak heap of {} MiB, results written to {}", libraryCount * options.fileCount(),
+                useModels ? "models" : "sources", TimeUnit.NANOSECONDS.toMillis(generationNanos), peakHeapBytes / (1024 * 1024), resultsPath);
+    }
+
+    /**
+     * Creates the models of every library, keyed by their generator. Every library has its own seed, so they differ.
+     */
+    private LinkedHashMap<SyntheticDocs, List<DocumentedFile>> createLibraries() {
+        var libraries = new LinkedHashMap<SyntheticDocs, List<DocumentedFile>>();
+
+        for (int i = 0; i < libraryCount; i++) {
+            var syntheticDocs = new SyntheticDocs("lib%d".formatted(i), "lib0", options.withSeed(options.seed() + i));
+            libraries.put(syntheticDocs, syntheticDocs.createFiles());
+        }
+
+        return libraries;
+    }
+
+    private Path writeCorpus(LinkedHashMap<SyntheticDocs, List<DocumentedFile>> libraries) throws IOException {
+        var corpusWriter = new CorpusWriter(workPath.resolve("corpus"));
+
+        for (var library : libraries.entrySet()) {
+            var syntheticDocs = library.getKey();
+            corpusWriter.writeLibrary(syntheticDocs.createBasicQllData(), library.getValue(), syntheticDocs.getExtendedLibraryName());
+        }
+
+        return corpusWriter.writeManifest();
+    }
+
+    /**
+     * Generates every library from its models, in the same steps as a batch of libraries parsed from their sources.
+     */
+    private void generateFromModels(LinkedHashMap<SyntheticDocs, List<DocumentedFile>> libraries) throws IOException {
+        var cachePath = workPath.resolve("cache");
+        var outputPath = workPath.resolve("docs");
+        var generationOptions = GenerationOptions.defaultOptions();
+        var outputSink = new FileSystemOutputSink();
+        var cachedDocHandler = new CachedDocHandler(outputPath, outputSink, cachePath, generationOptions);
+        Files.createDirectories(cachePath);
+
+        var docParsers = new LinkedHashMap<String, DocParser>();
+        for (var library : libraries.entrySet()) {
+            var syntheticDocs = library.getKey();
+            docParsers.put(syntheticDocs.getLibraryName(), DocParser.createInitializedParser(cachedDocHandler, syntheticDocs.createBasicQllData(),
+                    outputPath, library.getValue(), generationOptions));
+        }
+
+        for (var syntheticDocs : libraries.keySet()) {
+            var extendedParser = docParsers.get(syntheticDocs.getExtendedLibraryName());
+            extendedParser.addExtendedFunctions(docParsers.get(syntheticDocs.getLibraryName()).getOnExtensionDocs());
+        }
+
+        for (var docParser : docParsers.values()) {
+            docParser.createLibraryIndexPage();
+            docParser.createLibraryFilesPage();
+            docParser.createEntityPages();
+            docParser.createSourceFilePages();
+            docParser.writeToCache();
+            docParser.createSearchIndex();
+        }
+
+        new GlobalIndexPageGenerator(cachePath, outputPath, outputSink, generationOptions).generateIndex();
+    }
+
+    private static void resetPeakHeapUsage() {
+        getHeapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private static long getPeakHeapUsage() {
+        return getHeapPools().stream().mapToLong(memoryPool -> memoryPool.getPeakUsage().getUsed()).sum();
+    }
+
+    private static List<MemoryPoolMXBean> getHeapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(memoryPool -> memoryPool.getType() == MemoryType.HEAP)
+                .toList();
+    }
+
+    private static void deleteTree(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try (var files = Files.walk(path)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package dev.qilletni.docgen.benchmark;
+
+import dev.qilletni.api.lang.docs.structure.DocFieldType;
+import dev.qilletni.api.lang.docs.structure.DocumentedFile;
+import dev.qilletni.api.lang.docs.structure.DocumentedItem;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeEntity;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeEntityConstructor;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeField;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeFunction;
+import dev.qilletni.api.lang.docs.structure.text.DocDescription;
+import dev.qilletni.api.lang.docs.structure.text.DocErrors;
+import dev.qilletni.api.lang.docs.structure.text.DocOnLine;
+import dev.qilletni.api.lang.docs.structure.text.ParamDoc;
+import dev.qilletni.api.lang.docs.structure.text.ReturnDoc;
+import dev.qilletni.api.lang.docs.structure.text.inner.ConstructorDoc;
+import dev.qilletni.api.lang.docs.structure.text.inner.EntityDoc;
+import dev.qilletni.api.lang.docs.structure.text.inner.FieldDoc;
+import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
+import dev.qilletni.docgen.cache.BasicQllData;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Creates documentation models shaped like a real library's, for benchmarks and scale tests. The same options always
+ * create the same models, so results are comparable between runs. See {@link CorpusOptions} for the shape of the
+ * created library.
+ * <br><br>
+ * Extension functions are on entities of the extended library, which is this library unless another is given. The
+ * extended library is assumed to have been created with the same file and entity counts.
+ */
+public class SyntheticDocs {
+
+    public static final int DEFAULT_FUNCTIONS_PER_ENTITY = 4;
+
+    // The number of directories in each directory, when files are nested
+    private static final int DIRECTORY_FANOUT = 8;
+
+    private static final List<String> QILLETNI_TYPES = List.of("int", "double", "string", "boolean", "collection", "song", "album", "list");
+    private static final List<String> JAVA_CLASSES = List.of("java.util.List", "java.util.Map", "java.lang.String", "java.time.Duration", "java.util.Optional");
+    private static final List<String> WORDS = List.of("the", "song", "list", "returns", "value", "given", "playlist", "each",
+            "track", "album", "provider", "if", "of", "a", "to", "collection", "weight", "is", "not", "found");
+
+    private final String libraryName;
+    private final String extendedLibraryName;
+    private final CorpusOptions options;
+    private final Random random;
+
+    /**
+     * Creates a generator of models for a single library with the default options.
+     *
+     * @param libraryName The name of the library the models are in
+     * @param seed        The seed of all randomly chosen names, types and descriptions
+     */
+    public SyntheticDocs(String libraryName, long seed) {
+        this(libraryName, libraryName, CorpusOptions.defaultOptions().withSeed(seed));
+    }
+
+    /**
+     * Creates a generator of models for a library.
+     *
+     * @param libraryName         The name of the library the models are in
+     * @param extendedLibraryName The name of the library extension functions are on entities of
+     * @param options             The shape of the library
+     */
+    public SyntheticDocs(String libraryName, String extendedLibraryName, CorpusOptions options) {
+        this.libraryName = libraryName;
+        this.extendedLibraryName = extendedLibraryName;
+        this.options = options;
+        this.random = new Random(options.seed());
+    }
+
+    public String getLibraryName() {
+        return libraryName;
+    }
+
+    public String getExtendedLibraryName() {
+        return extendedLibraryName;
+    }
+
+    public CorpusOptions getOptions() {
+        return options;
+    }
+
+    public BasicQllData createBasicQllData() {
+        return new BasicQllData(libraryName, "1.0.0", "Benchmark", "A synthetic library", "https://example.com/" + libraryName);
+    }
+
+    /**
+     * Creates the files of the library, as described by its options.
+     *
+     * @return The files, in order of their index
+     */
+    public List<DocumentedFile> createFiles() {
+        var documentedFiles = new ArrayList<DocumentedFile>(options.fileCount());
+
+        for (int i = 0; i < options.fileCount(); i++) {
+            documentedFiles.add(createFile(i));
+        }
+
+        return documentedFiles;
+    }
+
+    /**
+     * Creates the files of a library, with the default shape of every file.
+     *
+     * @param fileCount The number of files to create
+     * @return The files, each importable as {@code file<n>.ql}
+     */
+    public List<DocumentedFile> createFiles(int fileCount) {
+        return createFiles(fileCount, DEFAULT_FUNCTIONS_PER_ENTITY);
+    }
+
+    /**
+     * Creates the files of a library, with the default shape of every file.
+     *
+     * @param fileCount          The number of files to create
+     * @param functionsPerEntity The number of member functions of each file's entity
+     * @return The files, each importable as {@code file<n>.ql}
+     */
+    public List<DocumentedFile> createFiles(int fileCount, int functionsPerEntity) {
+        return new SyntheticDocs(libraryName, extendedLibraryName, options.withFileCount(fileCount).withFunctionsPerEntity(functionsPerEntity)).createFiles();
+    }
+
+    /**
+     * Gets the import path of a file, which is nested {@link CorpusOptions#directoryDepth()} directories deep.
+     *
+     * @param fileIndex The index of the file
+     * @return The import path, such as {@code dir3/dir1/file42.ql}
+     */
+    public String getImportPath(int fileIndex) {
+        var importPath = new StringBuilder();
+        var directoryIndex = fileIndex;
+
+        for (int level = 0; level < options.directoryDepth(); level++) {
+            directoryIndex /= DIRECTORY_FANOUT;
+            importPath.insert(0, "dir%d/".formatted(directoryIndex % DIRECTORY_FANOUT));
+        }
+
+        return importPath.append("file%d.ql".formatted(fileIndex)).toString();
+    }
+
+    /**
+     * Gets the name of an entity, which is unique in its library.
+     *
+     * @param fileIndex   The index of the file the entity is in
+     * @param entityIndex The index of the entity in its file
+     * @return The name of the entity
+     */
+    public static String getEntityName(int fileIndex, int entityIndex) {
+        return "Entity%d_%d".formatted(fileIndex, entityIndex);
+    }
+
+    private DocumentedFile createFile(int fileIndex) {
+        var importPath = getImportPath(fileIndex);
+        var documentedItems = new ArrayList<DocumentedItem>();
+
+        for (int i = 0; i < options.entitiesPerFile(); i++) {
+            documentedItems.add(createEntity(importPath, getEntityName(fileIndex, i)));
+        }
+
+        for (int i = 0; i < options.globalFunctionsPerFile(); i++) {
+            documentedItems.add(createFunction(importPath, "global%d_%d".formatted(fileIndex, i), Optional.empty()));
+        }
+
+        // Extensions are spread over the entities of the following files, so every entity of a large library has some
+        if (options.entitiesPerFile() > 0) {
+            for (int i = 0; i < options.extensionsPerFile(); i++) {
+                var extendedEntity = getEntityName((fileIndex + 1 + i / options.entitiesPerFile()) % options.fileCount(), i % options.entitiesPerFile());
+                documentedItems.add(createFunction(importPath, "extend%d_%d".formatted(fileIndex, i), Optional.of(extendedEntity)));
+            }
+        }
+
+        return new DocumentedFile(importPath, Path.of(importPath), documentedItems);
+    }
+
+    private DocumentedItem createEntity(String importPath, String entityName) {
+        // Entity item lists are mutable, as extension functions are added to them once all files are parsed
+        var containedItems = new ArrayList<DocumentedItem>();
+        containedItems.add(createField(importPath, "name"));
+        containedItems.add(createField(importPath, "count"));
+        containedItems.add(new DocumentedItem(new DocumentedTypeEntityConstructor(libraryName, importPath, entityName, List.of("name", "count")),
+                new ConstructorDoc(createDescription(12), List.of(createParamDoc("name"), createParamDoc("count")))));
+
+        for (int i = 0; i < options.functionsPerEntity(); i++) {
+            containedItems.add(createFunction(importPath, "member%d".formatted(i), Optional.empty()));
+        }
+
+        return new DocumentedItem(new DocumentedTypeEntity(libraryName, importPath, entityName),
+                new EntityDoc(createDescription(30), containedItems, new ArrayList<>()));
+    }
+
+    private DocumentedItem createField(String importPath, String name) {
+        var type = randomType();
+        return new DocumentedItem(new DocumentedTypeField(libraryName, importPath, type, name),
+                new FieldDoc(createDescription(8), new DocFieldType(DocFieldType.FieldType.QILLETNI, type)));
+    }
+
+    private DocumentedItem createFunction(String importPath, String name, Optional<String> onType) {
+        var paramCount = random.nextInt(4);
+        var params = new ArrayList<String>(paramCount);
+        var paramDocs = new ArrayList<ParamDoc>(paramCount);
+
+        for (int i = 0; i < paramCount; i++) {
+            var paramName = "param%d".formatted(i);
+            params.add(paramName);
+            paramDocs.add(createParamDoc(paramName));
+        }
+
+        var isNative = random.nextInt(3) == 0;
+        var returnDoc = random.nextBoolean() ? new ReturnDoc(new DocFieldType(DocFieldType.FieldType.QILLETNI, randomType()), createDescription(6)) : null;
+        // Extension functions name their entity along with its library, as in "std.Entity"
+        var docOnLine = onType.map(type -> new DocOnLine(new DocFieldType(DocFieldType.FieldType.QILLETNI, "%s.%s".formatted(extendedLibraryName, type)), createDescription(4))).orElse(null);
+        var docErrors = random.nextInt(4) == 0 ? new DocErrors(createDescription(5)) : null;
+
+        return new DocumentedItem(new DocumentedTypeFunction(libraryName, importPath, name, params, isNative, false, onType),
+                new FunctionDoc(createFunctionDescription(), paramDocs, returnDoc, docOnLine, docErrors));
+    }
+
+    private ParamDoc createParamDoc(String name) {
+        return new ParamDoc(name, new DocFieldType(DocFieldType.FieldType.QILLETNI, randomType()), createDescription(6));
+    }
+
+    private DocDescription createFunctionDescription() {
+        var description = createDescription(20);
+        if (options.javaRefsPerDescription() == 0) {
+            return description;
+        }
+
+        var descriptionItems = new ArrayList<>(description.descriptionItems());
+        descriptionItems.add(new DocDescription.DocText("See "));
+
+        for (int i = 0; i < options.javaRefsPerDescription(); i++) {
+            descriptionItems.add(new DocDescription.JavaRef(JAVA_CLASSES.get(random.nextInt(JAVA_CLASSES.size()))));
+            descriptionItems.add(new DocDescription.DocText(" "));
+        }
+
+        return new DocDescription(descriptionItems);
+    }
+
+    /**
+     * Creates a description with the occasional reference. If the options have markdown descriptions, the text has
+     * headings, lists, quotes, emphasis and inline code, with blocks separated by blank lines, as single newlines are
+     * joined into a space before rendering.
+     *
+     * @param wordCount The number of words of text
+     * @return The description
+     */
+    public DocDescription createDescription(int wordCount) {
+        var descriptionItems = new ArrayList<DocDescription.DescriptionItem>();
+        var text = new StringBuilder();
+
+        for (int i = 0; i < wordCount; i++) {
+            if (random.nextInt(10) == 0) {
+                if (!text.isEmpty()) {
+                    descriptionItems.add(new DocDescription.DocText(text.toString()));
+                    text.setLength(0);
+                }
+
+                descriptionItems.add(switch (random.nextInt(3)) {
+                    case 0 -> new DocDescription.ParamRef("param0");
+                    case 1 -> new DocDescription.TypeRef(randomType());
+                    default -> new DocDescription.JavaRef("java.util.List");
+                });
+            }
+
+            var word = WORDS.get(random.nextInt(WORDS.size()));
+
+            if (options.markdownDescriptions()) {
+                appendMarkdownWord(text, i, word);
+            } else {
+                text.append(word).append(' ');
+            }
+        }
+
+        if (!text.isEmpty()) {
+            descriptionItems.add(new DocDescription.DocText(text.toString()));
+        }
+
+        return new DocDescription(descriptionItems);
+    }
+
+    private void appendMarkdownWord(StringBuilder text, int wordIndex, String word) {
+        if (wordIndex > 0 && wordIndex % 8 == 0) {
+            text.append(switch (random.nextInt(4)) {
+                case 0 -> "\n\n## ";
+                case 1 -> "\n\n- ";
+                case 2 -> "\n\n> ";
+                default -> "\n\n";
+            });
+        }
+
+        switch (random.nextInt(8)) {
+            case 0 -> text.append("**").append(word).append("** ");
+            case 1 -> text.append('`').append(word).append("` ");
+            case 2 -> text.append('_').append(word).append("_ ");
+            default -> text.append(word).append(' ');
+        }
+    }
+
+    /**
+     * Creates functions and fields without any optional documentation, so every optional field is written as a nil
+     * placeholder.
+     *
+     * @param itemCount The number of items to create
+     * @return The items, alternating between functions and fields
+     */
+    public List<DocumentedItem> createUndocumentedItems(int itemCount) {
+        var documentedItems = new ArrayList<DocumentedItem>(itemCount);
+
+        for (int i = 0; i < itemCount; i++) {
+            if (i % 2 == 0) {
+                documentedItems.add(new DocumentedItem(new DocumentedTypeFunction(libraryName, "bare.ql", "bare%d".formatted(i), List.of(), false, false, Optional.empty()),
+                        new FunctionDoc(null, List.of(), null, null, null)));
+            } else {
+                documentedItems.add(new DocumentedItem(new DocumentedTypeField(libraryName, "bare.ql", "int", "field%d".formatted(i)),
+                        new FieldDoc(null, null)));
+            }
+        }
+
+        return documentedItems;
+    }
+
+    private String randomType() {
+        return QILLETNI_TYPES.get(random.nextInt(QILLETNI_TYPES.size()));
+    }
+}
@@ -0,0 +1,82 @@
+package dev.qilletni.docgen.cache.serializer;
+
+import dev.qilletni.api.lang.docs.structure.DocumentedItem;
+import dev.qilletni.api.lang.docs.structure.text.DocDescription;
+import dev.qilletni.docgen.benchmark.SyntheticDocs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+/**
+ * Serializes and deserializes payloads that isolate a single part of the cache format:
+ * <ul>
+ *     <li>A single {@link DocDescription} of a varying number of words</li>
+ *     <li>Items with no optional documentation, where every optional field is a nil placeholder that the deserializer
+ *     must peek for in version 2, or a cleared bit of a presence bitmap in version 3</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+public class DocumentationPayloadBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    @Param({"2", "3"})
+    public int formatVersion;
+
+    private DocDescription docDescription;
+    private byte[] serializedDescription;
+    private List<DocumentedItem> undocumentedItems;
+    private byte[] serializedUndocumentedItems;
+
+    @Setup
+    public void setup() throws Exception {
+        var syntheticDocs = new SyntheticDocs("bench", 42);
+        docDescription = syntheticDocs.createDescription(size);
+        serializedDescription = serializeDescription();
+        undocumentedItems = syntheticDocs.createUndocumentedItems(size);
+        serializedUndocumentedItems = serializeUndocumentedItems();
+    }
+
+    @Benchmark
+    public byte[] serializeDescription() throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+
+        try (var documentationSerializer = new DocumentationSerializer(outputStream, formatVersion)) {
+            documentationSerializer.serializeDocDescription(docDescription);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public DocDescription deserializeDescription() throws Exception {
+        try (var documentationDeserializer = new DocumentationDeserializer(new ByteArrayInputStream(serializedDescription))) {
+            return documentationDeserializer.deserializeDocDescription();
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeUndocumentedItems() throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+
+        try (var documentationSerializer = new DocumentationSerializer(outputStream, formatVersion)) {
+            documentationSerializer.serializeDocumentedItemList(undocumentedItems);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public List<DocumentedItem> deserializeUndocumentedItems() throws Exception {
+        try (var documentationDeserializer = new DocumentationDeserializer(new ByteArrayInputStream(serializedUndocumentedItems))) {
+            return documentationDeserializer.deserializeDocumentedItemList();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package dev.qilletni.docgen.cache.serializer;
+
+import dev.qilletni.api.lang.docs.structure.DocumentedFile;
+import dev.qilletni.docgen.benchmark.SyntheticDocs;
+import dev.qilletni.docgen.cache.BasicQllData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Serializes and deserializes whole libraries, as {@link dev.qilletni.docgen.cache.CachedDocHandler} does when writing
+ * and reading a library's cache file. Each file of a library has 13 documented items. Every version of the cache
+ * format that can still be read is compared, along with reading from a memory mapped cache file.
+ */
+@State(Scope.Benchmark)
+public class DocumentationSerializerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int fileCount;
+
+    @Param({"1", "2", "3", "4", "5"})
+    public int formatVersion;
+
+    private BasicQllData basicQllData;
+    private List<DocumentedFile> documentedFiles;
+    private byte[] serializedLibrary;
+    private Path cacheFile;
+
+    @Setup
+    public void setup() throws Exception {
+        var syntheticDocs = new SyntheticDocs("bench", 42);
+        basicQllData = syntheticDocs.createBasicQllData();
+        documentedFiles = syntheticDocs.createFiles(fileCount);
+        serializedLibrary = serializeLibrary();
+
+        cacheFile = Files.createTempFile("bench", ".cache");
+        Files.write(cacheFile, serializedLibrary);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(cacheFile);
+    }
+
+    @Benchmark
+    public byte[] serializeLibrary() throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+
+        try (var documentationSerializer = new DocumentationSerializer(outputStream, formatVersion)) {
+            documentationSerializer.serializeLibrary(basicQllData, documentedFiles);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public DocumentationDeserializer.SerializedLibrary deserializeLibrary() throws Exception {
+        try (var documentationDeserializer = new DocumentationDeserializer(new ByteArrayInputStream(serializedLibrary))) {
+            return documentationDeserializer.deserializeLibrary();
+        }
+    }
+
+    @Benchmark
+    public DocumentationDeserializer.SerializedLibrary deserializeMappedLibrary() throws Exception {
+        try (var documentationDeserializer = DocumentationDeserializer.map(cacheFile)) {
+            return documentationDeserializer.deserializeLibrary();
+        }
+    }
+
+    /**
+     * Reads only the info of a library, as the global index page does for every cached library.
+     */
+    @Benchmark
+    public BasicQllData deserializeMappedBasicQllData() throws Exception {
+        try (var documentationDeserializer = DocumentationDeserializer.map(cacheFile)) {
+            return documentationDeserializer.deserializeBasicQllData();
+        }
+    }
+}
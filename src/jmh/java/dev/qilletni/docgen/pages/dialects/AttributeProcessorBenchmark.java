@@ -0,0 +1,83 @@
+package dev.qilletni.docgen.pages.dialects;
+
+import dev.qilletni.api.lang.docs.structure.DocumentedItem;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeEntity;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeFunction;
+import dev.qilletni.docgen.benchmark.SyntheticDocs;
+import dev.qilletni.docgen.pages.TemplateEngineProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.thymeleaf.context.Context;
+
+import java.io.Writer;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Renders templates that apply a single attribute processor to every item of a list, to isolate the cost of the
+ * processors used most by real pages. The baseline renders the same list with a plain {@code th:text}, so the cost
+ * of a processor is its difference from the baseline.
+ * <br><br>
+ * Output is discarded, so allocation is only that of the engine and processor.
+ */
+@State(Scope.Benchmark)
+public class AttributeProcessorBenchmark {
+
+    @Param({"10", "100"})
+    public int itemCount;
+
+    private Context context;
+
+    @Setup
+    public void setup() {
+        var syntheticDocs = new SyntheticDocs("bench", 42);
+        var documentedItems = syntheticDocs.createFiles(itemCount).stream()
+                .flatMap(documentedFile -> documentedFile.documentedItems().stream())
+                .toList();
+
+        context = new Context();
+        context.setVariable(TemplateEngineProvider.LIBRARY_NAME_VARIABLE, "bench");
+        context.setVariable("functions", getTypes(documentedItems, DocumentedTypeFunction.class).limit(itemCount).toList());
+        context.setVariable("entities", getTypes(documentedItems, DocumentedTypeEntity.class).limit(itemCount).toList());
+        context.setVariable("descriptions", Stream.generate(() -> syntheticDocs.createDescription(20)).limit(itemCount).toList());
+    }
+
+    private static <T> Stream<T> getTypes(List<DocumentedItem> documentedItems, Class<T> type) {
+        return documentedItems.stream()
+                .map(DocumentedItem::itemBeingDocumented)
+                .filter(type::isInstance)
+                .map(type::cast);
+    }
+
+    private void render(String template) {
+        TemplateEngineProvider.getTemplateEngine().process(template, context, Writer.nullWriter());
+    }
+
+    @Benchmark
+    public void baseline() {
+        render("benchmark/baseline.html");
+    }
+
+    @Benchmark
+    public void functionSignature() {
+        render("benchmark/function_signature.html");
+    }
+
+    @Benchmark
+    public void functionLink() {
+        render("benchmark/function_link.html");
+    }
+
+    @Benchmark
+    public void entityLink() {
+        render("benchmark/entity_link.html");
+    }
+
+    @Benchmark
+    public void formattedDescription() {
+        render("benchmark/description.html");
+    }
+}
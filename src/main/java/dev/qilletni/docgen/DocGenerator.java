@@ -1,31 +1,37 @@
 package dev.qilletni.docgen;
 
-import dev.qilletni.api.lang.docs.structure.DocumentedItem;
-import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeFunction;
-import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
 import dev.qilletni.api.lib.qll.QilletniInfoData;
-import dev.qilletni.docgen.cache.BasicQllData;
+import dev.qilletni.docgen.cache.CachedDocHandler;
+import dev.qilletni.docgen.output.FileSystemOutputSink;
+import dev.qilletni.docgen.output.OutputFiles;
+import dev.qilletni.docgen.output.OutputSink;
 import dev.qilletni.docgen.pages.GlobalIndexPageGenerator;
-import dev.qilletni.docgen.pages.dialects.function.FunctionSignatureAttributeTagProcessor;
-import dev.qilletni.docgen.pages.dialects.utility.TypeUtility;
+import dev.qilletni.docgen.watch.SourceWatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 public class DocGenerator {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(DocGenerator.class);
     
+    // How long no source files must change for before regenerating in watch mode
+    private static final Duration WATCH_DEBOUNCE = Duration.ofMillis(150);
+    
     private final Path cachePath;
     private final Path outputPath;
+    private final OutputSink outputSink;
+    private final GenerationOptions options;
+    // Shared by every library generated by this generator, so each cache is only deserialized once
+    private final CachedDocHandler cachedDocHandler;
 
     /**
      * Creates a {@link DocGenerator} that can generate documentation for libraries.
@@ -34,108 +40,174 @@ public class DocGenerator {
      * @param outputPath  The path to output the generated documentation to
      */
     public DocGenerator(Path cachePath, Path outputPath) {
+        this(cachePath, outputPath, GenerationOptions.defaultOptions());
+    }
+
+    /**
+     * Creates a {@link DocGenerator} that can generate documentation for libraries.
+     *
+     * @param cachePath   The directory containing documentation cache
+     * @param outputPath  The path to output the generated documentation to
+     * @param options     The options to tune the generation with
+     */
+    public DocGenerator(Path cachePath, Path outputPath, GenerationOptions options) {
+        this(cachePath, outputPath, new FileSystemOutputSink(), options);
+    }
+
+    /**
+     * Creates a {@link DocGenerator} that can generate documentation for libraries to any {@link OutputSink}. The sink
+     * is not closed by the generator.
+     *
+     * @param cachePath   The directory containing documentation cache
+     * @param outputPath  The path generated files are addressed by, which only needs to exist for filesystem sinks
+     * @param outputSink  The sink to write the generated documentation to
+     * @param options     The options to tune the generation with
+     */
+    public DocGenerator(Path cachePath, Path outputPath, OutputSink outputSink, GenerationOptions options) {
         this.cachePath = cachePath;
         this.outputPath = outputPath;
+        this.outputSink = outputSink;
+        this.options = options;
+        this.cachedDocHandler = new CachedDocHandler(outputPath, outputSink, cachePath, options);
     }
 
     /**
      * Generates documentation for the given Qilletni project input path.
-     *
+     * 
      * @param inputPath   The qilletni-src directory of the Qilletni project being documented
      * @param libraryQll  The library to generate documentation for
      */
     public void generateDocs(Path inputPath, QilletniInfoData libraryQll) throws IOException {
+        var startStatistics = OutputFiles.getStatistics();
+        
         initializeDirectory();
+        TemplateWarmup.warmUp();
+
+        try {
+            createScheduler().generate(List.of(new LibrarySource(inputPath, libraryQll)));
+        } finally {
+            logWriteStatistics(startStatistics);
+        }
+    }
+
+    /**
+     * Generates documentation for multiple libraries in a single run, then regenerates the global index once. Each
+     * library is rendered once, after every library in the batch that adds extension functions to it has been parsed,
+     * and independent libraries are processed concurrently. A library that fails to generate does not stop the others.
+     *
+     * @param librarySources The libraries to generate documentation for
+     * @throws IOException If any library failed to generate, with each failure attached as a suppressed exception
+     */
+    public void generateDocs(List<LibrarySource> librarySources) throws IOException {
+        var startStatistics = OutputFiles.getStatistics();
         
-        LOGGER.info("Generating docs for library: {}", libraryQll.name());
+        initializeDirectory();
+        TemplateWarmup.warmUp();
+
+        try {
+            createScheduler().generate(librarySources);
+        } finally {
+            regenerateGlobalIndex();
+            logWriteStatistics(startStatistics);
+        }
+    }
+    
+    /**
+     * Generates documentation for the given libraries, then keeps regenerating a library whenever any of its source
+     * files change, until the thread is interrupted. Regeneration is always incremental, and the parsed libraries are
+     * kept in memory between changes, so only the changed files are parsed again and only the pages they affect are
+     * rendered. A library that fails to generate is logged, and watching continues.
+     *
+     * @param librarySources The libraries to generate documentation for and watch
+     */
+    public void watchDocs(List<LibrarySource> librarySources) throws IOException, InterruptedException {
+        watchDocs(librarySources, () -> {});
+    }
+
+    /**
+     * Generates documentation for the given libraries and watches them, like {@link #watchDocs(List)}.
+     *
+     * @param librarySources The libraries to generate documentation for and watch
+     * @param onRegenerated  Called after every regeneration caused by a change, even if it failed
+     */
+    public void watchDocs(List<LibrarySource> librarySources, Runnable onRegenerated) throws IOException, InterruptedException {
+        var scheduler = new LibraryScheduler(cachedDocHandler, cachePath, outputPath, options.withIncremental(true));
+        var startStatistics = OutputFiles.getStatistics();
+
+        initializeDirectory();
+        TemplateWarmup.warmUp();
+
+        try {
+            scheduler.generate(librarySources);
+        } catch (IOException e) {
+            LOGGER.error("Failed to generate docs", e);
+        }
+
+        regenerateGlobalIndex();
+        logWriteStatistics(startStatistics);
         
-        var basicQllData = new BasicQllData(libraryQll);
-
-        processLibrary(basicQllData, inputPath, outputPath, cachePath).stream()
-                .filter(docItem -> docItem instanceof DocumentedItem(DocumentedTypeFunction _, FunctionDoc _))
-                .collect(Collectors.groupingBy(TypeUtility::getOnStatus)).forEach((onStatusInfo, items) -> {
-                    var cachedLibraryName = onStatusInfo.libraryName();
-                    
-                    if (cachedLibraryName.isEmpty()) return;
-
-                    LOGGER.debug("  {}", cachedLibraryName);
-
-                    var cachedLibrary = cachePath.resolve("%s.cache".formatted(cachedLibraryName));
-                    if (Files.notExists(cachedLibrary)) {
-                        LOGGER.debug("Skipping adding functions for library {} as it has no cache file", cachedLibraryName);
-                        return;
-                    }
-                    
-                    items.forEach(item -> {
-                        var documentedFunction = (DocumentedTypeFunction) item.itemBeingDocumented();
-
-                        LOGGER.debug("    -{}", FunctionSignatureAttributeTagProcessor.getFunctionSignature(documentedFunction));
-                    });
-
-                    try {
-                        processCachedLibrary(cachedLibraryName, outputPath, cachePath, items);
-                    } catch (IOException e) {
-                        LOGGER.error("Failed to process cached library: {}", cachedLibraryName, e);
-                    }
-                });
+        try (var sourceWatcher = new SourceWatcher(librarySources.stream().map(LibrarySource::inputPath).toList())) {
+            LOGGER.info("Watching {} libraries for changes", librarySources.size());
+            
+            while (!Thread.currentThread().isInterrupted()) {
+                var changedPaths = sourceWatcher.awaitChanges(WATCH_DEBOUNCE);
+                
+                var changedSources = librarySources.stream()
+                        .filter(librarySource -> changedPaths.stream().anyMatch(changedPath -> changedPath.startsWith(librarySource.inputPath())))
+                        .toList();
+                
+                LOGGER.info("{} source path(s) changed, regenerating {} libraries", changedPaths.size(), changedSources.size());
+
+                var startTime = System.nanoTime();
+                var regenerationStatistics = OutputFiles.getStatistics();
+                
+                try {
+                    scheduler.generate(changedSources);
+                } catch (IOException e) {
+                    LOGGER.error("Failed to regenerate docs", e);
+                }
+                
+                LOGGER.info("Regenerated docs in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                logWriteStatistics(regenerationStatistics);
+                onRegenerated.run();
+            }
+        }
+    }
+
+    private static void logWriteStatistics(OutputFiles.WriteStatistics startStatistics) {
+        var statistics = OutputFiles.getStatistics().since(startStatistics);
+        LOGGER.info("Wrote {} output file(s), skipped {} unchanged", statistics.writtenFiles(), statistics.skippedFiles());
+    }
+
+    private LibraryScheduler createScheduler() {
+        return new LibraryScheduler(cachedDocHandler, cachePath, outputPath, options);
     }
 
     /**
      * Ensure directory is initialized and exists. This copies static global files to ensure it up to date.
      */
     private void initializeDirectory() throws IOException {
-        var scriptsPath = outputPath.resolve("scripts");
-        Files.createDirectories(scriptsPath);
-        
-        copyResourceToDisk("/static/style.css", outputPath.resolve("style.css"));
-        copyResourceToDisk("/static/scripts/search.js", scriptsPath.resolve("search.js"));
+        copyResource(outputSink, "/static/style.css", outputPath.resolve("style.css"));
+        copyResource(outputSink, "/static/scripts/search.js", outputPath.resolve("scripts").resolve("search.js"));
     }
 
     public static void copyResourceToDisk(String resourcePath, Path targetPath) throws IOException {
+        copyResource(new FileSystemOutputSink(), resourcePath, targetPath);
+    }
+
+    public static void copyResource(OutputSink outputSink, String resourcePath, Path targetPath) throws IOException {
         // Open the resource as a stream
         try (InputStream in = DocGenerator.class.getResourceAsStream(resourcePath)) {
             if (in == null) {
                 throw new IOException("Resource not found: " + resourcePath);
             }
-            // Ensure the target directory exists
-            Files.createDirectories(targetPath.getParent());
-            // Copy the data to the target path, replacing it if it exists
-            Files.copy(in, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            // Write the data to the target path, replacing it if it exists with different content
+            outputSink.write(targetPath, ByteBuffer.wrap(in.readAllBytes()));
         }
     }
     
     public void regenerateGlobalIndex() throws IOException {
-        var globalIndexPageGenerator = new GlobalIndexPageGenerator(cachePath, outputPath);
+        var globalIndexPageGenerator = new GlobalIndexPageGenerator(cachePath, outputPath, outputSink, options);
         globalIndexPageGenerator.generateIndex();
     }
-
-    private static List<DocumentedItem> processLibrary(BasicQllData basicQllData, Path libraryPath, Path outputPath, Path cachePath) throws IOException {
-        var docParser = DocParserFactory.createDocParser(basicQllData, libraryPath, outputPath, cachePath);
-
-        docParser.createLibraryIndexPage();
-        docParser.createLibraryFilesPage();
-        docParser.createEntityPages();
-        docParser.createSourceFilePages();
-        docParser.writeToCache();
-        docParser.createSearchIndex();
-
-        return docParser.getOnExtensionDocs();
-    }
-
-    private static void processCachedLibrary(String libraryName, Path outputPath, Path cachePath, List<DocumentedItem> onExtensionsDocs) throws IOException {
-        var docParserOptional = DocParserFactory.createDocParserFromCache(libraryName, outputPath, cachePath);
-        if (docParserOptional.isEmpty()) {
-            LOGGER.debug("No cached doc parser found for library: {}", libraryName);
-            return;
-        }
-        
-        var docParser = docParserOptional.get();
-
-        docParser.createLibraryIndexPage();
-        docParser.createLibraryFilesPage();
-        docParser.addExtendedFunctions(onExtensionsDocs);
-        docParser.createEntityPages();
-        docParser.createSourceFilePages();
-        docParser.writeToCache();
-    }
 }
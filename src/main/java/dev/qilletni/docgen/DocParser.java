@@ -13,35 +13,33 @@ import dev.qilletni.api.lang.docs.structure.text.inner.FieldDoc;
 import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
 import dev.qilletni.docgen.cache.BasicQllData;
 import dev.qilletni.docgen.cache.CachedDocHandler;
+import dev.qilletni.docgen.concurrent.ParallelTasks;
+import dev.qilletni.docgen.concurrent.TaskResult;
+import dev.qilletni.docgen.events.GenerationStageEvent;
 import dev.qilletni.docgen.index.DescriptionFormatter;
 import dev.qilletni.docgen.index.SearchIndexGenerator;
-import dev.qilletni.docgen.pages.dialects.constructor.ConstructorDialect;
-import dev.qilletni.docgen.pages.dialects.description.FormattedDocDialect;
-import dev.qilletni.docgen.pages.dialects.entity.EntityDialect;
-import dev.qilletni.docgen.pages.dialects.field.FieldDialect;
-import dev.qilletni.docgen.pages.dialects.file.FileDialect;
-import dev.qilletni.docgen.pages.dialects.function.FunctionDialect;
+import dev.qilletni.docgen.output.OutputSink;
+import dev.qilletni.docgen.pages.PageRenderer;
 import dev.qilletni.docgen.pages.dialects.function.FunctionSignatureAttributeTagProcessor;
-import dev.qilletni.docgen.pages.dialects.link.LinkDialect;
 import dev.qilletni.docgen.pages.dialects.utility.AnchorFactory;
 import dev.qilletni.docgen.pages.dialects.utility.TypeUtility;
 import dev.qilletni.docgen.pages.filetree.FileNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
-import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -52,12 +50,25 @@ public class DocParser {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DocParser.class);
 
+    static final String LIBRARY_TEMPLATE = "templates/library.html";
+    static final String FILE_TREE_TEMPLATE = "templates/file_tree.html";
+    static final String ENTITY_TEMPLATE = "templates/entity.html";
+    static final String FILE_TEMPLATE = "templates/file.html";
+
+    /**
+     * The order of a library's extension functions, by the name of the entity they are on then their own name.
+     */
+    static final Comparator<DocumentedItem> ON_EXTENSION_DOC_ORDER = Comparator.comparing((DocumentedItem item) -> ((DocumentedTypeFunction) item.itemBeingDocumented()).onOptional().orElseThrow())
+            .thenComparing(item -> ((DocumentedTypeFunction) item.itemBeingDocumented()).name());
+
     private final CachedDocHandler cachedDocHandler;
+    private final GenerationOptions options;
     private final String libraryName;
     private final BasicQllData basicQllData;
     private final boolean isStd;
 
     private final Path outputPath;
+    private final OutputSink outputSink;
     private final List<DocumentedFile> documentedFiles;
     private final List<DocumentedItem> entityDocs;
     private final List<DocumentedItem> functionDocs;
@@ -70,11 +81,17 @@ public class DocParser {
     private final String relativeIndexPath;
 
     public DocParser(CachedDocHandler cachedDocHandler, BasicQllData basicQllData, Path outputPath, List<DocumentedFile> documentedFiles) {
+        this(cachedDocHandler, basicQllData, outputPath, documentedFiles, GenerationOptions.defaultOptions());
+    }
+
+    public DocParser(CachedDocHandler cachedDocHandler, BasicQllData basicQllData, Path outputPath, List<DocumentedFile> documentedFiles, GenerationOptions options) {
         this.cachedDocHandler = cachedDocHandler;
+        this.options = options;
         this.libraryName = basicQllData.name();
         this.basicQllData = basicQllData;
         this.isStd = libraryName.equals("std");
         this.outputPath = outputPath;
+        this.outputSink = cachedDocHandler.getOutputSink();
         this.documentedFiles = documentedFiles;
         this.entityDocs = new ArrayList<>();
         this.functionDocs = new ArrayList<>();
@@ -88,7 +105,11 @@ public class DocParser {
     }
     
     public static DocParser createInitializedParser(CachedDocHandler cachedDocHandler, BasicQllData basicQllData, Path outputPath, List<DocumentedFile> documentedFiles) {
-        var docParser = new DocParser(cachedDocHandler, basicQllData, outputPath, documentedFiles);
+        return createInitializedParser(cachedDocHandler, basicQllData, outputPath, documentedFiles, GenerationOptions.defaultOptions());
+    }
+    
+    public static DocParser createInitializedParser(CachedDocHandler cachedDocHandler, BasicQllData basicQllData, Path outputPath, List<DocumentedFile> documentedFiles, GenerationOptions options) {
+        var docParser = new DocParser(cachedDocHandler, basicQllData, outputPath, documentedFiles, options);
         docParser.initDocumentedItems();
         
         return docParser;
@@ -106,32 +127,48 @@ public class DocParser {
         return documentedFiles;
     }
 
-    private TemplateEngine createTemplateEngine() {
-        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
-        templateResolver.setSuffix(".html");
-
-        TemplateEngine templateEngine = new TemplateEngine();
-        templateEngine.setTemplateResolver(templateResolver);
-        templateEngine.addDialect(new FunctionDialect());
-        templateEngine.addDialect(new FieldDialect());
-        templateEngine.addDialect(new EntityDialect(libraryName));
-        templateEngine.addDialect(new FormattedDocDialect());
-        templateEngine.addDialect(new ConstructorDialect());
-        templateEngine.addDialect(new FileDialect(libraryName));
-        templateEngine.addDialect(new LinkDialect());
-        
-        return templateEngine;
+    private int processAndWrite(String templatePath, Path outputPath, Context context) throws IOException {
+        return PageRenderer.render(templatePath, context, outputSink, outputPath);
     }
     
-    private void processAndWrite(String templatePath, Path outputPath, TemplateEngine templateEngine, Context context) throws IOException {
-        String output = templateEngine.process(templatePath, context);
+    /**
+     * Renders a page for each item, up to {@link GenerationOptions#renderThreads()} at once. Every page has its own
+     * context and output file, and all state shared between pages is only read while rendering. All pages are
+     * attempted even if some fail.
+     *
+     * @param pageType   The type of page being rendered, for error messages
+     * @param items      The items to render a page for
+     * @param pageWriter Renders and writes the page for a single item
+     * @throws IOException If any page failed to render, with each failure attached as a suppressed exception
+     */
+    private <T> void renderPages(String pageType, List<T> items, PageWriter<T> pageWriter) throws IOException {
+        var stageEvent = GenerationStageEvent.begin(libraryName, pageType + " pages");
+        
+        var results = ParallelTasks.runAll(items, options.renderThreads(), "docgen-render", pageWriter::writePage);
+        var failures = results.stream()
+                .filter(result -> !result.isSuccess())
+                .toList();
         
-        try (FileWriter writer = new FileWriter(outputPath.toFile())) {
-            writer.write(output);
+        stageEvent.end(items.size(), results.stream().filter(TaskResult::isSuccess).mapToLong(TaskResult::value).sum());
+        
+        if (failures.isEmpty()) {
+            return;
         }
+
+        var exception = new IOException("Failed to render %d %s page(s) for library %s".formatted(failures.size(), pageType, libraryName));
+        failures.forEach(failure -> exception.addSuppressed(failure.failure()));
+        
+        throw exception;
     }
     
     public void createLibraryFilesPage() throws IOException {
+        var outputDir = outputPath.resolve(getBasePath());
+
+        var stageEvent = GenerationStageEvent.begin(libraryName, "library files page");
+        stageEvent.end(1, processAndWrite(FILE_TREE_TEMPLATE, outputDir.resolve("files.html"), createLibraryFilesContext()));
+    }
+
+    Context createLibraryFilesContext() {
         var context = new Context();
         context.setVariable("libraryName", libraryName);
         context.setVariable("library", basicQllData);
@@ -140,12 +177,8 @@ public class DocParser {
 
         List<FileNode> fileTree = buildFileTree(fileList);
         context.setVariable("fileTree", fileTree);
-
-        var templateEngine = createTemplateEngine();
-
-        var outputDir = Files.createDirectories(outputPath.resolve(getBasePath()));
-
-        processAndWrite("templates/file_tree.html", outputDir.resolve("files.html"), templateEngine, context);
+        
+        return context;
     }
 
     private List<FileNode> buildFileTree(List<Path> filePaths) {
@@ -188,6 +221,13 @@ public class DocParser {
     public void createLibraryIndexPage() throws IOException {
 //        initDocumentedItems();
         
+        var outputDir = outputPath.resolve(getBasePath());
+
+        var stageEvent = GenerationStageEvent.begin(libraryName, "library index page");
+        stageEvent.end(1, processAndWrite(LIBRARY_TEMPLATE, outputDir.resolve("index.html"), createLibraryIndexContext()));
+    }
+
+    Context createLibraryIndexContext() {
         var context = new Context();
         context.setVariable("libraryName", libraryName);
         context.setVariable("sourceUrl", normalizeSourceUrl(basicQllData.sourceUrl()));
@@ -198,12 +238,8 @@ public class DocParser {
         context.setVariable("onExtensionDocs", onExtensionDocs);
         context.setVariable("searchIndexPath", relativeIndexPath);
         context.setVariable("descriptionFormatter", descriptionFormatter);
-
-        var templateEngine = createTemplateEngine();
-
-        var outputDir = Files.createDirectories(outputPath.resolve(getBasePath()));
-
-        processAndWrite("templates/library.html", outputDir.resolve("index.html"), templateEngine, context);
+        
+        return context;
     }
     
     private String normalizeSourceUrl(String sourceUrl) {
@@ -215,77 +251,146 @@ public class DocParser {
     }
 
     public void createEntityPages() throws IOException {
-        var outputDir = Files.createDirectories(outputPath.resolve(getBasePath())).resolve("entity");
-        Files.createDirectories(outputDir);
+        writeEntityPages(entityDocs);
+    }
+
+    /**
+     * Creates the pages of only the given entities. Names that are not an entity of this library are ignored.
+     *
+     * @param entityNames The names of the entities to create pages for
+     */
+    public void createEntityPages(Collection<String> entityNames) throws IOException {
+        writeEntityPages(entityDocs.stream()
+                .filter(documentedItem -> entityNames.contains(((DocumentedTypeEntity) documentedItem.itemBeingDocumented()).name()))
+                .toList());
+    }
+
+    /**
+     * Deletes the pages of the given entities, if they exist.
+     *
+     * @param entityNames The names of the entities to delete the pages of
+     */
+    public void deleteEntityPages(Collection<String> entityNames) throws IOException {
+        var outputDir = outputPath.resolve(getBasePath()).resolve("entity");
+
+        for (var entityName : entityNames) {
+            outputSink.delete(outputDir.resolve("%s.html".formatted(entityName)));
+        }
+    }
+    
+    private void writeEntityPages(List<DocumentedItem> writingEntityDocs) throws IOException {
+        var outputDir = outputPath.resolve(getBasePath()).resolve("entity");
 
-        for (DocumentedItem documentedItem : entityDocs) {
+        renderPages("entity", writingEntityDocs, documentedItem -> {
             var documentedType = (DocumentedTypeEntity) documentedItem.itemBeingDocumented();
-            var entityDoc = (EntityDoc) documentedItem.innerDoc();
             
             var path = outputDir.resolve("%s.html".formatted(documentedType.name()));
+
+            return processAndWrite(ENTITY_TEMPLATE, path, createEntityContext(documentedItem));
+        });
+    }
+
+    Context createEntityContext(DocumentedItem documentedItem) {
+        var documentedType = (DocumentedTypeEntity) documentedItem.itemBeingDocumented();
+        var entityDoc = (EntityDoc) documentedItem.innerDoc();
             
-            if (documentedType.name().contains("string")) {
-                LOGGER.debug("STRING");
-                LOGGER.debug("entityDoc = {}", entityDoc);
-            }
-            
-            var context = new Context();
-            context.setVariable("libraryName", libraryName);
-            context.setVariable("library", basicQllData);
-            context.setVariable("fileName", documentedType.importPath());
-            context.setVariable("name", documentedType.name());
-            context.setVariable("description", entityDoc.description());
-
-            var entityFields = entityDoc.containedItems().stream().filter(item -> item.itemBeingDocumented() instanceof DocumentedTypeField).toList();
-            var entityFunctions = entityDoc.containedItems().stream().filter(item -> item.itemBeingDocumented() instanceof DocumentedTypeFunction).toList();
-            var entityExtensionFunctions = entityDoc.onExtensionFunctions(); // always only functions
-            var entityConstructors = entityDoc.containedItems().stream().filter(item -> item.itemBeingDocumented() instanceof DocumentedTypeEntityConstructor).toList();
-
-            context.setVariable("fields", entityFields);
-            context.setVariable("functions", entityFunctions);
-            context.setVariable("extensionFunctions", entityExtensionFunctions);
-            context.setVariable("constructors", entityConstructors);
-            
-            context.setVariable("allFunctions", Stream.of(entityFunctions, entityExtensionFunctions).flatMap(List::stream).toList());
+        if (documentedType.name().contains("string")) {
+            LOGGER.debug("STRING");
+            LOGGER.debug("entityDoc = {}", entityDoc);
+        }
+        
+        var context = new Context();
+        context.setVariable("libraryName", libraryName);
+        context.setVariable("library", basicQllData);
+        context.setVariable("fileName", documentedType.importPath());
+        context.setVariable("name", documentedType.name());
+        context.setVariable("description", entityDoc.description());
+
+        var entityFields = entityDoc.containedItems().stream().filter(item -> item.itemBeingDocumented() instanceof DocumentedTypeField).toList();
+        var entityFunctions = entityDoc.containedItems().stream().filter(item -> item.itemBeingDocumented() instanceof DocumentedTypeFunction).toList();
+        var entityExtensionFunctions = entityDoc.onExtensionFunctions(); // always only functions
+        var entityConstructors = entityDoc.containedItems().stream().filter(item -> item.itemBeingDocumented() instanceof DocumentedTypeEntityConstructor).toList();
+
+        context.setVariable("fields", entityFields);
+        context.setVariable("functions", entityFunctions);
+        context.setVariable("extensionFunctions", entityExtensionFunctions);
+        context.setVariable("constructors", entityConstructors);
+        
+        context.setVariable("allFunctions", Stream.of(entityFunctions, entityExtensionFunctions).flatMap(List::stream).toList());
+
+        context.setVariable("searchIndexPath", relativeIndexPath);
+        context.setVariable("descriptionFormatter", descriptionFormatter);
+        
+        return context;
+    }
+    
+    public void createSourceFilePages() throws IOException {
+        writeSourceFilePages(documentedFiles);
+    }
 
-            context.setVariable("searchIndexPath", relativeIndexPath);
-            context.setVariable("descriptionFormatter", descriptionFormatter);
+    /**
+     * Creates the pages of only the given source files. Paths that are not a source file of this library are ignored.
+     *
+     * @param importPaths The import paths of the source files to create pages for
+     */
+    public void createSourceFilePages(Collection<String> importPaths) throws IOException {
+        writeSourceFilePages(documentedFiles.stream()
+                .filter(documentedFile -> importPaths.contains(documentedFile.importPath().toString().replace("\\", "/")))
+                .toList());
+    }
 
-            var templateEngine = createTemplateEngine();
+    /**
+     * Deletes the pages of the given source files, if they exist.
+     *
+     * @param importPaths The import paths of the source files to delete the pages of
+     */
+    public void deleteSourceFilePages(Collection<String> importPaths) throws IOException {
+        var outputDir = outputPath.resolve(getBasePath()).resolve("file");
 
-            processAndWrite("templates/entity.html", path, templateEngine, context);
+        for (var importPath : importPaths) {
+            outputSink.delete(outputDir.resolve(AnchorFactory.createHrefForImportPath(importPath) + ".html"));
         }
     }
     
-    public void createSourceFilePages() throws IOException {
-        var outputDir = Files.createDirectories(outputPath.resolve(getBasePath())).resolve("file");
-        Files.createDirectories(outputDir);
+    private void writeSourceFilePages(List<DocumentedFile> writingDocumentedFiles) throws IOException {
+        var outputDir = outputPath.resolve(getBasePath()).resolve("file");
         
-        for (DocumentedFile documentedFile : documentedFiles) {
-            var documentedEntities = documentedFile.documentedItems().stream().filter(documentedItem -> documentedItem.itemBeingDocumented() instanceof DocumentedTypeEntity).toList();
-            var documentedFields = documentedFile.documentedItems().stream().filter(documentedItem -> documentedItem.itemBeingDocumented() instanceof DocumentedTypeField).toList();
-            var documentedFunctions = documentedFile.documentedItems().stream().filter(documentedItem -> documentedItem.itemBeingDocumented() instanceof DocumentedTypeFunction).toList();
-
+        renderPages("source file", writingDocumentedFiles, documentedFile -> {
             var outputFilePath = outputDir.resolve(AnchorFactory.createHrefForSourceFile(documentedFile) + ".html");
-            
-            var context = new Context();
-            context.setVariable("libraryName", libraryName);
-            context.setVariable("library", basicQllData);
-            context.setVariable("fileName", documentedFile.fileName());
-            context.setVariable("filePath", documentedFile.importPath().toString().replace("\\", "/"));
-            context.setVariable("descriptionFormatter", descriptionFormatter);
-            
-            context.setVariable("fields", documentedFields);
-            context.setVariable("functions", documentedFunctions);
-            context.setVariable("entities", documentedEntities);
 
-            var templateEngine = createTemplateEngine();
+            return processAndWrite(FILE_TEMPLATE, outputFilePath, createSourceFileContext(documentedFile));
+        });
+    }
 
-            processAndWrite("templates/file.html", outputFilePath, templateEngine, context);
-        }
+    Context createSourceFileContext(DocumentedFile documentedFile) {
+        var documentedEntities = documentedFile.documentedItems().stream().filter(documentedItem -> documentedItem.itemBeingDocumented() instanceof DocumentedTypeEntity).toList();
+        var documentedFields = documentedFile.documentedItems().stream().filter(documentedItem -> documentedItem.itemBeingDocumented() instanceof DocumentedTypeField).toList();
+        var documentedFunctions = documentedFile.documentedItems().stream().filter(documentedItem -> documentedItem.itemBeingDocumented() instanceof DocumentedTypeFunction).toList();
+        
+        var context = new Context();
+        context.setVariable("libraryName", libraryName);
+        context.setVariable("library", basicQllData);
+        context.setVariable("fileName", documentedFile.fileName());
+        context.setVariable("filePath", documentedFile.importPath().toString().replace("\\", "/"));
+        context.setVariable("descriptionFormatter", descriptionFormatter);
+        
+        context.setVariable("fields", documentedFields);
+        context.setVariable("functions", documentedFunctions);
+        context.setVariable("entities", documentedEntities);
+        
+        return context;
     }
     
-    public void addExtendedFunctions(List<DocumentedItem> addingOnExtensionsDocs) {
+    /**
+     * Adds extension functions to the entities of this library they are on. Functions on entities this library does not
+     * have, or that the entity already has, are skipped.
+     *
+     * @param addingOnExtensionsDocs The extension functions to add
+     * @return The names of the entities that had any functions added
+     */
+    public Set<String> addExtendedFunctions(List<DocumentedItem> addingOnExtensionsDocs) {
+        var modifiedEntities = new HashSet<String>();
+        
         for (DocumentedItem addingDocItem : addingOnExtensionsDocs) {
             
             var functionDoc = (FunctionDoc) addingDocItem.innerDoc();
@@ -316,7 +421,37 @@ public class DocParser {
             }
             
             entityDoc.addOnExtension(addingDocItem);
+            modifiedEntities.add(onStatusInfo.entityName());
         }
+        
+        return modifiedEntities;
+    }
+    
+    /**
+     * Removes all extension functions that were declared in the given source files of a library from this library's
+     * entities. This is used to drop functions whose declaring file changed or no longer exists, before adding their
+     * current versions again.
+     *
+     * @param fromLibrary The library the functions were declared in
+     * @param importPaths The import paths of the files the functions were declared in
+     * @return The names of the entities that had any functions removed
+     */
+    public Set<String> removeExtendedFunctions(String fromLibrary, Collection<String> importPaths) {
+        var modifiedEntities = new HashSet<String>();
+
+        for (DocumentedItem entityDocItem : entityDocs) {
+            var entityDoc = (EntityDoc) entityDocItem.innerDoc();
+            
+            var removed = entityDoc.onExtensionFunctions().removeIf(docItem -> docItem.itemBeingDocumented() instanceof DocumentedTypeFunction documentedTypeFunction
+                    && documentedTypeFunction.libraryName().equals(fromLibrary)
+                    && importPaths.contains(documentedTypeFunction.importPath()));
+            
+            if (removed) {
+                modifiedEntities.add(((DocumentedTypeEntity) entityDocItem.itemBeingDocumented()).name());
+            }
+        }
+        
+        return modifiedEntities;
     }
     
     private void initDocumentedItems() {
@@ -346,9 +481,7 @@ public class DocParser {
                     }
                 });
 
-        onExtensionDocs.sort((a, b) -> Comparator.comparing((DocumentedItem item) -> ((DocumentedTypeFunction) item.itemBeingDocumented()).onOptional().orElseThrow())
-                .thenComparing(item -> ((DocumentedTypeFunction) item.itemBeingDocumented()).name())
-                .compare(a, b));
+        onExtensionDocs.sort(ON_EXTENSION_DOC_ORDER);
         
         functionDocs.sort((a, b) -> Comparator.comparing((DocumentedItem item) -> ((DocumentedTypeFunction) item.itemBeingDocumented()).onOptional().isPresent())
                 .thenComparing(item -> ((DocumentedTypeFunction) item.itemBeingDocumented()).name())
@@ -385,7 +518,7 @@ public class DocParser {
     public void createSearchIndex() {
         try {
             var indexGenerator = new SearchIndexGenerator(entityDocs, onExtensionDocs, functionDocs, libraryName);
-            indexGenerator.generateSearchIndex(outputPath.resolve(getBasePath()).resolve("index.json"));
+            indexGenerator.generateSearchIndex(outputSink, outputPath.resolve(getBasePath()).resolve("index.json"));
         } catch (IOException e) {
             LOGGER.error("An error occurred while generating the search index.", e);
         }
@@ -395,6 +528,10 @@ public class DocParser {
         cachedDocHandler.writeLibraryCache(this);
     }
 
+    public GenerationOptions getOptions() {
+        return options;
+    }
+
     public BasicQllData getBasicQll() {
         return basicQllData;
     }
@@ -402,4 +539,18 @@ public class DocParser {
     public List<DocumentedItem> getOnExtensionDocs() {
         return onExtensionDocs;
     }
+
+    public Set<String> getEntityNames() {
+        return entityDocs.stream()
+                .map(documentedItem -> ((DocumentedTypeEntity) documentedItem.itemBeingDocumented()).name())
+                .collect(Collectors.toSet());
+    }
+
+    @FunctionalInterface
+    private interface PageWriter<T> {
+        /**
+         * @return The size of the page in bytes
+         */
+        int writePage(T item) throws IOException;
+    }
 }
@@ -3,6 +3,10 @@ package dev.qilletni.docgen;
 import dev.qilletni.api.lang.docs.structure.DocumentedFile;
 import dev.qilletni.docgen.cache.BasicQllData;
 import dev.qilletni.docgen.cache.CachedDocHandler;
+import dev.qilletni.docgen.concurrent.ParallelTasks;
+import dev.qilletni.docgen.concurrent.TaskResult;
+import dev.qilletni.docgen.events.GenerationStageEvent;
+import dev.qilletni.docgen.metrics.DocgenMetrics;
 import dev.qilletni.impl.lang.docs.DefaultDocumentationParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +16,8 @@ import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 
 public class DocParserFactory {
@@ -19,11 +25,27 @@ public class DocParserFactory {
     private static final Logger LOGGER = LoggerFactory.getLogger(DocParserFactory.class);
 
     public static Optional<DocParser> createDocParserFromCache(String libraryName, Path outputPath, Path cachePath) {
-        var cachedDocParserHandler = new CachedDocHandler(outputPath, cachePath);
+        return createDocParserFromCache(libraryName, outputPath, cachePath, GenerationOptions.defaultOptions());
+    }
+
+    public static Optional<DocParser> createDocParserFromCache(String libraryName, Path outputPath, Path cachePath, GenerationOptions options) {
+        var cachedDocParserHandler = new CachedDocHandler(outputPath, cachePath, options);
         return cachedDocParserHandler.getCachedLibrayDocParser(libraryName);
     }
 
     public static DocParser createDocParser(BasicQllData basicQllData, Path input, Path outputPath, Path cachePath) {
+        return createDocParser(basicQllData, input, outputPath, cachePath, GenerationOptions.defaultOptions());
+    }
+
+    public static DocParser createDocParser(BasicQllData basicQllData, Path input, Path outputPath, Path cachePath, GenerationOptions options) {
+        return createDocParser(new CachedDocHandler(outputPath, cachePath, options), basicQllData, input, outputPath, cachePath, options);
+    }
+
+    /**
+     * Parses a library's source files into a {@link DocParser}, using an existing {@link CachedDocHandler} so the
+     * parser shares the libraries it already loaded.
+     */
+    public static DocParser createDocParser(CachedDocHandler cachedDocParserHandler, BasicQllData basicQllData, Path input, Path outputPath, Path cachePath, GenerationOptions options) {
         try {
             if (Files.notExists(cachePath)) {
                 Files.createDirectories(cachePath);
@@ -33,36 +55,134 @@ public class DocParserFactory {
             throw new UncheckedIOException(e);
         }
 
-        var cachedDocParserHandler = new CachedDocHandler(outputPath, cachePath);
+        var parsedSources = parseSourceFiles(basicQllData.name(), input, findSourceFiles(input), options.parseThreads());
+        var documentedFiles = parsedSources.documentedFiles();
 
-        var documentedFiles = new ArrayList<DocumentedFile>();
+        // A library missing some of its files would replace its pages and cache with incomplete ones
+        if (!parsedSources.failures().isEmpty()) {
+            throw new UncheckedIOException(parsedSources.createException(basicQllData.name()));
+        }
 
-        try (var walk = Files.walk(input)) {
-            walk.forEach(file -> {
-                if (Files.isDirectory(file) || !file.getFileName().toString().endsWith(".ql")) return;
+        LOGGER.debug("Documented files:");
 
-                try {
-                    LOGGER.debug("Parsing file: {}", file.getFileName());
+        for (DocumentedFile documentedFile : documentedFiles) {
+            LOGGER.debug("{}:", documentedFile.fileName());
+            LOGGER.debug("{}\n", documentedFile);
+        }
 
-                    var parser = new DefaultDocumentationParser(basicQllData.name());
+        return DocParser.createInitializedParser(cachedDocParserHandler, basicQllData, outputPath, documentedFiles, options);
+    }
 
-                    var documentedFile = parser.parseDocsFromPath(file, input.relativize(file).toString().replace("\\", "/"));
-                    documentedFiles.add(documentedFile);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            });
+    /**
+     * Finds all .ql files in the given qilletni-src directory.
+     *
+     * @param input The qilletni-src directory
+     * @return All Qilletni source files in the directory
+     */
+    public static List<Path> findSourceFiles(Path input) {
+        try (var walk = Files.walk(input)) {
+            return walk.filter(file -> !Files.isDirectory(file) && file.getFileName().toString().endsWith(".ql"))
+                    .toList();
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            throw new UncheckedIOException(e);
         }
+    }
 
-        LOGGER.debug("Documented files:");
+    /**
+     * Parses the given source files, optionally across multiple threads. A file that fails to parse does not stop the
+     * other files from being parsed, and is reported in the returned {@link ParsedSources#failures()} instead.
+     *
+     * @param libraryName  The name of the library being parsed
+     * @param input        The qilletni-src directory the source files are in
+     * @param sourceFiles  The files to parse
+     * @param parseThreads The maximum number of files to parse at once
+     * @return The parsed files, sorted by import path, and any files that failed to parse
+     */
+    public static ParsedSources parseSourceFiles(String libraryName, Path input, List<Path> sourceFiles, int parseThreads) {
+        LOGGER.debug("Parsing {} files with {} thread(s)", sourceFiles.size(), parseThreads);
+        
+        var stageEvent = GenerationStageEvent.begin(libraryName, "parse");
 
-        for (DocumentedFile documentedFile : documentedFiles) {
-            LOGGER.debug("{}:", documentedFile.fileName());
-            LOGGER.debug("{}\n", documentedFile);
+        var results = ParallelTasks.runAll(sourceFiles, parseThreads, "docgen-parse", file -> {
+            LOGGER.debug("Parsing file: {}", file.getFileName());
+
+            var startNanos = System.nanoTime();
+            var parser = new DefaultDocumentationParser(libraryName);
+            var documentedFile = parser.parseDocsFromPath(file, getImportPath(input, file));
+            
+            DocgenMetrics.FILE_PARSE_SECONDS.recordSince(startNanos);
+            return documentedFile;
+        });
+
+        var documentedFiles = new ArrayList<DocumentedFile>(results.size());
+        var failures = new ArrayList<ParseFailure>();
+        
+        for (TaskResult<Path, DocumentedFile> result : results) {
+            if (result.isSuccess()) {
+                documentedFiles.add(result.value());
+            } else {
+                LOGGER.error("Failed to parse file: {}", result.input(), result.failure());
+                failures.add(new ParseFailure(result.input(), result.failure()));
+            }
+        }
+
+        // Sorted so the output does not depend on the file system's walk order, or the order the threads finished in
+        documentedFiles.sort(Comparator.comparing(documentedFile -> documentedFile.importPath().toString().replace("\\", "/")));
+        
+        DocgenMetrics.FILES_PARSED.add(documentedFiles.size());
+        DocgenMetrics.PARSE_FAILURES.add(failures.size());
+        stageEvent.end(sourceFiles.size(), stageEvent.isEnabled() ? getTotalSize(sourceFiles) : 0);
+        
+        return new ParsedSources(documentedFiles, failures);
+    }
+
+    private static long getTotalSize(List<Path> files) {
+        var totalSize = 0L;
+        for (var file : files) {
+            try {
+                totalSize += Files.size(file);
+            } catch (IOException e) {
+                // The file may have been removed since it was parsed, which the event can do without
+            }
         }
+        
+        return totalSize;
+    }
 
-        return DocParser.createInitializedParser(cachedDocParserHandler, basicQllData, outputPath, documentedFiles);
+    /**
+     * Gets the import path of a source file, which is its path relative to qilletni-src with forward slashes.
+     */
+    public static String getImportPath(Path input, Path file) {
+        return input.relativize(file).toString().replace("\\", "/");
     }
+
+    /**
+     * The result of parsing a set of source files.
+     *
+     * @param documentedFiles The successfully parsed files, sorted by import path
+     * @param failures        The files that could not be parsed
+     */
+    public record ParsedSources(List<DocumentedFile> documentedFiles, List<ParseFailure> failures) {
+
+        /**
+         * Creates an exception reporting every file that failed to parse.
+         *
+         * @param libraryName The name of the library being parsed
+         * @return The exception, with each failure attached as a suppressed exception
+         */
+        public IOException createException(String libraryName) {
+            var exception = new IOException("Failed to parse %d source file(s) for library %s".formatted(failures.size(), libraryName));
+            failures.forEach(failure -> exception.addSuppressed(failure.cause()));
+
+            return exception;
+        }
+    }
+
+    /**
+     * A source file that could not be parsed.
+     *
+     * @param file  The file that failed to parse
+     * @param cause The reason it failed
+     */
+    public record ParseFailure(Path file, Exception cause) {}
 }
@@ -0,0 +1,73 @@
+package dev.qilletni.docgen;
+
+/**
+ * Options that tune how a documentation generation run is performed. These never change the generated output, only
+ * how it is produced.
+ *
+ * @param parseThreads       The number of threads used to parse source files, shared by every library parsed at once.
+ *                           1 parses sequentially
+ * @param renderThreads      The maximum number of pages rendered at once, shared by every library rendered at once. 1
+ *                           renders sequentially
+ * @param incremental        If only the source files changed since the last run should be parsed, and only the pages
+ *                           they affect rendered
+ * @param libraryThreads     The maximum number of libraries of a batch parsed or rendered at once. 1 processes them
+ *                           sequentially
+ * @param compressionThreads The number of threads precompressing output files, if enabled
+ */
+public record GenerationOptions(int parseThreads, int renderThreads, boolean incremental, int libraryThreads, int compressionThreads) {
+
+    /**
+     * Creates the default options, which may be overridden by environment variables:
+     * <ul>
+     *     <li>{@code DOCGEN_PARSE_THREADS} - The number of parse threads, defaults to the available processors</li>
+     *     <li>{@code DOCGEN_RENDER_THREADS} - The number of render threads, defaults to the available processors</li>
+     *     <li>{@code DOCGEN_INCREMENTAL} - If incremental generation is enabled, defaults to false</li>
+     *     <li>{@code DOCGEN_LIBRARY_THREADS} - The number of libraries processed at once, defaults to half the
+     *     available processors, as the libraries share the parse and render threads</li>
+     *     <li>{@code DOCGEN_COMPRESSION_THREADS} - The number of compression threads, defaults to half the available
+     *     processors, as pages are compressed while others are still being rendered</li>
+     * </ul>
+     *
+     * @return The default options
+     */
+    public static GenerationOptions defaultOptions() {
+        var processors = Runtime.getRuntime().availableProcessors();
+        
+        return new GenerationOptions(getIntEnv("DOCGEN_PARSE_THREADS", processors), getIntEnv("DOCGEN_RENDER_THREADS", processors),
+                "true".equals(System.getenv("DOCGEN_INCREMENTAL")), getIntEnv("DOCGEN_LIBRARY_THREADS", Math.max(1, processors / 2)),
+                getIntEnv("DOCGEN_COMPRESSION_THREADS", Math.max(1, processors / 2)));
+    }
+
+    public GenerationOptions withParseThreads(int parseThreads) {
+        return new GenerationOptions(parseThreads, renderThreads, incremental, libraryThreads, compressionThreads);
+    }
+
+    public GenerationOptions withRenderThreads(int renderThreads) {
+        return new GenerationOptions(parseThreads, renderThreads, incremental, libraryThreads, compressionThreads);
+    }
+
+    public GenerationOptions withIncremental(boolean incremental) {
+        return new GenerationOptions(parseThreads, renderThreads, incremental, libraryThreads, compressionThreads);
+    }
+
+    public GenerationOptions withLibraryThreads(int libraryThreads) {
+        return new GenerationOptions(parseThreads, renderThreads, incremental, libraryThreads, compressionThreads);
+    }
+
+    public GenerationOptions withCompressionThreads(int compressionThreads) {
+        return new GenerationOptions(parseThreads, renderThreads, incremental, libraryThreads, compressionThreads);
+    }
+
+    private static int getIntEnv(String name, int defaultValue) {
+        var value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package dev.qilletni.docgen;
+
+import dev.qilletni.api.lang.docs.structure.DocumentedItem;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeFunction;
+import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
+import dev.qilletni.docgen.pages.dialects.utility.TypeUtility;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The dependencies between libraries created by {@code on} functions. A library that declares a function on an
+ * entity of another library contributes that function to the other library, which can only be rendered once all of
+ * its contributors are known. The target of a function is found from its {@code DocOnLine} type, or its
+ * {@link DocumentedTypeFunction#onOptional()} for native types, which are always in std.
+ * <br><br>
+ * Contributed functions are never passed on again, so contributions are not transitive, and cycles between libraries
+ * do not need to be broken.
+ */
+class LibraryDependencyGraph {
+
+    // The key is the target library, the value is the functions each contributor adds to it, in contributor order
+    private final Map<String, Map<String, List<DocumentedItem>>> contributions;
+
+    private LibraryDependencyGraph(Map<String, Map<String, List<DocumentedItem>>> contributions) {
+        this.contributions = contributions;
+    }
+
+    /**
+     * Creates the graph from the extension functions each library declares. Functions on the library's own entities
+     * are already added when the library itself is initialized, so they are not a dependency.
+     *
+     * @param onExtensionDocsByLibrary The extension functions of each contributing library, keyed by library name
+     * @return The created graph
+     */
+    static LibraryDependencyGraph create(Map<String, List<DocumentedItem>> onExtensionDocsByLibrary) {
+        var contributions = new LinkedHashMap<String, Map<String, List<DocumentedItem>>>();
+
+        onExtensionDocsByLibrary.forEach((contributor, onExtensionDocs) -> {
+            for (var docItem : onExtensionDocs) {
+                if (!(docItem instanceof DocumentedItem(DocumentedTypeFunction _, FunctionDoc _))) {
+                    continue;
+                }
+
+                var target = TypeUtility.getOnStatus(docItem).libraryName();
+                if (target.isEmpty() || target.equals(contributor)) {
+                    continue;
+                }
+
+                contributions.computeIfAbsent(target, _ -> new LinkedHashMap<>())
+                        .computeIfAbsent(contributor, _ -> new ArrayList<>())
+                        .add(docItem);
+            }
+        });
+
+        return new LibraryDependencyGraph(contributions);
+    }
+
+    /**
+     * @return Every library that is contributed to by another library
+     */
+    Set<String> getTargets() {
+        return Collections.unmodifiableSet(contributions.keySet());
+    }
+
+    /**
+     * @param target The library being contributed to
+     * @return The libraries contributing functions to the target
+     */
+    Set<String> getContributors(String target) {
+        return Collections.unmodifiableSet(contributions.getOrDefault(target, Map.of()).keySet());
+    }
+
+    /**
+     * @param target The library being contributed to
+     * @return All functions contributed to the target, grouped by contributor
+     */
+    List<DocumentedItem> getContributionsTo(String target) {
+        return contributions.getOrDefault(target, Map.of()).values().stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+}
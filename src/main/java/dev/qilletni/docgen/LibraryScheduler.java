@@ -0,0 +1,209 @@
+package dev.qilletni.docgen;
+
+import dev.qilletni.api.lang.docs.structure.DocumentedItem;
+import dev.qilletni.docgen.cache.CachedDocHandler;
+import dev.qilletni.docgen.concurrent.ParallelTasks;
+import dev.qilletni.docgen.incremental.IncrementalLibraryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates a set of libraries so that every library is rendered exactly once, after all libraries contributing
+ * extension functions to it are known. This happens in phases:
+ * <ol>
+ *     <li>Libraries that can be generated incrementally are, one at a time</li>
+ *     <li>All other libraries are parsed, up to {@link GenerationOptions#libraryThreads()} at once</li>
+ *     <li>A {@link LibraryDependencyGraph} is created from the extension functions of every library, and each target
+ *     library gets the functions of all its contributors. The functions of up to date libraries are found from the
+ *     extension indices of their caches, and targets outside the batch are read from the cache</li>
+ *     <li>All parsed libraries are rendered and cached, along with only the modified entity pages of cached targets,
+ *     up to {@link GenerationOptions#libraryThreads()} at once</li>
+ * </ol>
+ * If the output sink is not persistent, such as an archive, nothing is generated incrementally and cached targets are
+ * fully rendered, so the output contains every page of every generated library.
+ */
+class LibraryScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LibraryScheduler.class);
+
+    private final CachedDocHandler cachedDocHandler;
+    private final Path cachePath;
+    private final Path outputPath;
+    private final GenerationOptions options;
+
+    LibraryScheduler(CachedDocHandler cachedDocHandler, Path cachePath, Path outputPath, GenerationOptions options) {
+        this.cachedDocHandler = cachedDocHandler;
+        this.cachePath = cachePath;
+        this.outputPath = outputPath;
+        this.options = options;
+    }
+
+    /**
+     * Generates the given libraries. A library that fails to generate does not stop the others.
+     *
+     * @param librarySources The libraries to generate
+     * @throws IOException If any library failed to generate, with each failure attached as a suppressed exception
+     */
+    void generate(List<LibrarySource> librarySources) throws IOException {
+        // Output that is not kept between runs must contain every page, so nothing may be skipped
+        var persistentOutput = cachedDocHandler.getOutputSink().isPersistent();
+        
+        var failures = new ArrayList<Exception>();
+        var failedLibraries = new HashSet<String>();
+
+        var upToDateLibraries = new ArrayList<String>();
+        var parsingSources = new ArrayList<LibrarySource>();
+
+        for (var librarySource : librarySources) {
+            var basicQllData = librarySource.basicQllData();
+
+            if (options.incremental() && persistentOutput) {
+                try {
+                    LOGGER.info("Generating docs for library: {}", basicQllData.name());
+
+                    if (new IncrementalLibraryBuilder(cachedDocHandler, cachePath, outputPath, options).tryBuild(basicQllData, librarySource.inputPath())) {
+                        upToDateLibraries.add(basicQllData.name());
+                        continue;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.error("Failed to incrementally generate docs for library: {}", basicQllData.name(), e);
+                    failures.add(e);
+                    failedLibraries.add(basicQllData.name());
+                    continue;
+                }
+            }
+
+            parsingSources.add(librarySource);
+        }
+
+        var parseResults = ParallelTasks.runAll(parsingSources, options.libraryThreads(), "docgen-library", librarySource -> {
+            if (!options.incremental() || !persistentOutput) {
+                LOGGER.info("Generating docs for library: {}", librarySource.basicQllData().name());
+            }
+
+            return DocParserFactory.createDocParser(cachedDocHandler, librarySource.basicQllData(), librarySource.inputPath(), outputPath, cachePath, options);
+        });
+
+        // Keyed by library name, in batch order. Only parsed libraries have an input path, cached targets do not
+        var renderingLibraries = new LinkedHashMap<String, RenderingLibrary>();
+        var onExtensionDocsByLibrary = new LinkedHashMap<String, List<DocumentedItem>>();
+
+        for (var parseResult : parseResults) {
+            var libraryName = parseResult.input().basicQllData().name();
+
+            if (parseResult.isSuccess()) {
+                renderingLibraries.put(libraryName, new RenderingLibrary(parseResult.value(), parseResult.input().inputPath(), new HashSet<>()));
+                onExtensionDocsByLibrary.put(libraryName, parseResult.value().getOnExtensionDocs());
+            } else {
+                LOGGER.error("Failed to parse library: {}", libraryName, parseResult.failure());
+                failures.add(parseResult.failure());
+                failedLibraries.add(libraryName);
+            }
+        }
+
+        // Libraries that were up to date still contribute their functions to any library being fully generated. Only
+        // their extension functions are read from their caches, in the order their parsers would have them in
+        for (var libraryName : upToDateLibraries) {
+            cachedDocHandler.getCachedOnExtensionDocs(libraryName)
+                    .ifPresent(onExtensionDocs -> onExtensionDocsByLibrary.put(libraryName, onExtensionDocs.stream().sorted(DocParser.ON_EXTENSION_DOC_ORDER).toList()));
+        }
+
+        var dependencyGraph = LibraryDependencyGraph.create(onExtensionDocsByLibrary);
+
+        for (var target : dependencyGraph.getTargets()) {
+            if (failedLibraries.contains(target)) {
+                continue;
+            }
+
+            if (!renderingLibraries.containsKey(target)) {
+                // Up to date libraries already added their functions to cached targets when they were last generated
+                if (dependencyGraph.getContributors(target).stream().noneMatch(renderingLibraries::containsKey)) {
+                    continue;
+                }
+                
+                var docParserOptional = cachedDocHandler.getCachedLibrayDocParser(target);
+                if (docParserOptional.isEmpty()) {
+                    LOGGER.debug("Skipping adding functions for library {} as it has no cache file", target);
+                    continue;
+                }
+
+                renderingLibraries.put(target, new RenderingLibrary(docParserOptional.get(), null, new HashSet<>()));
+            }
+
+            LOGGER.debug("Adding functions to library {} from {}", target, dependencyGraph.getContributors(target));
+            
+            var renderingLibrary = renderingLibraries.get(target);
+            renderingLibrary.modifiedEntities().addAll(renderingLibrary.docParser().addExtendedFunctions(dependencyGraph.getContributionsTo(target)));
+        }
+
+        var renderResults = ParallelTasks.runAll(renderingLibraries.values(), options.libraryThreads(), "docgen-library", renderingLibrary -> {
+            renderLibrary(renderingLibrary, persistentOutput);
+            return null;
+        });
+
+        for (var renderResult : renderResults) {
+            if (!renderResult.isSuccess()) {
+                LOGGER.error("Failed to render library: {}", renderResult.input().docParser().getLibraryName(), renderResult.failure());
+                failures.add(renderResult.failure());
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            var exception = new IOException("%d failure(s) while generating docs for %d libraries".formatted(failures.size(), librarySources.size()));
+            failures.forEach(exception::addSuppressed);
+
+            throw exception;
+        }
+    }
+
+    private void renderLibrary(RenderingLibrary renderingLibrary, boolean persistentOutput) throws IOException {
+        var docParser = renderingLibrary.docParser();
+        
+        if (!renderingLibrary.isParsed() && persistentOutput) {
+            // Only entity pages show functions from other libraries, so nothing else of a cached library changed
+            LOGGER.debug("Updating {} entity page(s) of library {}", renderingLibrary.modifiedEntities().size(), docParser.getLibraryName());
+            
+            if (!renderingLibrary.modifiedEntities().isEmpty()) {
+                docParser.createEntityPages(renderingLibrary.modifiedEntities());
+                docParser.writeToCache();
+            }
+            
+            return;
+        }
+
+        docParser.createLibraryIndexPage();
+        docParser.createLibraryFilesPage();
+        docParser.createEntityPages();
+        docParser.createSourceFilePages();
+        docParser.writeToCache();
+        docParser.createSearchIndex();
+        
+        // A manifest would mark the pages of the library as up to date, though they were not written to the output
+        // directory of the next run
+        if (renderingLibrary.isParsed() && persistentOutput) {
+            IncrementalLibraryBuilder.writeManifest(cachePath, renderingLibrary.inputPath(), docParser);
+        }
+    }
+
+    /**
+     * A library to render.
+     *
+     * @param docParser        The parser of the library, with all contributed functions added
+     * @param inputPath        The qilletni-src directory of the library if it was parsed from its sources, or null if it
+     *                         was read from the cache
+     * @param modifiedEntities The entities contributed functions were added to
+     */
+    private record RenderingLibrary(DocParser docParser, Path inputPath, Set<String> modifiedEntities) {
+        private boolean isParsed() {
+            return inputPath != null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package dev.qilletni.docgen;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import dev.qilletni.api.lib.qll.QilletniInfoData;
+import dev.qilletni.docgen.cache.BasicQllData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A library to generate documentation for in a batch.
+ *
+ * @param inputPath    The qilletni-src directory of the library
+ * @param basicQllData The info of the library
+ */
+public record LibrarySource(Path inputPath, BasicQllData basicQllData) {
+
+    public LibrarySource(Path inputPath, QilletniInfoData libraryQll) {
+        this(inputPath, new BasicQllData(libraryQll));
+    }
+
+    /**
+     * Reads a batch manifest, which is a JSON array of libraries in the order they should be generated:
+     * <pre>{@code
+     * [
+     *   {
+     *     "sourcePath": "std/qilletni-src",
+     *     "name": "std",
+     *     "version": "1.0.0",
+     *     "author": "RubbaBoy",
+     *     "description": "The Qilletni standard library",
+     *     "sourceUrl": "https://github.com/Qilletni/Qilletni"
+     *   }
+     * ]
+     * }</pre>
+     * Relative source paths are resolved against the directory of the manifest.
+     *
+     * @param manifestPath The path of the manifest
+     * @return The libraries in the manifest, in order
+     */
+    public static List<LibrarySource> readManifest(Path manifestPath) throws IOException {
+        var baseDirectory = manifestPath.toAbsolutePath().getParent();
+        var librarySources = new ArrayList<LibrarySource>();
+
+        try {
+            for (var libraryElement : JsonParser.parseString(Files.readString(manifestPath)).getAsJsonArray()) {
+                var libraryObject = libraryElement.getAsJsonObject();
+                
+                var basicQllData = new BasicQllData(getString(libraryObject, "name"), getString(libraryObject, "version"), getString(libraryObject, "author"),
+                        getString(libraryObject, "description"), getString(libraryObject, "sourceUrl"));
+                
+                librarySources.add(new LibrarySource(baseDirectory.resolve(getString(libraryObject, "sourcePath")), basicQllData));
+            }
+        } catch (RuntimeException e) { // Gson reports malformed or missing members as various runtime exceptions
+            throw new IOException("Invalid batch manifest %s: %s".formatted(manifestPath, e.getMessage()), e);
+        }
+        
+        return librarySources;
+    }
+    
+    private static String getString(JsonObject libraryObject, String memberName) {
+        var member = libraryObject.get(memberName);
+        if (member == null || member.isJsonNull()) {
+            throw new IllegalArgumentException("Missing \"%s\"".formatted(memberName));
+        }
+        
+        return member.getAsString();
+    }
+}
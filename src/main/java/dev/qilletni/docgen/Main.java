@@ -0,0 +1,228 @@
+package dev.qilletni.docgen;
+
+import dev.qilletni.docgen.metrics.DocgenMetrics;
+import dev.qilletni.docgen.metrics.JsonMetricsExporter;
+import dev.qilletni.docgen.metrics.MetricsRegistry;
+import dev.qilletni.docgen.metrics.PrometheusTextExporter;
+import dev.qilletni.docgen.output.FileSystemOutputSink;
+import dev.qilletni.docgen.output.OutputFiles;
+import dev.qilletni.docgen.output.GzipOutputSink;
+import dev.qilletni.docgen.output.InMemoryOutputSink;
+import dev.qilletni.docgen.output.OutputSink;
+import dev.qilletni.docgen.output.StagedOutput;
+import dev.qilletni.docgen.output.TarOutputSink;
+import dev.qilletni.docgen.output.ZipOutputSink;
+import dev.qilletni.docgen.preview.PreviewServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generates documentation for every library in a batch manifest in a single run. See
+ * {@link LibrarySource#readManifest(Path)} for the manifest format.
+ * <br><br>
+ * Usage: {@code <manifest.json> <cache dir> <output dir or archive> [--incremental] [--watch] [--serve] [--gzip] [--staged]}
+ * <br><br>
+ * If the output ends in {@code .zip}, {@code .tar}, {@code .tar.gz} or {@code .tgz}, the generated docs are streamed
+ * into a single archive of that type instead of a directory. Archives always contain every page of the generated
+ * libraries, so they can only be combined with {@code --gzip}.
+ * <ul>
+ *     <li>{@code --incremental} - Only parse changed source files, and render the pages they affect</li>
+ *     <li>{@code --watch} - Keep running, and incrementally regenerate libraries whenever their sources change</li>
+ *     <li>{@code --serve} - Watch, and serve the docs on the port in {@code DOCGEN_PREVIEW_PORT} (8080 by default),
+ *     reloading open pages after every change</li>
+ *     <li>{@code --gzip} - Write a precompressed {@code .gz} sibling of every large text file, for nginx's
+ *     {@code gzip_static}</li>
+ *     <li>{@code --staged} - Generate into a new generation beside the output, then atomically make the output a link
+ *     to it. Old generations are deleted after {@code DOCGEN_GENERATION_GRACE_MINUTES} (10 by default). See
+ *     {@link StagedOutput}. Can only be combined with {@code --gzip}</li>
+ * </ul>
+ * If {@code DOCGEN_METRICS_DIR} is set, the metrics of the run are exported to it once the run ends, whether or not it
+ * succeeded. See {@link DocgenMetrics} for what is recorded.
+ */
+public class Main {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
+    
+    private static final List<String> FLAGS = List.of("--incremental", "--watch", "--serve", "--gzip", "--staged");
+    // Flags that rely on the output persisting between runs
+    private static final List<String> DIRECTORY_FLAGS = List.of("--incremental", "--watch", "--serve", "--staged");
+    // Flags that write to the live output, or mark pages as generated before a staged generation is published
+    private static final List<String> LIVE_FLAGS = List.of("--incremental", "--watch", "--serve");
+    private static final List<String> ARCHIVE_EXTENSIONS = List.of(".zip", ".tar", ".tar.gz", ".tgz");
+    private static final int DEFAULT_PREVIEW_PORT = 8080;
+
+    public static void main(String[] args) {
+        var flags = Arrays.asList(args).subList(Math.min(3, args.length), args.length);
+        
+        if (args.length < 3 || !FLAGS.containsAll(flags)) {
+            System.err.println("Usage: <manifest.json> <cache dir> <output dir or archive> [--incremental] [--watch] [--serve] [--gzip] [--staged]");
+            System.exit(1);
+            return;
+        }
+        
+        var outputPath = Path.of(args[2]);
+        if (isArchive(outputPath) && flags.stream().anyMatch(DIRECTORY_FLAGS::contains)) {
+            System.err.println("Only --gzip can be used when generating an archive");
+            System.exit(1);
+            return;
+        }
+        
+        if (flags.contains("--staged") && flags.stream().anyMatch(LIVE_FLAGS::contains)) {
+            System.err.println("Only --gzip can be used with --staged");
+            System.exit(1);
+            return;
+        }
+        
+        var options = GenerationOptions.defaultOptions();
+        if (flags.contains("--incremental")) {
+            options = options.withIncremental(true);
+        }
+        
+        var startNanos = System.nanoTime();
+        var startStatistics = OutputFiles.getStatistics();
+        var successful = false;
+
+        try {
+            generate(Path.of(args[0]), Path.of(args[1]), outputPath, flags, options);
+            successful = true;
+        } catch (IOException e) {
+            LOGGER.error("Failed to generate docs", e);
+        } catch (InterruptedException e) {
+            LOGGER.info("Stopped watching for changes");
+            successful = true;
+        } finally {
+            exportMetrics(startNanos, OutputFiles.getStatistics().since(startStatistics), successful);
+        }
+        
+        if (!successful) {
+            System.exit(1);
+        }
+    }
+    
+    private static void generate(Path manifestPath, Path cachePath, Path outputPath, List<String> flags, GenerationOptions options) throws IOException, InterruptedException {
+        var librarySources = LibrarySource.readManifest(manifestPath);
+        DocgenMetrics.LIBRARIES.set(librarySources.size());
+        
+        if (flags.contains("--serve")) {
+            try (var outputSink = new InMemoryOutputSink(outputPath, createOutputSink(outputPath, flags, options));
+                 var previewServer = new PreviewServer(outputPath, outputSink, getPreviewPort())) {
+                previewServer.start();
+                new DocGenerator(cachePath, outputPath, outputSink, options).watchDocs(librarySources, previewServer::notifyReload);
+            }
+            
+            return;
+        }
+        
+        if (flags.contains("--staged")) {
+            generateStaged(librarySources, cachePath, outputPath, flags, options);
+            return;
+        }
+        
+        try (var outputSink = createOutputSink(outputPath, flags, options)) {
+            var docGenerator = new DocGenerator(cachePath, outputPath, outputSink, options);
+            
+            if (flags.contains("--watch")) {
+                docGenerator.watchDocs(librarySources);
+                return;
+            }
+            
+            docGenerator.generateDocs(librarySources);
+        }
+        
+        LOGGER.info("Generated docs for {} libraries", librarySources.size());
+    }
+    
+    private static void generateStaged(List<LibrarySource> librarySources, Path cachePath, Path outputPath, List<String> flags, GenerationOptions options) throws IOException {
+        var stagedOutput = StagedOutput.stage(outputPath);
+        
+        try (var outputSink = createOutputSink(outputPath, flags, options)) {
+            new DocGenerator(cachePath, stagedOutput.getStagingPath(), outputSink, options).generateDocs(librarySources);
+        } catch (IOException | RuntimeException e) {
+            // Publishing only complete generations keeps what is live consistent
+            stagedOutput.discard();
+            throw e;
+        }
+        
+        stagedOutput.publish();
+        stagedOutput.collectGarbage(getGracePeriod());
+        
+        LOGGER.info("Generated docs for {} libraries", librarySources.size());
+    }
+    
+    private static boolean isArchive(Path outputPath) {
+        var fileName = outputPath.getFileName().toString();
+        return ARCHIVE_EXTENSIONS.stream().anyMatch(fileName::endsWith);
+    }
+    
+    private static OutputSink createOutputSink(Path outputPath, List<String> flags, GenerationOptions options) throws IOException {
+        OutputSink outputSink;
+        
+        if (flags.contains("--staged")) {
+            // Files of a staged generation are hard links to the live generation, so they must never be written in place
+            outputSink = new FileSystemOutputSink(true);
+        } else if (!isArchive(outputPath)) {
+            outputSink = new FileSystemOutputSink();
+        } else if (outputPath.getFileName().toString().endsWith(".zip")) {
+            outputSink = new ZipOutputSink(outputPath, outputPath);
+        } else {
+            outputSink = new TarOutputSink(outputPath, outputPath);
+        }
+        
+        if (flags.contains("--gzip")) {
+            return new GzipOutputSink(outputSink, options.compressionThreads());
+        }
+        
+        return outputSink;
+    }
+    
+    private static Duration getGracePeriod() {
+        var minutes = System.getenv("DOCGEN_GENERATION_GRACE_MINUTES");
+        
+        try {
+            return minutes == null ? StagedOutput.DEFAULT_GRACE_PERIOD : Duration.ofMinutes(Long.parseLong(minutes.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid DOCGEN_GENERATION_GRACE_MINUTES {}, using {}", minutes, StagedOutput.DEFAULT_GRACE_PERIOD);
+            return StagedOutput.DEFAULT_GRACE_PERIOD;
+        }
+    }
+    
+    /**
+     * Exports the metrics of the run to the directory in {@code DOCGEN_METRICS_DIR}, if it is set. The directory gets
+     * a {@code docgen.prom} file for node_exporter's textfile collector, and a {@code docgen-metrics.json} file.
+     */
+    private static void exportMetrics(long startNanos, OutputFiles.WriteStatistics writeStatistics, boolean successful) {
+        var metricsDirectory = System.getenv("DOCGEN_METRICS_DIR");
+        if (metricsDirectory == null || metricsDirectory.isBlank()) {
+            return;
+        }
+        
+        DocgenMetrics.recordRun(startNanos, writeStatistics, successful);
+        
+        try {
+            var metricsPath = Path.of(metricsDirectory.trim());
+            PrometheusTextExporter.export(MetricsRegistry.global(), metricsPath.resolve("docgen.prom"));
+            JsonMetricsExporter.export(MetricsRegistry.global(), metricsPath.resolve("docgen-metrics.json"));
+            
+            LOGGER.info("Exported metrics to {}", metricsPath);
+        } catch (IOException e) {
+            LOGGER.error("Failed to export metrics", e);
+        }
+    }
+    
+    private static int getPreviewPort() {
+        var port = System.getenv("DOCGEN_PREVIEW_PORT");
+        
+        try {
+            return port == null ? DEFAULT_PREVIEW_PORT : Integer.parseInt(port.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid DOCGEN_PREVIEW_PORT {}, using {}", port, DEFAULT_PREVIEW_PORT);
+            return DEFAULT_PREVIEW_PORT;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package dev.qilletni.docgen;
+
+import dev.qilletni.api.lang.docs.structure.DocFieldType;
+import dev.qilletni.api.lang.docs.structure.DocumentedFile;
+import dev.qilletni.api.lang.docs.structure.DocumentedItem;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeEntity;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeEntityConstructor;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeField;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeFunction;
+import dev.qilletni.api.lang.docs.structure.text.DocDescription;
+import dev.qilletni.api.lang.docs.structure.text.DocErrors;
+import dev.qilletni.api.lang.docs.structure.text.DocOnLine;
+import dev.qilletni.api.lang.docs.structure.text.ParamDoc;
+import dev.qilletni.api.lang.docs.structure.text.ReturnDoc;
+import dev.qilletni.api.lang.docs.structure.text.inner.ConstructorDoc;
+import dev.qilletni.api.lang.docs.structure.text.inner.EntityDoc;
+import dev.qilletni.api.lang.docs.structure.text.inner.FieldDoc;
+import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
+import dev.qilletni.docgen.cache.BasicQllData;
+import dev.qilletni.docgen.cache.CachedDocHandler;
+import dev.qilletni.docgen.output.InMemoryOutputSink;
+import dev.qilletni.docgen.pages.GlobalIndexPageGenerator;
+import dev.qilletni.docgen.pages.TemplateEngineProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.thymeleaf.context.Context;
+
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pre-parses every page template (and through them, every fragment) into the shared template engine's cache before
+ * any real page is rendered. Thymeleaf caches a fragment per including template, so the only reliable way to fill
+ * the cache with the same entries real pages use is to render every page once, which is done here with a small
+ * synthetic library that touches every branch of the templates. The output is discarded.
+ */
+class TemplateWarmup {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TemplateWarmup.class);
+    
+    private static final String WARMUP_LIBRARY = "docgen-warmup";
+    private static final String WARMUP_FILE = "warmup.ql";
+    
+    private static final AtomicBoolean WARMED_UP = new AtomicBoolean();
+
+    /**
+     * Renders every page template once, if it has not been done yet in this JVM. A failure here is only logged, as the
+     * templates will simply be parsed on first real use instead.
+     */
+    static void warmUp() {
+        if (!WARMED_UP.compareAndSet(false, true)) {
+            return;
+        }
+
+        var startTime = System.nanoTime();
+
+        try {
+            var basicQllData = new BasicQllData(WARMUP_LIBRARY, "1.0.0", "docgen", "Template warmup", "https://example.com/");
+            // Nothing is written, the handler only gives the parser somewhere to write to
+            var cachedDocHandler = new CachedDocHandler(Path.of(""), new InMemoryOutputSink(Path.of("")), Path.of(""), GenerationOptions.defaultOptions());
+            var docParser = DocParser.createInitializedParser(cachedDocHandler, basicQllData, Path.of(""), List.of(createWarmupFile()));
+
+            var templateEngine = TemplateEngineProvider.getTemplateEngine();
+            var writer = Writer.nullWriter();
+            
+            templateEngine.process(DocParser.LIBRARY_TEMPLATE, docParser.createLibraryIndexContext(), writer);
+            templateEngine.process(DocParser.FILE_TREE_TEMPLATE, docParser.createLibraryFilesContext(), writer);
+            
+            for (var documentedFile : docParser.getDocumentedFiles()) {
+                templateEngine.process(DocParser.FILE_TEMPLATE, docParser.createSourceFileContext(documentedFile), writer);
+                
+                for (var documentedItem : documentedFile.documentedItems()) {
+                    if (documentedItem.innerDoc() instanceof EntityDoc) {
+                        templateEngine.process(DocParser.ENTITY_TEMPLATE, docParser.createEntityContext(documentedItem), writer);
+                    }
+                }
+            }
+
+            templateEngine.process(GlobalIndexPageGenerator.INDEX_TEMPLATE, GlobalIndexPageGenerator.createIndexContext(List.of(basicQllData)), writer);
+
+            LOGGER.debug("Warmed up templates in {}ms", (System.nanoTime() - startTime) / 1_000_000);
+        } catch (Exception e) {
+            LOGGER.warn("Failed to warm up templates, they will be parsed on first use instead", e);
+        }
+    }
+
+    private static DocumentedFile createWarmupFile() {
+        var description = createDescription("A *warmup* description referencing [the docs](https://example.com).");
+        var fieldType = new DocFieldType(DocFieldType.FieldType.QILLETNI, "string");
+        var paramDocs = List.of(new ParamDoc("param", fieldType, createDescription("A parameter")));
+
+        var constructor = new DocumentedItem(new DocumentedTypeEntityConstructor(WARMUP_LIBRARY, WARMUP_FILE, "Warmup", List.of("param")),
+                new ConstructorDoc(description, paramDocs));
+        var entityField = new DocumentedItem(new DocumentedTypeField(WARMUP_LIBRARY, WARMUP_FILE, "string", "field"),
+                new FieldDoc(description, fieldType));
+        var entityFunction = createFunction("entityFunction", Optional.empty(), null);
+        
+        var entity = new DocumentedItem(new DocumentedTypeEntity(WARMUP_LIBRARY, WARMUP_FILE, "Warmup"),
+                new EntityDoc(description, new ArrayList<>(List.of(constructor, entityField, entityFunction)), new ArrayList<>()));
+
+        var globalField = new DocumentedItem(new DocumentedTypeField(WARMUP_LIBRARY, WARMUP_FILE, "string", "globalField"),
+                new FieldDoc(description, fieldType));
+        var globalFunction = createFunction("globalFunction", Optional.empty(), null);
+        var extensionFunction = createFunction("extensionFunction", Optional.of("Warmup"),
+                new DocOnLine(new DocFieldType(DocFieldType.FieldType.QILLETNI, "%s.Warmup".formatted(WARMUP_LIBRARY)), description));
+
+        return new DocumentedFile(WARMUP_FILE, Path.of(WARMUP_FILE), List.of(entity, globalField, globalFunction, extensionFunction));
+    }
+    
+    private static DocumentedItem createFunction(String name, Optional<String> onType, DocOnLine docOnLine) {
+        var description = createDescription("Does something with `param`.");
+        var paramDocs = List.of(new ParamDoc("param", new DocFieldType(DocFieldType.FieldType.JAVA, "java.lang.String"), description));
+        var returnDoc = new ReturnDoc(new DocFieldType(DocFieldType.FieldType.QILLETNI, "int"), description);
+
+        return new DocumentedItem(new DocumentedTypeFunction(WARMUP_LIBRARY, WARMUP_FILE, name, List.of("param"), false, false, onType),
+                new FunctionDoc(description, paramDocs, returnDoc, docOnLine, new DocErrors(description)));
+    }
+    
+    private static DocDescription createDescription(String text) {
+        return new DocDescription(List.of(new DocDescription.DocText(text), new DocDescription.ParamRef("param"), new DocDescription.TypeRef("int")));
+    }
+}
@@ -4,34 +4,78 @@ import dev.qilletni.api.lang.docs.structure.DocumentedItem;
 import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeFunction;
 import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
 import dev.qilletni.docgen.DocParser;
+import dev.qilletni.docgen.GenerationOptions;
 import dev.qilletni.docgen.cache.serializer.DocumentationDeserializer;
+import dev.qilletni.docgen.cache.serializer.DocumentationDeserializer.SerializedLibrary;
 import dev.qilletni.docgen.cache.serializer.DocumentationSerializer;
+import dev.qilletni.docgen.cache.serializer.ExtensionIndex;
+import dev.qilletni.docgen.cache.serializer.SerializationUtility;
+import dev.qilletni.docgen.concurrent.ParallelTasks;
+import dev.qilletni.docgen.events.CacheAccessEvent;
+import dev.qilletni.docgen.metrics.DocgenMetrics;
+import dev.qilletni.docgen.output.FileSystemOutputSink;
+import dev.qilletni.docgen.output.OutputSink;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CachedDocHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CachedDocHandler.class);
 
     private final Path outputPath;
+    private final OutputSink outputSink;
     private final Path cachePath;
-    // The key is the entity name, the value is a list of functions that reference the entity
-    private final Map<String, List<ReferencedOnFunction>> entityFunctionReferences; 
+    private final GenerationOptions options;
+    // The extension functions of every cache, keyed by cache file. Sorted by the name of the cache, so the functions
+    // of each entity are in the same order however each cache's functions were found
+    private final SortedMap<Path, CacheOnFunctions> cacheOnFunctions;
+    // Libraries already read from or written to the cache by this handler, keyed by library name
+    private final Map<String, SerializedLibrary> loadedLibraries;
+    // Held while a library is loaded from or written to its cache, so it is only deserialized and migrated once
+    private final Map<String, Object> libraryLocks;
     
     public CachedDocHandler(Path outputPath, Path cachePath) {
+        this(outputPath, cachePath, GenerationOptions.defaultOptions());
+    }
+
+    public CachedDocHandler(Path outputPath, Path cachePath, GenerationOptions options) {
+        this(outputPath, new FileSystemOutputSink(), cachePath, options);
+    }
+
+    /**
+     * @param outputPath The output directory pages of libraries are written to
+     * @param outputSink The sink pages of libraries are written to
+     * @param cachePath  The directory containing documentation cache
+     * @param options    The options to tune the generation with
+     */
+    public CachedDocHandler(Path outputPath, OutputSink outputSink, Path cachePath, GenerationOptions options) {
         this.outputPath = outputPath;
+        this.outputSink = outputSink;
         this.cachePath = cachePath;
-        this.entityFunctionReferences = new HashMap<>();
+        this.options = options;
+        this.cacheOnFunctions = new TreeMap<>();
+        this.loadedLibraries = new ConcurrentHashMap<>();
+        this.libraryLocks = new ConcurrentHashMap<>();
+    }
+
+    public OutputSink getOutputSink() {
+        return outputSink;
     }
 
     private static void silentlyDeleteIfExists(Path path) {
@@ -42,6 +86,7 @@ public class CachedDocHandler {
 
     public Optional<DocParser> getCachedLibrayDocParser(String libraryName) {
         var libraryCacheOptional = getLibraryCache(libraryName);
+        DocgenMetrics.recordCacheLookup(libraryCacheOptional.isPresent());
 
         if (libraryCacheOptional.isEmpty()) {
             return Optional.empty();
@@ -62,68 +107,430 @@ public class CachedDocHandler {
         }
     }
     
-    private Optional<DocParser> readDocParserFromCache(Path libraryCachePath) throws Exception {
-        try (var documentationDeserializer = new DocumentationDeserializer(Files.newInputStream(libraryCachePath))) {
-            var deserializedLibrary = documentationDeserializer.deserializeLibrary();
-
-            return Optional.of(DocParser.createInitializedParser(this, deserializedLibrary.basicQllData(), outputPath, deserializedLibrary.documentedFiles()));
+    /**
+     * Reads a library's cache without creating a {@link DocParser} for it. The library's files are only deserialized
+     * once they are first used, so reading only some of them costs less than reading the whole library.
+     *
+     * @param libraryName The name of the library to read
+     * @return The deserialized library, or empty if it has no cache or the cache could not be read
+     */
+    public Optional<SerializedLibrary> readLibrary(String libraryName) {
+        var libraryCacheOptional = getLibraryCache(libraryName);
+        DocgenMetrics.recordCacheLookup(libraryCacheOptional.isPresent());
+        
+        return libraryCacheOptional.flatMap(cache -> {
+            try {
+                return Optional.of(loadLibrary(libraryName, cache, true));
+            } catch (Exception e) {
+                LOGGER.warn("Failed to read cache file: {}", cache.getFileName(), e);
+                return Optional.empty();
+            }
+        });
+    }
+    
+    /**
+     * Gets a library from the libraries already loaded by this handler, or deserializes it from its cache file. The
+     * returned library is shared by every parser this handler creates for it. Concurrent loads of the same library wait
+     * for the first one, rather than each deserializing and migrating its cache.
+     *
+     * @param lazy If the library's files should only be deserialized once they are first used, which only pays off if
+     *             some are never used. Otherwise, the whole library is deserialized at once from the mapped cache file
+     */
+    private SerializedLibrary loadLibrary(String libraryName, Path libraryCachePath, boolean lazy) throws Exception {
+        synchronized (getLibraryLock(libraryName)) {
+            var loadedLibrary = loadedLibraries.get(libraryName);
+            if (loadedLibrary != null) {
+                return loadedLibrary;
+            }
+            
+            var deserializedLibrary = deserializeLibrary(libraryName, libraryCachePath, lazy);
+            loadedLibraries.put(libraryName, deserializedLibrary);
+            
+            return deserializedLibrary;
         }
     }
+    
+    private Object getLibraryLock(String libraryName) {
+        return libraryLocks.computeIfAbsent(libraryName, name -> new Object());
+    }
+    
+    /**
+     * Deserializes a library from its cache file, migrating the cache to the current format if it is in an older one.
+     */
+    private SerializedLibrary deserializeLibrary(String libraryName, Path libraryCachePath, boolean lazy) throws Exception {
+        var event = new CacheAccessEvent();
+        event.begin();
+        
+        SerializedLibrary deserializedLibrary;
+        int formatVersion;
+        
+        if (lazy) {
+            // The cache is read into memory rather than mapped, as the library's files are read from it after this
+            // returns, possibly by other threads, and the file may be rewritten while they are
+            var documentationDeserializer = DocumentationDeserializer.read(libraryCachePath);
+            deserializedLibrary = documentationDeserializer.deserializeLazyLibrary();
+            formatVersion = documentationDeserializer.getFormatVersion();
+        } else {
+            try (var documentationDeserializer = DocumentationDeserializer.map(libraryCachePath)) {
+                deserializedLibrary = documentationDeserializer.deserializeLibrary();
+                formatVersion = documentationDeserializer.getFormatVersion();
+            }
+        }
+        
+        var cacheSize = Files.size(libraryCachePath);
+        DocgenMetrics.CACHE_READ_BYTES.add(cacheSize);
+        
+        if (event.shouldCommit()) {
+            event.libraryName = libraryName;
+            event.fileCount = deserializedLibrary.documentedFiles().size();
+            event.byteCount = cacheSize;
+            event.commit();
+        }
+        
+        if (formatVersion < SerializationUtility.CURRENT_FORMAT_VERSION) {
+            migrateLibraryCache(libraryCachePath, formatVersion, deserializedLibrary);
+        }
+        
+        return deserializedLibrary;
+    }
+    
+    /**
+     * Rewrites a cache from an older format in the current one, so later reads of it have an offset table to load single
+     * files from and an extension index. A cache that fails to be rewritten is left as it was, as it can still be read.
+     */
+    private void migrateLibraryCache(Path libraryCachePath, int formatVersion, SerializedLibrary serializedLibrary) {
+        LOGGER.info("Migrating cache file {} from format version {} to {}", libraryCachePath.getFileName(), formatVersion, SerializationUtility.CURRENT_FORMAT_VERSION);
+        
+        var migratedCachePath = libraryCachePath.resolveSibling(libraryCachePath.getFileName() + ".tmp");
+        
+        try {
+            try (var outputStream = Files.newOutputStream(migratedCachePath);
+                 var documentationSerializer = new DocumentationSerializer(outputStream)) {
+                documentationSerializer.serializeLibrary(serializedLibrary.basicQllData(), serializedLibrary.documentedFiles());
+                writeExtensionIndex(libraryCachePath, documentationSerializer);
+            }
+            
+            Files.move(migratedCachePath, libraryCachePath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            LOGGER.warn("Failed to migrate cache file: {}", libraryCachePath.getFileName(), e);
+            silentlyDeleteIfExists(migratedCachePath);
+        }
+    }
+    
+    private Optional<DocParser> readDocParserFromCache(Path libraryCachePath) throws Exception {
+        // A parser uses every file of its library, so nothing would be gained from reading them lazily
+        return Optional.of(createDocParser(loadLibrary(getLibraryName(libraryCachePath), libraryCachePath, false)));
+    }
+    
+    private static String getLibraryName(Path libraryCachePath) {
+        return libraryCachePath.getFileName().toString().replaceFirst("\\.cache$", "");
+    }
+    
+    private DocParser createDocParser(SerializedLibrary serializedLibrary) {
+        return DocParser.createInitializedParser(this, serializedLibrary.basicQllData(), outputPath, serializedLibrary.documentedFiles(), options);
+    }
 
     public void writeLibraryCache(DocParser docParser) {
-        writeLibraryCache(docParser, cachePath.resolve(docParser.getLibraryName() + ".cache"));
+        synchronized (getLibraryLock(docParser.getLibraryName())) {
+            writeLibraryCache(docParser, cachePath.resolve(docParser.getLibraryName() + ".cache"));
+            loadedLibraries.put(docParser.getLibraryName(), new SerializedLibrary(docParser.getBasicQll(), docParser.getDocumentedFiles()));
+        }
     }
 
     public void writeLibraryCache(DocParser docParser, Path cacheDestinationFile) {
         var libraryCacheOptional = getLibraryCache(docParser.getLibraryName());
         libraryCacheOptional.ifPresent(CachedDocHandler::silentlyDeleteIfExists);
 
+        var event = new CacheAccessEvent();
+        event.begin();
+
         try (var outputStream = Files.newOutputStream(cacheDestinationFile);
              var documentationSerializer = new DocumentationSerializer(outputStream)) {
             documentationSerializer.serializeLibrary(docParser.getBasicQll(), docParser.getDocumentedFiles());
+            writeExtensionIndex(cacheDestinationFile, documentationSerializer);
 
             LOGGER.debug("Wrote {} bytes to cache file: {}", documentationSerializer.getTotalWrittenBytes(), cacheDestinationFile.getFileName());
+            DocgenMetrics.CACHE_WRITTEN_BYTES.add(documentationSerializer.getTotalWrittenBytes());
+            
+            if (event.shouldCommit()) {
+                event.libraryName = docParser.getLibraryName();
+                event.write = true;
+                event.fileCount = docParser.getDocumentedFiles().size();
+                event.byteCount = documentationSerializer.getTotalWrittenBytes();
+                event.commit();
+            }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    public void initializeCache() {
+    /**
+     * Writes the extension index of a cache a serializer just wrote, so {@link #initializeCache()} and
+     * {@link #getCachedOnExtensionDocs(String)} can find the cache's extension functions without deserializing it.
+     */
+    private static void writeExtensionIndex(Path libraryCachePath, DocumentationSerializer documentationSerializer) throws IOException {
+        ExtensionIndex.write(ExtensionIndex.getIndexPath(libraryCachePath), documentationSerializer.getTotalWrittenBytes(), documentationSerializer.getChecksum(), documentationSerializer.getExtensionReferences());
+    }
+
+    /**
+     * Finds the extension functions of every cached library, so they can be gotten by {@link #getOnFunctionsForEntity}.
+     * Only the extension index of each cache is read, unless it has none or it is out of date. Caches are read up to
+     * {@link GenerationOptions#libraryThreads()} at once, and a cache that fails to be read is logged and skipped.
+     * <br><br>
+     * The functions of each entity are always in the same order, by the name of their cache file then their position in
+     * it, whether they were found in the cache or its extension index.
+     */
+    public synchronized void initializeCache() {
+        List<Path> cacheFiles;
+        
         try (var cacheList = Files.list(cachePath)) {
-            cacheList.filter(path -> path.getFileName().toString().endsWith(".cache"))
-                    .forEach(cacheFile -> {
-                        try {
-                            readDocParserFromCache(cacheFile)
-                                    .ifPresent(docParser -> docParser.getDocumentedFiles().forEach(documentedFile -> {
-                                        for (var documentedItem : documentedFile.documentedItems()) {
-                                            if (documentedItem instanceof DocumentedItem(DocumentedTypeFunction documentedFunctionItem, FunctionDoc functionDocItem)) {
-                                                documentedFunctionItem.onOptional().ifPresent(onEntity -> {
-                                                            var onFunction = new ReferencedOnFunction(docParser.getLibraryName(), documentedFile.fileName(), documentedItem);
-                                                            entityFunctionReferences.computeIfAbsent(onEntity, k -> new ArrayList<>()).add(onFunction);
-                                                        });
-                                            }
-                                        }
-                                    }));
-                        } catch (Exception e) {
-                            LOGGER.error("Failed to read cache file: {}", cacheFile.getFileName(), e);
-                        }
-                    });
+            cacheFiles = cacheList.filter(path -> path.getFileName().toString().endsWith(".cache"))
+                    .sorted()
+                    .toList();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
         
-        LOGGER.debug("Initialized cache with {} entities", entityFunctionReferences.size());
+        var results = ParallelTasks.runAll(cacheFiles, options.libraryThreads(), "docgen-cache", this::readOnFunctions);
+        
+        for (var result : results) {
+            if (!result.isSuccess()) {
+                LOGGER.error("Failed to read cache file: {}", result.input().getFileName(), result.failure());
+                continue;
+            }
+            
+            cacheOnFunctions.put(result.input(), result.value());
+        }
+        
+        LOGGER.debug("Initialized cache with {} caches, of which {} have an extension index", cacheOnFunctions.size(),
+                cacheOnFunctions.values().stream().filter(cacheFunctions -> !cacheFunctions.indexedFunctions().isEmpty()).count());
 
-        for (Map.Entry<String, List<ReferencedOnFunction>> stringListEntry : entityFunctionReferences.entrySet()) {
-            LOGGER.debug("Entity: {}", stringListEntry.getKey());
-            for (ReferencedOnFunction referencedOnFunction : stringListEntry.getValue()) {
-                LOGGER.debug("  - {}", referencedOnFunction);
+        for (var cacheEntry : cacheOnFunctions.entrySet()) {
+            LOGGER.debug("Cache: {}", cacheEntry.getKey().getFileName());
+            cacheEntry.getValue().referencedFunctions().forEach((entityName, onFunctions) -> {
+                LOGGER.debug("  Entity: {}", entityName);
+                for (ReferencedOnFunction referencedOnFunction : onFunctions) {
+                    LOGGER.debug("    - {}", referencedOnFunction);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Reads the extension functions of a single cache, from its extension index if it has an up to date one, otherwise
+     * from the cache itself. The cache is stamped before it is read, so if it changes while it is, it is read again
+     * when its functions are next gotten.
+     */
+    private CacheOnFunctions readOnFunctions(Path libraryCachePath) throws Exception {
+        var cacheStamp = CacheStamp.of(libraryCachePath);
+        
+        var indexedFunctionsOptional = readExtensionIndex(libraryCachePath, cacheStamp);
+        if (indexedFunctionsOptional.isPresent()) {
+            return new CacheOnFunctions(cacheStamp, new HashMap<>(), indexedFunctionsOptional.get());
+        }
+        
+        return new CacheOnFunctions(cacheStamp, collectOnFunctions(libraryCachePath), new HashMap<>());
+    }
+    
+    /**
+     * Reads the extension functions of a cache from the cache itself.
+     *
+     * @return The functions keyed by the name of the entity they are on, each in their order in the cache
+     */
+    private Map<String, List<ReferencedOnFunction>> collectOnFunctions(Path libraryCachePath) throws Exception {
+        var referencedFunctions = new HashMap<String, List<ReferencedOnFunction>>();
+        
+        readDocParserFromCache(libraryCachePath)
+                .ifPresent(docParser -> docParser.getDocumentedFiles().forEach(documentedFile -> {
+                    for (var documentedItem : documentedFile.documentedItems()) {
+                        if (documentedItem instanceof DocumentedItem(DocumentedTypeFunction documentedFunctionItem, FunctionDoc functionDocItem)) {
+                            documentedFunctionItem.onOptional().ifPresent(onEntity -> {
+                                        var onFunction = new ReferencedOnFunction(docParser.getLibraryName(), documentedFile.fileName(), documentedItem);
+                                        referencedFunctions.computeIfAbsent(onEntity, k -> new ArrayList<>()).add(onFunction);
+                                    });
+                        }
+                    }
+                }));
+        
+        return referencedFunctions;
+    }
+    
+    /**
+     * Reads the functions listed by the extension index of a cache, without deserializing the cache. The index is only
+     * used if it was written with the cache's current content, which is checked by the checksum of the whole cache.
+     *
+     * @param cacheStamp The stamp of the cache taken before reading it, to check the size of the index's cache against
+     *                   before reading the cache for its checksum
+     * @return The functions keyed by the name of the entity they are on, or empty if the cache has no up to date index
+     * or it could not be read
+     */
+    private Optional<Map<String, List<IndexedOnFunction>>> readExtensionIndex(Path libraryCachePath, CacheStamp cacheStamp) throws IOException {
+        var extensionIndexOptional = ExtensionIndex.read(ExtensionIndex.getIndexPath(libraryCachePath))
+                .filter(extensionIndex -> extensionIndex.cacheSize() == cacheStamp.size());
+        
+        if (extensionIndexOptional.isEmpty() || !extensionIndexOptional.get().isOf(cacheStamp.size(), ExtensionIndex.checksum(libraryCachePath))) {
+            LOGGER.debug("No up to date extension index for cache file: {}", libraryCachePath.getFileName());
+            return Optional.empty();
+        }
+        
+        var libraryName = getLibraryName(libraryCachePath);
+        var indexedFunctions = new HashMap<String, List<IndexedOnFunction>>();
+        
+        extensionIndexOptional.get().references().forEach((entityName, references) -> indexedFunctions.put(entityName, references.stream()
+                .map(reference -> new IndexedOnFunction(libraryName, reference))
+                .toList()));
+        
+        return Optional.of(indexedFunctions);
+    }
+    
+    /**
+     * Gets the functions on an entity from every cached library read by {@link #initializeCache()} or
+     * {@link #getCachedOnExtensionDocs(String)}, ordered by the name of their cache file then their position in it.
+     * Functions found in extension indices are read from their caches the first time their entity is requested.
+     */
+    public synchronized List<ReferencedOnFunction> getOnFunctionsForEntity(String entityName) {
+        var onFunctions = new ArrayList<ReferencedOnFunction>();
+        
+        // A cache's functions may be replaced or removed while they are read, which never changes the iterated caches
+        for (var libraryCachePath : List.copyOf(cacheOnFunctions.keySet())) {
+            getCurrentOnFunctions(libraryCachePath)
+                    .ifPresent(cacheFunctions -> onFunctions.addAll(getOnFunctions(libraryCachePath, cacheFunctions, entityName)));
+        }
+        
+        return onFunctions;
+    }
+    
+    /**
+     * Gets the extension functions a cached library declares, without deserializing the rest of the library if its
+     * cache has an up to date extension index. The cache is only read in full the first time, to check its index is up
+     * to date, and again only if its size or modification time changes.
+     *
+     * @param libraryName The name of the library
+     * @return The library's extension functions ordered by the name of the entity they are on then their position in
+     * the cache, or empty if the library has no cache or it could not be read
+     */
+    public synchronized Optional<List<DocumentedItem>> getCachedOnExtensionDocs(String libraryName) {
+        var libraryCacheOptional = getLibraryCache(libraryName);
+        DocgenMetrics.recordCacheLookup(libraryCacheOptional.isPresent());
+        
+        if (libraryCacheOptional.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        var libraryCachePath = libraryCacheOptional.get();
+        var cacheFunctionsOptional = getCurrentOnFunctions(libraryCachePath);
+        if (cacheFunctionsOptional.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        var entityNames = new TreeSet<>(cacheFunctionsOptional.get().referencedFunctions().keySet());
+        entityNames.addAll(cacheFunctionsOptional.get().indexedFunctions().keySet());
+        
+        var onExtensionDocs = new ArrayList<DocumentedItem>();
+        for (var entityName : entityNames) {
+            // A fallback to decoding the cache replaces its functions, so they are gotten again for every entity
+            getCurrentOnFunctions(libraryCachePath).ifPresent(cacheFunctions -> getOnFunctions(libraryCachePath, cacheFunctions, entityName)
+                    .forEach(onFunction -> onExtensionDocs.add(onFunction.getDocumentedItem())));
+        }
+        
+        return Optional.of(onExtensionDocs);
+    }
+    
+    /**
+     * Gets the extension functions of a cache, reading them if they were not read yet or the cache changed since they
+     * were, which is checked by its size and modification time.
+     *
+     * @return The functions, or empty if the cache could not be read, in which case it is no longer kept
+     */
+    private Optional<CacheOnFunctions> getCurrentOnFunctions(Path libraryCachePath) {
+        var cacheFunctions = cacheOnFunctions.get(libraryCachePath);
+        
+        try {
+            if (cacheFunctions == null || !cacheFunctions.cacheStamp().equals(CacheStamp.of(libraryCachePath))) {
+                LOGGER.debug("Reading extension functions of cache file: {}", libraryCachePath.getFileName());
+                
+                cacheFunctions = readOnFunctions(libraryCachePath);
+                cacheOnFunctions.put(libraryCachePath, cacheFunctions);
+            }
+            
+            return Optional.of(cacheFunctions);
+        } catch (Exception e) {
+            LOGGER.error("Failed to read cache file: {}", libraryCachePath.getFileName(), e);
+            cacheOnFunctions.remove(libraryCachePath);
+            
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * Gets the functions on an entity from a single cache, reading them from the cache if they were found in its
+     * extension index.
+     */
+    private List<ReferencedOnFunction> getOnFunctions(Path libraryCachePath, CacheOnFunctions cacheFunctions, String entityName) {
+        var indexedFunctions = cacheFunctions.indexedFunctions().remove(entityName);
+        
+        if (indexedFunctions != null) {
+            var onFunctionsOptional = readIndexedOnFunctions(entityName, libraryCachePath, indexedFunctions);
+            if (onFunctionsOptional.isEmpty()) {
+                return decodeOnFunctions(libraryCachePath, cacheFunctions.cacheStamp()).getOrDefault(entityName, List.of());
+            }
+            
+            cacheFunctions.referencedFunctions().put(entityName, onFunctionsOptional.get());
+        }
+        
+        return cacheFunctions.referencedFunctions().getOrDefault(entityName, List.of());
+    }
+    
+    /**
+     * Reads the functions listed by the extension index of a cache from the cache. Only the functions' items are read,
+     * as the index was already checked to be of the cache's content when it was read.
+     *
+     * @return The functions, or empty if they are not where the index says they are
+     */
+    private Optional<List<ReferencedOnFunction>> readIndexedOnFunctions(String entityName, Path libraryCachePath, List<IndexedOnFunction> indexedFunctions) {
+        var onFunctions = new ArrayList<ReferencedOnFunction>();
+        
+        try (var documentationDeserializer = DocumentationDeserializer.map(libraryCachePath)) {
+            for (var indexedFunction : indexedFunctions) {
+                var documentedItem = documentationDeserializer.deserializeDocumentedItemAt(indexedFunction.reference().offset());
+                
+                if (!(documentedItem instanceof DocumentedItem(DocumentedTypeFunction documentedFunctionItem, FunctionDoc _))
+                        || !documentedFunctionItem.onOptional().equals(Optional.of(entityName))) {
+                    LOGGER.warn("Extension index of cache file {} does not match it, reading its functions from the cache", libraryCachePath.getFileName());
+                    return Optional.empty();
+                }
+                
+                onFunctions.add(new ReferencedOnFunction(indexedFunction.libraryName(), indexedFunction.reference().fileName(), documentedItem));
             }
+        } catch (Exception e) {
+            LOGGER.warn("Failed to read functions on {} at the offsets of the extension index of cache file {}, reading them from the cache", entityName, libraryCachePath.getFileName(), e);
+            return Optional.empty();
         }
+        
+        return Optional.of(onFunctions);
     }
     
-    public List<ReferencedOnFunction> getOnFunctionsForEntity(String entityName) {
-        return entityFunctionReferences.getOrDefault(entityName, Collections.emptyList());
+    /**
+     * Decodes the extension functions of a cache whose extension index can no longer be used. They replace everything
+     * found in the cache or its index before, so no entity keeps functions of the index or the cache's previous
+     * content. A cache that fails to be read is logged, and no longer has any functions.
+     *
+     * @param cacheStamp The stamp of the cache its index was read with, so the cache is read again if it changed since
+     * @return The decoded functions keyed by the name of the entity they are on
+     */
+    private Map<String, List<ReferencedOnFunction>> decodeOnFunctions(Path libraryCachePath, CacheStamp cacheStamp) {
+        Map<String, List<ReferencedOnFunction>> decodedFunctions;
+        
+        try {
+            decodedFunctions = collectOnFunctions(libraryCachePath);
+        } catch (Exception e) {
+            LOGGER.error("Failed to read cache file: {}", libraryCachePath.getFileName(), e);
+            decodedFunctions = new HashMap<>();
+        }
+        
+        cacheOnFunctions.put(libraryCachePath, new CacheOnFunctions(cacheStamp, decodedFunctions, new HashMap<>()));
+        
+        return decodedFunctions;
     }
 
     private Optional<Path> getLibraryCache(String libraryName) {
@@ -136,4 +543,27 @@ public class CachedDocHandler {
         return Optional.empty();
     }
 
+    /**
+     * An extension function listed by the extension index of a cache, which has not been read from the cache yet.
+     */
+    private record IndexedOnFunction(String libraryName, ExtensionIndex.Reference reference) {}
+
+    /**
+     * The extension functions of a single cache, keyed by the name of the entity they are on. Functions are either read
+     * from the cache itself, or found in its extension index and moved to the read functions once their entity is first
+     * requested.
+     *
+     * @param cacheStamp The stamp of the cache the functions were read from
+     */
+    private record CacheOnFunctions(CacheStamp cacheStamp, Map<String, List<ReferencedOnFunction>> referencedFunctions, Map<String, List<IndexedOnFunction>> indexedFunctions) {}
+
+    /**
+     * The size and modification time of a cache file, to cheaply check if it changed since it was read.
+     */
+    private record CacheStamp(long size, FileTime lastModifiedTime) {
+        private static CacheStamp of(Path libraryCachePath) throws IOException {
+            var attributes = Files.readAttributes(libraryCachePath, BasicFileAttributes.class);
+            return new CacheStamp(attributes.size(), attributes.lastModifiedTime());
+        }
+    }
 }
@@ -46,6 +46,10 @@ public class ReferencedOnFunction {
         return functionDoc;
     }
 
+    public DocumentedItem getDocumentedItem() {
+        return new DocumentedItem(documentedFunction, functionDoc);
+    }
+
     @Override
     public String toString() {
         return "ReferencedOnFunction{" +
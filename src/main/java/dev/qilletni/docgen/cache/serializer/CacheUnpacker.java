@@ -0,0 +1,171 @@
+package dev.qilletni.docgen.cache.serializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unpacks the subset of msgpack used by the cache format directly from a buffer, which may be a memory mapped file.
+ * Unlike msgpack's unpacker, nothing is copied into an intermediate buffer, strings can be skipped without being
+ * decoded, and any byte can be peeked at without reflection.
+ */
+final class CacheUnpacker {
+
+    private static final int NIL = 0xC0;
+    private static final int FALSE = 0xC2;
+    private static final int TRUE = 0xC3;
+
+    private final ByteBuffer buffer;
+    // Reused for decoding every string, as a mapped buffer has no array to decode from
+    private byte[] stringBytes;
+
+    CacheUnpacker(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.stringBytes = new byte[64];
+    }
+
+    int getPosition() {
+        return buffer.position();
+    }
+
+    void setPosition(int position) {
+        buffer.position(position);
+    }
+
+    int unpackInt() throws IOException {
+        var format = nextFormat();
+
+        if (format <= 0x7F) { // Positive fixint
+            return format;
+        }
+
+        if (format >= 0xE0) { // Negative fixint
+            return (byte) format;
+        }
+
+        return switch (format) {
+            case 0xCC -> Byte.toUnsignedInt(buffer.get());
+            case 0xCD -> Short.toUnsignedInt(buffer.getShort());
+            case 0xCE, 0xD2 -> buffer.getInt();
+            case 0xD0 -> buffer.get();
+            case 0xD1 -> buffer.getShort();
+            case 0xCF, 0xD3 -> Math.toIntExact(buffer.getLong());
+            default -> throw unexpectedFormat("an integer", format);
+        };
+    }
+
+    long unpackLong() throws IOException {
+        var format = nextFormat();
+
+        if (format <= 0x7F) { // Positive fixint
+            return format;
+        }
+
+        if (format >= 0xE0) { // Negative fixint
+            return (byte) format;
+        }
+
+        return switch (format) {
+            case 0xCC -> Byte.toUnsignedInt(buffer.get());
+            case 0xCD -> Short.toUnsignedInt(buffer.getShort());
+            case 0xCE -> Integer.toUnsignedLong(buffer.getInt());
+            case 0xD0 -> buffer.get();
+            case 0xD1 -> buffer.getShort();
+            case 0xD2 -> buffer.getInt();
+            case 0xCF, 0xD3 -> buffer.getLong();
+            default -> throw unexpectedFormat("an integer", format);
+        };
+    }
+
+    boolean unpackBoolean() throws IOException {
+        var format = nextFormat();
+
+        return switch (format) {
+            case TRUE -> true;
+            case FALSE -> false;
+            default -> throw unexpectedFormat("a boolean", format);
+        };
+    }
+
+    int unpackArrayHeader() throws IOException {
+        var format = nextFormat();
+
+        if ((format & 0xF0) == 0x90) { // Fixarray
+            return format & 0x0F;
+        }
+
+        return switch (format) {
+            case 0xDC -> Short.toUnsignedInt(buffer.getShort());
+            case 0xDD -> buffer.getInt();
+            default -> throw unexpectedFormat("an array", format);
+        };
+    }
+
+    String unpackString() throws IOException {
+        var length = unpackStringHeader();
+
+        if (stringBytes.length < length) {
+            stringBytes = new byte[Math.max(length, stringBytes.length * 2)];
+        }
+
+        buffer.get(stringBytes, 0, length);
+        return new String(stringBytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips a string without decoding it.
+     *
+     * @return The position of the string, to unpack it from later
+     */
+    int skipString() throws IOException {
+        var position = buffer.position();
+        var length = unpackStringHeader();
+        buffer.position(buffer.position() + length);
+
+        return position;
+    }
+
+    private int unpackStringHeader() throws IOException {
+        var format = nextFormat();
+
+        if ((format & 0xE0) == 0xA0) { // Fixstr
+            return format & 0x1F;
+        }
+
+        return switch (format) {
+            case 0xD9 -> Byte.toUnsignedInt(buffer.get());
+            case 0xDA -> Short.toUnsignedInt(buffer.getShort());
+            case 0xDB -> buffer.getInt();
+            default -> throw unexpectedFormat("a string", format);
+        };
+    }
+
+    /**
+     * Unpacks a nil followed by the given ordinal if they are next, otherwise leaves the buffer unread.
+     *
+     * @return If the placeholder was unpacked
+     */
+    boolean tryUnpackNilPlaceholder(int ordinal) {
+        var position = buffer.position();
+
+        // Placeholder ordinals are always positive fixints
+        if (position + 1 < buffer.limit() && Byte.toUnsignedInt(buffer.get(position)) == NIL && buffer.get(position + 1) == ordinal) {
+            buffer.position(position + 2);
+            return true;
+        }
+
+        return false;
+    }
+
+    private int nextFormat() throws IOException {
+        if (!buffer.hasRemaining()) {
+            throw new IOException("Unexpected end of cache at offset " + buffer.position());
+        }
+
+        return Byte.toUnsignedInt(buffer.get());
+    }
+
+    private IOException unexpectedFormat(String expected, int format) {
+        return new IOException("Expected %s at offset %d, but found format 0x%02X".formatted(expected, buffer.position() - 1, format));
+    }
+}
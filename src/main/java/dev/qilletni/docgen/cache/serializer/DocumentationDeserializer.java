@@ -20,28 +20,137 @@ import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
 import dev.qilletni.api.lang.docs.structure.text.inner.InnerDoc;
 import dev.qilletni.docgen.cache.BasicQllData;
 import dev.qilletni.docgen.cache.serializer.DocumentationSerializer.NilPlaceholder;
-import org.msgpack.core.MessagePack;
-import org.msgpack.core.MessageUnpacker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Deserializes documentation from any version of the cache format. The version is detected from the header, which
+ * version 1 does not have, so old caches are still read until they are next written.
+ * <br><br>
+ * Cache files should be read with {@link #map(Path)}, which unpacks them straight from a memory mapped region. Strings
+ * of the string table are only decoded when they are first used, so reading part of a cache only decodes the strings
+ * that part uses.
+ * <br><br>
+ * From version 4, single files can be read by their position in the offset table, and
+ * {@link #deserializeLazyLibrary()} only decodes each file once it is accessed. A lazily read library outlives the call
+ * creating it, so its deserializer should be created with {@link #read(Path)}.
+ */
 public class DocumentationDeserializer implements AutoCloseable {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(DocumentationDeserializer.class);
     
-    private final MessageUnpacker unpacker;
-    private final UnpackerHandler unpackerHandler;
+    private static final int ALL_PRESENT = -1;
     
-    public DocumentationDeserializer(InputStream inputStream) throws NoSuchFieldException, IllegalAccessException {
-        unpacker = MessagePack.newDefaultUnpacker(inputStream);
-        unpackerHandler = new UnpackerHandler(unpacker);
+    private final CacheUnpacker unpacker;
+    // The arena the cache file is mapped in, or null if the cache is not mapped
+    private final Arena arena;
+    private final int formatVersion;
+    // The positions of the strings of the string table of version 2, and every string once it is first decoded, so
+    // every string is a single instance shared by all its references
+    private final int[] stringPositions;
+    private final String[] strings;
+    // The offset table of version 4, or null for earlier versions
+    private final OffsetTable offsetTable;
+    
+    /**
+     * Creates a deserializer reading an entire stream into memory.
+     */
+    public DocumentationDeserializer(InputStream inputStream) throws IOException {
+        this(ByteBuffer.wrap(inputStream.readAllBytes()), null);
+    }
+    
+    private DocumentationDeserializer(ByteBuffer buffer, Arena arena) throws IOException {
+        this.unpacker = new CacheUnpacker(buffer);
+        this.arena = arena;
+        
+        if (!SerializationUtility.skipFormatMagic(buffer)) {
+            formatVersion = SerializationUtility.FORMAT_VERSION_1;
+            stringPositions = null;
+            strings = null;
+            offsetTable = null;
+            return;
+        }
+        
+        formatVersion = unpacker.unpackInt();
+        if (formatVersion < SerializationUtility.FORMAT_VERSION_2 || formatVersion > SerializationUtility.CURRENT_FORMAT_VERSION) {
+            throw new IOException("Unsupported cache format version: " + formatVersion);
+        }
+        
+        stringPositions = new int[unpacker.unpackArrayHeader()];
+        strings = new String[stringPositions.length];
+        for (int i = 0; i < stringPositions.length; i++) {
+            stringPositions[i] = unpacker.skipString();
+        }
+        
+        offsetTable = formatVersion >= SerializationUtility.FORMAT_VERSION_4 ? unpackOffsetTable() : null;
+    }
+    
+    private OffsetTable unpackOffsetTable() throws IOException {
+        // The lengths of ranges are only needed to copy them, as every item knows its own length
+        var fileImportPathIndices = new int[unpacker.unpackArrayHeader()];
+        var fileStarts = new int[fileImportPathIndices.length];
+        for (int i = 0; i < fileImportPathIndices.length; i++) {
+            fileImportPathIndices[i] = unpacker.unpackInt();
+            fileStarts[i] = unpacker.unpackInt();
+            unpacker.unpackInt();
+        }
+        
+        if (formatVersion == SerializationUtility.FORMAT_VERSION_4) {
+            // Version 4 also had the range of every top-level entity, which are not used
+            var entityCount = unpacker.unpackArrayHeader();
+            for (int i = 0; i < entityCount * 3; i++) {
+                unpacker.unpackInt();
+            }
+        }
+        
+        return new OffsetTable(fileImportPathIndices, fileStarts, unpacker.getPosition());
+    }
+    
+    /**
+     * Creates a deserializer of a cache file read entirely into memory. Unlike a mapped deserializer, it may be used by
+     * any thread and never needs to be closed, so it can back a lazily read library.
+     *
+     * @param cacheFile The cache file to read
+     * @return The deserializer
+     */
+    public static DocumentationDeserializer read(Path cacheFile) throws IOException {
+        return new DocumentationDeserializer(ByteBuffer.wrap(Files.readAllBytes(cacheFile)), null);
+    }
+    
+    /**
+     * Creates a deserializer unpacking a cache file from a memory mapped region. The file is unmapped when the
+     * deserializer is closed, and the deserializer may only be used by the thread that created it.
+     *
+     * @param cacheFile The cache file to read
+     * @return The deserializer
+     */
+    public static DocumentationDeserializer map(Path cacheFile) throws IOException {
+        var arena = Arena.ofConfined();
+        
+        try (var fileChannel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            var segment = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size(), arena);
+            return new DocumentationDeserializer(segment.asByteBuffer(), arena);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+    
+    public int getFormatVersion() {
+        return formatVersion;
     }
     
     public SerializedLibrary deserializeLibrary() throws IOException {
@@ -51,6 +160,20 @@ public class DocumentationDeserializer implements AutoCloseable {
         return new SerializedLibrary(basicQllData, documentedFiles);
     }
 
+    /**
+     * Deserializes a library whose files are only decoded once they are first accessed. Caches before version 4 have
+     * no offset table, so all their files are decoded immediately.
+     */
+    public SerializedLibrary deserializeLazyLibrary() throws IOException {
+        if (offsetTable == null) {
+            return deserializeLibrary();
+        }
+        
+        var basicQllData = deserializeBasicQllData();
+        
+        return new SerializedLibrary(basicQllData, new LazyDocumentedFileList(this, offsetTable.fileStarts().length));
+    }
+
     public List<DocumentedFile> deserializeDocumentedFileList() throws IOException {
         var size = unpacker.unpackArrayHeader();
         
@@ -63,8 +186,8 @@ public class DocumentationDeserializer implements AutoCloseable {
     }
     
     public DocumentedFile deserializeDocumentedFile() throws IOException {
-        var fileName = unpacker.unpackString();
-        var importPath = Paths.get(unpacker.unpackString());
+        var fileName = unpackString();
+        var importPath = Paths.get(unpackString());
         var documentedItemsSize = unpacker.unpackArrayHeader();
 
         LOGGER.debug("Deserializing file: {} with {} items", fileName, documentedItemsSize);
@@ -78,6 +201,38 @@ public class DocumentationDeserializer implements AutoCloseable {
         return new DocumentedFile(fileName, importPath, documentedItems);
     }
     
+    /**
+     * Deserializes a single file of a library by its index, without reading any other file.
+     *
+     * @param index The index of the file in the library
+     * @return The file
+     */
+    public synchronized DocumentedFile deserializeDocumentedFile(int index) throws IOException {
+        var offsetTable = getOffsetTable();
+        
+        return deserializeAt(offsetTable.itemsStart() + offsetTable.fileStarts()[index], this::deserializeDocumentedFile);
+    }
+    
+    /**
+     * Gets the import path of a file of a library by its index, without reading the file.
+     *
+     * @param index The index of the file in the library
+     * @return The import path of the file
+     */
+    public synchronized String getDocumentedFileImportPath(int index) throws IOException {
+        return getString(getOffsetTable().fileImportPathIndices()[index]);
+    }
+    
+    /**
+     * Deserializes a single item by its offset, such as one referenced by an {@link ExtensionIndex}.
+     *
+     * @param offset The offset of the item relative to the start of the items
+     * @return The item
+     */
+    public synchronized DocumentedItem deserializeDocumentedItemAt(int offset) throws IOException {
+        return deserializeAt(getOffsetTable().itemsStart() + offset, this::deserializeDocumentedItem);
+    }
+    
     public DocumentedItem deserializeDocumentedItem() throws IOException {
         var documentedType = deserializeDocumentedType();
         var innerDoc = deserializeInnerDoc();
@@ -87,7 +242,7 @@ public class DocumentationDeserializer implements AutoCloseable {
     
     public DocDescription.DescriptionItem deserializeDescriptionItem() throws IOException {
         var index = unpacker.unpackInt();
-        var string = unpacker.unpackString();
+        var string = unpackString();
         
         return switch (index) {
             case 0 -> new DocDescription.DocText(string);
@@ -100,28 +255,29 @@ public class DocumentationDeserializer implements AutoCloseable {
     
     public DocumentedType deserializeDocumentedType() throws IOException {
         var index = unpacker.unpackInt();
-        var libraryName = unpacker.unpackString();
-        var importPath = unpacker.unpackString();
+        var libraryName = unpackString();
+        var importPath = unpackString();
         
         return switch (index) {
-            case 0 -> new DocumentedTypeEntity(libraryName, importPath, unpacker.unpackString());
+            case 0 -> new DocumentedTypeEntity(libraryName, importPath, unpackString());
             case 1 -> {
-                var name = unpacker.unpackString();
+                var name = unpackString();
                 var params = deserializeParamNames();
                 
                 yield new DocumentedTypeEntityConstructor(libraryName, importPath, name, params);
             }
-            case 2 -> new DocumentedTypeField(libraryName, importPath, unpacker.unpackString(), unpacker.unpackString());
+            case 2 -> new DocumentedTypeField(libraryName, importPath, unpackString(), unpackString());
             case 3 -> {
-                var name = unpacker.unpackString();
+                var name = unpackString();
                 var params = deserializeParamNames();
                 var isNative = unpacker.unpackBoolean();
                 var isStatic = unpacker.unpackBoolean();
+                var presence = unpackPresence();
 
                 var onType = Optional.<String>empty();
                 
-                if (!hasNilPlaceholderNext(NilPlaceholder.NO_ON_TYPE)) {
-                    onType = Optional.of(unpacker.unpackString());
+                if (isPresent(presence, 0) && !hasNilPlaceholderNext(NilPlaceholder.NO_ON_TYPE)) {
+                    onType = Optional.of(unpackString());
                 }
 
                 yield new DocumentedTypeFunction(libraryName, importPath, name, params, isNative, isStatic, onType);
@@ -134,27 +290,36 @@ public class DocumentationDeserializer implements AutoCloseable {
         var innerDocType = unpacker.unpackInt();
         return switch (innerDocType) {
             case 0 -> { // ConstructorDoc
-                var docDescription = deserializeDocDescription();
+                var presence = unpackPresence();
+                var docDescription = isPresent(presence, 0) ? deserializeDocDescription() : null;
                 var params = deserializeParamDocList();
 
                 yield new ConstructorDoc(docDescription, params);
             }
             case 1 -> { // EntityDoc
-                var docDescription = deserializeDocDescription();
+                var presence = unpackPresence();
+                var docDescription = isPresent(presence, 0) ? deserializeDocDescription() : null;
 
                 var containedItems = deserializeDocumentedItemList();
                 var onExtensionFunctions = deserializeDocumentedItemList();
 
                 yield new EntityDoc(docDescription, containedItems, onExtensionFunctions);
             }
-            case 2 -> new FieldDoc(deserializeDocDescription(), deserializeDocFieldType());
+            case 2 -> { // FieldDoc
+                var presence = unpackPresence();
+                var docDescription = isPresent(presence, 0) ? deserializeDocDescription() : null;
+                var docFieldType = isPresent(presence, 1) ? deserializeDocFieldType() : null;
+                
+                yield new FieldDoc(docDescription, docFieldType);
+            }
             case 3 -> { // FunctionDoc
-                var docDescription = deserializeDocDescription();
+                var presence = unpackPresence();
+                var docDescription = isPresent(presence, 0) ? deserializeDocDescription() : null;
 
                 var params = deserializeParamDocList();
-                var returnDoc = deserializeReturnDoc();
-                var docOnLine = deserializeDocOnLine();
-                var docErrors = deserializeDocErrors();
+                var returnDoc = isPresent(presence, 1) ? deserializeReturnDoc() : null;
+                var docOnLine = isPresent(presence, 2) ? deserializeDocOnLine() : null;
+                var docErrors = isPresent(presence, 3) ? deserializeDocErrors() : null;
                 
                 yield new FunctionDoc(docDescription, params, returnDoc, docOnLine, docErrors);
             }
@@ -167,7 +332,8 @@ public class DocumentationDeserializer implements AutoCloseable {
             return null;
         }
         
-        return new DocErrors(deserializeDocDescription());
+        var presence = unpackPresence();
+        return new DocErrors(isPresent(presence, 0) ? deserializeDocDescription() : null);
     }
 
     public DocOnLine deserializeDocOnLine() throws IOException {
@@ -175,7 +341,11 @@ public class DocumentationDeserializer implements AutoCloseable {
             return null;
         }
         
-        return new DocOnLine(deserializeDocFieldType(), deserializeDocDescription());
+        var presence = unpackPresence();
+        var docFieldType = isPresent(presence, 0) ? deserializeDocFieldType() : null;
+        var description = isPresent(presence, 1) ? deserializeDocDescription() : null;
+        
+        return new DocOnLine(docFieldType, description);
     }
 
     public ReturnDoc deserializeReturnDoc() throws IOException {
@@ -183,7 +353,11 @@ public class DocumentationDeserializer implements AutoCloseable {
             return null;
         }
         
-        return new ReturnDoc(deserializeDocFieldType(), deserializeDocDescription());
+        var presence = unpackPresence();
+        var docFieldType = isPresent(presence, 0) ? deserializeDocFieldType() : null;
+        var description = isPresent(presence, 1) ? deserializeDocDescription() : null;
+        
+        return new ReturnDoc(docFieldType, description);
     }
     
     public DocFieldType deserializeDocFieldType() throws IOException {
@@ -192,7 +366,7 @@ public class DocumentationDeserializer implements AutoCloseable {
         }
 
         var fieldType = DocFieldType.FieldType.values()[unpacker.unpackInt()];
-        var identifier = unpacker.unpackString();
+        var identifier = unpackString();
         
         return new DocFieldType(fieldType, identifier);
     }
@@ -225,16 +399,17 @@ public class DocumentationDeserializer implements AutoCloseable {
         
         var params = new ArrayList<String>();
         for (int i = 0; i < size; i++) {
-            params.add(unpacker.unpackString());
+            params.add(unpackString());
         }
         
         return params;
     }
     
     public ParamDoc deserializeParamDoc() throws IOException {
-        var name = unpacker.unpackString();
-        var docFieldType = deserializeDocFieldType();
-        var description = deserializeDocDescription();
+        var name = unpackString();
+        var presence = unpackPresence();
+        var docFieldType = isPresent(presence, 0) ? deserializeDocFieldType() : null;
+        var description = isPresent(presence, 1) ? deserializeDocDescription() : null;
         
         return new ParamDoc(name, docFieldType, description);
     }
@@ -254,34 +429,95 @@ public class DocumentationDeserializer implements AutoCloseable {
         return new DocDescription(descriptionItems);
     }
     
-    private boolean hasNilPlaceholderNext(NilPlaceholder nilPlaceholder) throws IOException {
-        if (unpacker.getNextFormat().getValueType().isNilType()) {
-            var ordinalByte = unpackerHandler.getMessageBuffer().getByte(unpackerHandler.getUnpackerPosition() + 1); // Get not this, but the next byte
-            if (ordinalByte == nilPlaceholder.ordinal()) {
-                unpacker.unpackNil(); // Nil byte
-                unpacker.unpackInt(); // Ordinal byte
-                return true;
-            }
+    /**
+     * Unpacks the nil placeholder of an absent value if it is next, before version 3. From version 3, the caller must
+     * check the presence bitmap of the record instead.
+     */
+    private boolean hasNilPlaceholderNext(NilPlaceholder nilPlaceholder) {
+        return formatVersion < SerializationUtility.FORMAT_VERSION_3 && unpacker.tryUnpackNilPlaceholder(nilPlaceholder.ordinal());
+    }
+    
+    /**
+     * Unpacks the presence bitmap of a record's optional values from version 3. Before, every value is treated as
+     * present, and absent values are found by their nil placeholders.
+     */
+    private int unpackPresence() throws IOException {
+        return formatVersion < SerializationUtility.FORMAT_VERSION_3 ? ALL_PRESENT : unpacker.unpackInt();
+    }
+    
+    private static boolean isPresent(int presence, int bit) {
+        return (presence & (1 << bit)) != 0;
+    }
+    
+    private OffsetTable getOffsetTable() {
+        if (offsetTable == null) {
+            throw new IllegalStateException("Cache format version %d has no offset table".formatted(formatVersion));
+        }
+        
+        return offsetTable;
+    }
+    
+    /**
+     * Deserializes something at a position, then returns to where the deserializer was before.
+     */
+    private <T> T deserializeAt(int position, Deserializer<T> deserializer) throws IOException {
+        var previousPosition = unpacker.getPosition();
+        unpacker.setPosition(position);
+        
+        try {
+            return deserializer.deserialize();
+        } finally {
+            unpacker.setPosition(previousPosition);
         }
-
-        return false;
+    }
+    
+    private String unpackString() throws IOException {
+        if (strings == null) {
+            return unpacker.unpackString();
+        }
+        
+        return getString(unpacker.unpackInt());
+    }
+    
+    private String getString(int index) throws IOException {
+        if (index < 0 || index >= strings.length) {
+            throw new IOException("Invalid string table index: " + index);
+        }
+        
+        if (strings[index] == null) {
+            strings[index] = deserializeAt(stringPositions[index], unpacker::unpackString);
+        }
+        
+        return strings[index];
     }
     
     public BasicQllData deserializeBasicQllData() throws IOException {
-        var name = unpacker.unpackString();
-        var version = unpacker.unpackString();
-        var author = unpacker.unpackString();
-        var description = unpacker.unpackString();
-        var sourceUrl = unpacker.unpackString();
+        var name = unpackString();
+        var version = unpackString();
+        var author = unpackString();
+        var description = unpackString();
+        var sourceUrl = unpackString();
         
         return new BasicQllData(name, version, author, description, sourceUrl);
     }
 
     @Override
-    public void close() throws Exception {
-        unpacker.close();
+    public void close() {
+        if (arena != null) {
+            arena.close();
+        }
     }
 
     public record SerializedLibrary(BasicQllData basicQllData, List<DocumentedFile> documentedFiles) {}
+    
+    /**
+     * The offset table of a cache, with every start relative to {@code itemsStart}.
+     */
+    private record OffsetTable(int[] fileImportPathIndices, int[] fileStarts, int itemsStart) {}
+    
+    @FunctionalInterface
+    private interface Deserializer<T> {
+        T deserialize() throws IOException;
+    }
 
 }
@@ -19,24 +19,76 @@ import dev.qilletni.api.lang.docs.structure.text.inner.FieldDoc;
 import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
 import dev.qilletni.api.lang.docs.structure.text.inner.InnerDoc;
 import dev.qilletni.docgen.cache.BasicQllData;
+import org.msgpack.core.MessageBufferPacker;
 import org.msgpack.core.MessagePack;
 import org.msgpack.core.MessagePacker;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.CheckedOutputStream;
 
+/**
+ * Serializes documentation into the cache format. See {@link SerializationUtility#FORMAT_VERSION_2} through
+ * {@link SerializationUtility#FORMAT_VERSION_5} for the layout of the current format. Nothing is written to the output
+ * stream until {@link #finish()} or {@link #close()}, as the string table is written before the items referencing it.
+ * <br><br>
+ * From version 3, a null value passed to a method serializing a single optional value writes nothing, as the value's
+ * absence is recorded in the presence bitmap of the record it is in.
+ */
 public class DocumentationSerializer implements AutoCloseable {
     
+    private final int formatVersion;
+    // The output stream, which checksums everything written to it
+    private final CheckedOutputStream outputStream;
+    private final MessagePacker outputPacker;
+    // Items are packed into a buffer while the string table is built, or directly to the output in version 1
     private final MessagePacker packer;
+    private final List<String> strings;
+    private final Map<String, Integer> stringIndices;
+    // The ranges of every serialized file, written as the offset table from version 4
+    private final List<FileRange> fileRanges;
+    // The extension functions of every serialized file from version 4, keyed by the name of the entity they are on
+    private final Map<String, List<ExtensionIndex.Reference>> extensionReferences;
+    private boolean finished;
     
     public DocumentationSerializer(OutputStream outputStream) {
-        packer = MessagePack.newDefaultPacker(outputStream);
+        this(outputStream, SerializationUtility.CURRENT_FORMAT_VERSION);
+    }
+
+    /**
+     * Creates a serializer writing a specific version of the cache format. Only benchmarks and tests should need to
+     * write anything but the current version.
+     *
+     * @param outputStream  The stream to write to
+     * @param formatVersion The version of the cache format to write
+     */
+    public DocumentationSerializer(OutputStream outputStream, int formatVersion) {
+        if (formatVersion < SerializationUtility.FORMAT_VERSION_1 || formatVersion > SerializationUtility.CURRENT_FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported cache format version: " + formatVersion);
+        }
+        
+        this.formatVersion = formatVersion;
+        this.outputStream = new CheckedOutputStream(outputStream, ExtensionIndex.createChecksum());
+        this.outputPacker = MessagePack.newDefaultPacker(this.outputStream);
+        this.packer = formatVersion == SerializationUtility.FORMAT_VERSION_1 ? outputPacker : MessagePack.newDefaultBufferPacker();
+        this.strings = new ArrayList<>();
+        this.stringIndices = new HashMap<>();
+        this.fileRanges = new ArrayList<>();
+        this.extensionReferences = new LinkedHashMap<>();
     }
     
+    /**
+     * Serializes a library and writes it to the output stream. Nothing else may be serialized afterwards.
+     */
     public void serializeLibrary(BasicQllData basicQllData, List<DocumentedFile> documentedFiles) throws IOException {
         serializeBasicQllData(basicQllData);
         serializeDocumentedFileList(documentedFiles);
+        finish();
     }
     
     public void serializeDocumentedFileList(List<DocumentedFile> documentedFiles) throws IOException {
@@ -47,11 +99,30 @@ public class DocumentationSerializer implements AutoCloseable {
     }
 
     public void serializeDocumentedFile(DocumentedFile documentedFile) throws IOException {
-        packer.packString(documentedFile.fileName());
-        packer.packString(documentedFile.importPath().toString());
+        var fileStart = getItemsPosition();
+        var importPath = documentedFile.importPath().toString();
+        
+        packString(documentedFile.fileName());
+        packString(importPath);
         packer.packArrayHeader(documentedFile.documentedItems().size());
         for (var documentedItem : documentedFile.documentedItems()) {
+            var itemStart = getItemsPosition();
             serializeDocumentedItem(documentedItem);
+            
+            if (!hasOffsetTable()) {
+                continue;
+            }
+            
+            switch (documentedItem.itemBeingDocumented()) {
+                case DocumentedTypeFunction documentedTypeFunction when documentedTypeFunction.onOptional().isPresent() ->
+                        extensionReferences.computeIfAbsent(documentedTypeFunction.onOptional().get(), _ -> new ArrayList<>())
+                                .add(new ExtensionIndex.Reference(documentedFile.fileName(), itemStart));
+                default -> {}
+            }
+        }
+        
+        if (hasOffsetTable()) {
+            fileRanges.add(new FileRange(stringIndices.get(importPath), fileStart, getItemsPosition() - fileStart));
         }
     }
     
@@ -63,32 +134,35 @@ public class DocumentationSerializer implements AutoCloseable {
     public void serializeDocumentedType(DocumentedType documentedType) throws IOException {
         packer.packInt(SerializationUtility.getDocumentedTypeIndex(documentedType));
         
-        packer.packString(documentedType.libraryName());
-        packer.packString(documentedType.importPath());
+        packString(documentedType.libraryName());
+        packString(documentedType.importPath());
 
         switch (documentedType) {
             case DocumentedTypeEntity documentedTypeEntity -> {
-                packer.packString(documentedTypeEntity.name());
+                packString(documentedTypeEntity.name());
             }
             case DocumentedTypeEntityConstructor documentedTypeEntityConstructor -> {
-                packer.packString(documentedTypeEntityConstructor.name());
+                packString(documentedTypeEntityConstructor.name());
                 
                 serializeParamNameList(documentedTypeEntityConstructor.params());
             }
             case DocumentedTypeField documentedTypeField -> {
-                packer.packString(documentedTypeField.type());
-                packer.packString(documentedTypeField.name());
+                packString(documentedTypeField.type());
+                packString(documentedTypeField.name());
             }
             case DocumentedTypeFunction documentedTypeFunction -> {
-                packer.packString(documentedTypeFunction.name());
+                packString(documentedTypeFunction.name());
                 
                 serializeParamNameList(documentedTypeFunction.params());
                 
                 packer.packBoolean(documentedTypeFunction.isNative());
                 packer.packBoolean(documentedTypeFunction.isStatic());
                 
-                if (documentedTypeFunction.onOptional().isPresent()) {
-                    packer.packString(documentedTypeFunction.onOptional().get());
+                var onType = documentedTypeFunction.onOptional().orElse(null);
+                packPresence(presenceBit(onType, 0));
+                
+                if (onType != null) {
+                    packString(onType);
                 } else {
                     packNilPlaceholder(NilPlaceholder.NO_ON_TYPE);
                 }
@@ -101,22 +175,27 @@ public class DocumentationSerializer implements AutoCloseable {
 
         switch (innerDoc) {
             case ConstructorDoc constructorDoc -> {
+                packPresence(presenceBit(constructorDoc.description(), 0));
                 serializeDocDescription(constructorDoc.description());
                 
                 serializeParamDocList(constructorDoc.paramDocs());
             }
             case EntityDoc entityDoc -> {
+                packPresence(presenceBit(entityDoc.description(), 0));
                 serializeDocDescription(entityDoc.description());
 
                 serializeDocumentedItemList(entityDoc.containedItems());
                 serializeDocumentedItemList(entityDoc.onExtensionFunctions());
             }
             case FieldDoc fieldDoc -> {
+                packPresence(presenceBit(fieldDoc.description(), 0) | presenceBit(fieldDoc.fieldType(), 1));
                 serializeDocDescription(fieldDoc.description());
 
                 serializeDocFieldType(fieldDoc.fieldType());
             }
             case FunctionDoc functionDoc -> {
+                packPresence(presenceBit(functionDoc.description(), 0) | presenceBit(functionDoc.returnDoc(), 1)
+                        | presenceBit(functionDoc.docOnLine(), 2) | presenceBit(functionDoc.docErrors(), 3));
                 serializeDocDescription(functionDoc.description());
 
                 serializeParamDocList(functionDoc.paramDocs());
@@ -133,6 +212,7 @@ public class DocumentationSerializer implements AutoCloseable {
             return;
         }
         
+        packPresence(presenceBit(docErrors.description(), 0));
         serializeDocDescription(docErrors.description());
     }
 
@@ -142,6 +222,7 @@ public class DocumentationSerializer implements AutoCloseable {
             return;
         }
         
+        packPresence(presenceBit(docOnLine.docFieldType(), 0) | presenceBit(docOnLine.description(), 1));
         serializeDocFieldType(docOnLine.docFieldType());
         serializeDocDescription(docOnLine.description());
     }
@@ -152,6 +233,7 @@ public class DocumentationSerializer implements AutoCloseable {
             return;
         }
 
+        packPresence(presenceBit(returnDoc.docFieldType(), 0) | presenceBit(returnDoc.description(), 1));
         serializeDocFieldType(returnDoc.docFieldType());
         serializeDocDescription(returnDoc.description());
     }
@@ -163,7 +245,7 @@ public class DocumentationSerializer implements AutoCloseable {
         }
 
         packer.packInt(docFieldType.fieldType().ordinal());
-        packer.packString(docFieldType.identifier());
+        packString(docFieldType.identifier());
     }
     
     public void serializeDocumentedItemList(List<DocumentedItem> documentedItems) throws IOException {
@@ -183,12 +265,13 @@ public class DocumentationSerializer implements AutoCloseable {
     private void serializeParamNameList(List<String> params) throws IOException {
         packer.packArrayHeader(params.size());
         for (var param : params) {
-            packer.packString(param);
+            packString(param);
         }
     }
 
     public void serializeParamDoc(ParamDoc paramDoc) throws IOException {
-        packer.packString(paramDoc.name());
+        packString(paramDoc.name());
+        packPresence(presenceBit(paramDoc.docFieldType(), 0) | presenceBit(paramDoc.description(), 1));
         serializeDocFieldType(paramDoc.docFieldType());
         serializeDocDescription(paramDoc.description());
     }
@@ -210,28 +293,102 @@ public class DocumentationSerializer implements AutoCloseable {
         packer.packInt(SerializationUtility.getDescriptionItemIndex(descriptionItem));
 
         switch (descriptionItem) {
-            case DocDescription.DocText docText -> packer.packString(docText.text());
-            case DocDescription.JavaRef javaRef -> packer.packString(javaRef.javaName());
-            case DocDescription.ParamRef paramRef -> packer.packString(paramRef.paramName());
-            case DocDescription.TypeRef typeRef -> packer.packString(typeRef.typeName());
+            case DocDescription.DocText docText -> packString(docText.text());
+            case DocDescription.JavaRef javaRef -> packString(javaRef.javaName());
+            case DocDescription.ParamRef paramRef -> packString(paramRef.paramName());
+            case DocDescription.TypeRef typeRef -> packString(typeRef.typeName());
         }
     }
 
+    /**
+     * Gets the extension functions serialized so far, keyed by the name of the entity they are on, to write the
+     * {@link ExtensionIndex} of the cache with. Functions are only recorded from version 4, as earlier versions have no
+     * offsets to reference them by.
+     */
+    public Map<String, List<ExtensionIndex.Reference>> getExtensionReferences() {
+        return extensionReferences;
+    }
+
+    /**
+     * Gets the checksum of the bytes written to the output stream, which is only of all of them after
+     * {@link #finish()}. It is written to the {@link ExtensionIndex} of the cache, to check the index against it.
+     */
+    public long getChecksum() {
+        return outputStream.getChecksum().getValue();
+    }
+
+    /**
+     * Gets the number of bytes written to the output stream, which is only all of them after {@link #finish()}.
+     */
     public long getTotalWrittenBytes() {
-        return packer.getTotalWrittenBytes();
+        var magicLength = finished && formatVersion != SerializationUtility.FORMAT_VERSION_1 ? SerializationUtility.FORMAT_MAGIC.length : 0;
+        return magicLength + outputPacker.getTotalWrittenBytes();
+    }
+    
+    /**
+     * Packs a string, or a reference to it in the string table in version 2. References are msgpack integers, which
+     * take a single byte for the first 128 strings of the table and grow with the index.
+     */
+    private void packString(String string) throws IOException {
+        if (formatVersion == SerializationUtility.FORMAT_VERSION_1) {
+            packer.packString(string);
+            return;
+        }
+        
+        var index = stringIndices.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.add(string);
+            stringIndices.put(string, index);
+        }
+        
+        packer.packInt(index);
     }
     
+    /**
+     * Packs a nil followed by the placeholder's ordinal in place of an absent value, before version 3.
+     */
     private void packNilPlaceholder(NilPlaceholder nilPlaceholder) throws IOException {
+        if (formatVersion >= SerializationUtility.FORMAT_VERSION_3) {
+            return;
+        }
+        
         packer.packNil();
         packer.packInt(nilPlaceholder.ordinal());
     }
     
+    /**
+     * Packs the presence bitmap of a record's optional values, from version 3. Bitmaps of up to 7 values take a single
+     * byte.
+     */
+    private void packPresence(int presence) throws IOException {
+        if (formatVersion >= SerializationUtility.FORMAT_VERSION_3) {
+            packer.packInt(presence);
+        }
+    }
+    
+    private static int presenceBit(Object value, int bit) {
+        return value == null ? 0 : 1 << bit;
+    }
+    
+    private boolean hasOffsetTable() {
+        return formatVersion >= SerializationUtility.FORMAT_VERSION_4;
+    }
+    
+    /**
+     * Gets the number of bytes of items packed so far, which is the position of the next item relative to the start of
+     * the items.
+     */
+    private int getItemsPosition() {
+        return Math.toIntExact(packer.getTotalWrittenBytes());
+    }
+    
     public void serializeBasicQllData(BasicQllData basicQllData) throws IOException {
-        packer.packString(basicQllData.name());
-        packer.packString(basicQllData.version());
-        packer.packString(basicQllData.author());
-        packer.packString(basicQllData.description());
-        packer.packString(basicQllData.sourceUrl());
+        packString(basicQllData.name());
+        packString(basicQllData.version());
+        packString(basicQllData.author());
+        packString(basicQllData.description());
+        packString(basicQllData.sourceUrl());
     }
 
     public enum NilPlaceholder {
@@ -243,9 +400,56 @@ public class DocumentationSerializer implements AutoCloseable {
         NO_DESCRIPTION;
     }
 
+    /**
+     * Writes everything serialized so far to the output stream. From version 2 this is the header and string table,
+     * and from version 4 the offset table, followed by the items, so nothing may be serialized afterwards.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        
+        finished = true;
+        
+        if (packer instanceof MessageBufferPacker bufferPacker) {
+            // Nothing was packed to the output yet, so the magic is the first thing in the stream
+            outputStream.write(SerializationUtility.FORMAT_MAGIC);
+            outputPacker.packInt(formatVersion);
+            
+            outputPacker.packArrayHeader(strings.size());
+            for (var string : strings) {
+                outputPacker.packString(string);
+            }
+            
+            if (hasOffsetTable()) {
+                packOffsetTable();
+            }
+            
+            outputPacker.writePayload(bufferPacker.toByteArray());
+        }
+        
+        outputPacker.flush();
+    }
+
+    private void packOffsetTable() throws IOException {
+        outputPacker.packArrayHeader(fileRanges.size());
+        for (var fileRange : fileRanges) {
+            outputPacker.packInt(fileRange.importPathIndex());
+            outputPacker.packInt(fileRange.start());
+            outputPacker.packInt(fileRange.length());
+        }
+        
+        if (formatVersion == SerializationUtility.FORMAT_VERSION_4) {
+            // The entities of version 4 were never read, so none are written
+            outputPacker.packArrayHeader(0);
+        }
+    }
+
     @Override
     public void close() throws Exception {
-        packer.flush();
-        packer.close();
+        finish();
+        outputPacker.close();
     }
+
+    private record FileRange(int importPathIndex, int start, int length) {}
 }
@@ -0,0 +1,195 @@
+package dev.qilletni.docgen.cache.serializer;
+
+import org.msgpack.core.MessagePack;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * The sidecar of a cache file, listing the library's extension functions keyed by the name of the entity they are on.
+ * Each function is referenced by the offset of its item in the cache, so the functions on every entity can be found
+ * without deserializing any library, and each is only read from its cache once it is needed.
+ * <br><br>
+ * The index is written alongside the cache and is only valid for it, which is checked by the size and CRC-32C checksum
+ * of the cache it was written with. Reading an index does not check it against its cache, as calculating the checksum
+ * reads the entire cache, so it is left to the reader to do once per cache. The layout is:
+ * <ol>
+ *     <li>The version of the index, then the size of its cache in bytes, then the checksum of its cache</li>
+ *     <li>An array of every entity, each as its name followed by an array of its functions, each as the name of the
+ *     file declaring it and the offset of its item relative to the start of the cache's items</li>
+ * </ol>
+ */
+public final class ExtensionIndex {
+
+    public static final String FILE_EXTENSION = ".extidx";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExtensionIndex.class);
+
+    private static final int FORMAT_VERSION = 2;
+
+    private ExtensionIndex() {}
+
+    /**
+     * Gets the path of the index of a cache file.
+     *
+     * @param cacheFile The cache file
+     * @return The path of its index, next to the cache
+     */
+    public static Path getIndexPath(Path cacheFile) {
+        return cacheFile.resolveSibling(cacheFile.getFileName().toString().replaceFirst("\\.cache$", "") + FILE_EXTENSION);
+    }
+
+    /**
+     * Creates the checksum caches are checked by.
+     */
+    static Checksum createChecksum() {
+        return new CRC32C();
+    }
+
+    /**
+     * Calculates the checksum of a cache file, to compare to the one its index was written with. This reads the entire
+     * cache.
+     *
+     * @param cacheFile The cache file
+     * @return The checksum of the cache
+     */
+    public static long checksum(Path cacheFile) throws IOException {
+        try (var arena = Arena.ofConfined();
+             var fileChannel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            var checksum = createChecksum();
+            checksum.update(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size(), arena).asByteBuffer());
+
+            return checksum.getValue();
+        }
+    }
+
+    /**
+     * Writes the index of a cache file. The index is written to a temporary file first, then moved over the existing
+     * index, so a reader never sees a partially written index.
+     *
+     * @param indexFile     The file to write the index to
+     * @param cacheSize     The size of the cache in bytes
+     * @param cacheChecksum The checksum of the cache
+     * @param references    The extension functions of the cache's library, keyed by the name of the entity they are on
+     */
+    public static void write(Path indexFile, long cacheSize, long cacheChecksum, Map<String, List<Reference>> references) throws IOException {
+        var temporaryFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+
+        try {
+            writeIndex(temporaryFile, cacheSize, cacheChecksum, references);
+            Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static void writeIndex(Path indexFile, long cacheSize, long cacheChecksum, Map<String, List<Reference>> references) throws IOException {
+        try (var packer = MessagePack.newDefaultPacker(Files.newOutputStream(indexFile))) {
+            packer.packInt(FORMAT_VERSION);
+            packer.packLong(cacheSize);
+            packer.packLong(cacheChecksum);
+
+            packer.packArrayHeader(references.size());
+            for (var entityReferences : references.entrySet()) {
+                packer.packString(entityReferences.getKey());
+
+                packer.packArrayHeader(entityReferences.getValue().size());
+                for (var reference : entityReferences.getValue()) {
+                    packer.packString(reference.fileName());
+                    packer.packInt(reference.offset());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the index of a cache file, without checking it is valid for the cache's current content, which should be
+     * done with {@link Index#isOf(long, long)}.
+     *
+     * @param indexFile The file the index was written to
+     * @return The index, or empty if it does not exist, is of another version, or could not be read
+     */
+    public static Optional<Index> read(Path indexFile) {
+        if (!Files.exists(indexFile)) {
+            return Optional.empty();
+        }
+
+        try {
+            return readIndex(indexFile);
+        } catch (IOException | RuntimeException e) { // A truncated index fails with a BufferUnderflowException
+            LOGGER.warn("Unable to read extension index {}, ignoring it", indexFile.getFileName(), e);
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Index> readIndex(Path indexFile) throws IOException {
+        var unpacker = new CacheUnpacker(ByteBuffer.wrap(Files.readAllBytes(indexFile)));
+        if (unpacker.unpackInt() != FORMAT_VERSION) {
+            return Optional.empty();
+        }
+
+        var cacheSize = unpacker.unpackLong();
+        var cacheChecksum = unpacker.unpackLong();
+
+        var entityCount = unpacker.unpackArrayHeader();
+        var references = new LinkedHashMap<String, List<Reference>>();
+
+        for (int i = 0; i < entityCount; i++) {
+            var entityName = unpacker.unpackString();
+            var referenceCount = unpacker.unpackArrayHeader();
+
+            var entityReferences = new ArrayList<Reference>(referenceCount);
+            for (int j = 0; j < referenceCount; j++) {
+                entityReferences.add(new Reference(unpacker.unpackString(), unpacker.unpackInt()));
+            }
+
+            references.put(entityName, entityReferences);
+        }
+
+        return Optional.of(new Index(cacheSize, cacheChecksum, references));
+    }
+
+    /**
+     * The index of a cache file.
+     *
+     * @param cacheSize     The size of the cache the index was written with
+     * @param cacheChecksum The checksum of the cache the index was written with
+     * @param references    The extension functions of the cache's library, keyed by the name of the entity they are on
+     */
+    public record Index(long cacheSize, long cacheChecksum, Map<String, List<Reference>> references) {
+
+        /**
+         * Checks if the index was written with a cache, by the cache's size and checksum.
+         *
+         * @param cacheSize     The current size of the cache
+         * @param cacheChecksum The current checksum of the cache, from {@link #checksum(Path)}
+         * @return If the index is valid for the cache
+         */
+        public boolean isOf(long cacheSize, long cacheChecksum) {
+            return this.cacheSize == cacheSize && this.cacheChecksum == cacheChecksum;
+        }
+    }
+
+    /**
+     * An extension function in a cache.
+     *
+     * @param fileName The name of the file declaring the function
+     * @param offset   The offset of the function's item relative to the start of the cache's items
+     */
+    public record Reference(String fileName, int offset) {}
+}
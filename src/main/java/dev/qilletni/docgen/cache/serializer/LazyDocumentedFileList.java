@@ -0,0 +1,61 @@
+package dev.qilletni.docgen.cache.serializer;
+
+import dev.qilletni.api.lang.docs.structure.DocumentedFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An unmodifiable list of the files of a cached library, which only deserializes each file the first time it is
+ * accessed. Files are read by their position in the cache's offset table, so accessing one never decodes another. The
+ * list may be accessed by any thread.
+ */
+public final class LazyDocumentedFileList extends AbstractList<DocumentedFile> implements RandomAccess {
+
+    private final DocumentationDeserializer deserializer;
+    private final DocumentedFile[] documentedFiles;
+
+    LazyDocumentedFileList(DocumentationDeserializer deserializer, int size) {
+        this.deserializer = deserializer;
+        this.documentedFiles = new DocumentedFile[size];
+    }
+
+    @Override
+    public synchronized DocumentedFile get(int index) {
+        Objects.checkIndex(index, documentedFiles.length);
+
+        if (documentedFiles[index] == null) {
+            try {
+                documentedFiles[index] = deserializer.deserializeDocumentedFile(index);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read file %d of cached library".formatted(index), e);
+            }
+        }
+
+        return documentedFiles[index];
+    }
+
+    /**
+     * Gets the import path of a file without deserializing it.
+     *
+     * @param index The index of the file
+     * @return The import path of the file, as it was serialized
+     */
+    public String getImportPath(int index) {
+        Objects.checkIndex(index, documentedFiles.length);
+
+        try {
+            return deserializer.getDocumentedFileImportPath(index);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the import path of file %d of cached library".formatted(index), e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return documentedFiles.length;
+    }
+}
@@ -12,8 +12,74 @@ import dev.qilletni.api.lang.docs.structure.text.inner.FieldDoc;
 import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
 import dev.qilletni.api.lang.docs.structure.text.inner.InnerDoc;
 
+import java.nio.ByteBuffer;
+
 public class SerializationUtility {
 
+    /**
+     * The original format, with every string packed in full wherever it is used, and no header.
+     */
+    public static final int FORMAT_VERSION_1 = 1;
+
+    /**
+     * The format with a header and string table:
+     * <ol>
+     *     <li>{@link #FORMAT_MAGIC}, then the version as a msgpack integer</li>
+     *     <li>An array of every distinct string in the file</li>
+     *     <li>The items laid out as in version 1, with every string replaced by its index in the string table</li>
+     * </ol>
+     */
+    public static final int FORMAT_VERSION_2 = 2;
+
+    /**
+     * The format of version 2, with every record that has optional values starting with a bitmap of which of them are
+     * present, instead of an absent value being a nil followed by its placeholder's ordinal. Absent values are not
+     * written at all, so reading never needs to look ahead.
+     */
+    public static final int FORMAT_VERSION_3 = 3;
+
+    /**
+     * The format of version 3, with an offset table between the string table and the items, so a single file or entity
+     * can be read without reading everything before it:
+     * <ol>
+     *     <li>An array of every file, each as the string index of its import path, then the start and length of the
+     *     file in bytes</li>
+     *     <li>An array of every entity declared at the top level of a file, each as the string index of its name, then
+     *     the start and length of the entity's item in bytes</li>
+     * </ol>
+     * Every start is relative to the first byte after the offset table.
+     */
+    public static final int FORMAT_VERSION_4 = 4;
+
+    /**
+     * The format of version 4, with only the array of files in the offset table. Nothing read single entities by their
+     * position, so their array was dropped.
+     */
+    public static final int FORMAT_VERSION_5 = 5;
+
+    public static final int CURRENT_FORMAT_VERSION = FORMAT_VERSION_5;
+
+    /**
+     * Starts every cache file with a header. The first byte is never used by msgpack, so no version 1 file can start
+     * with it.
+     */
+    static final byte[] FORMAT_MAGIC = {(byte) 0xC1, 'Q', 'D', 'C'};
+
+    /**
+     * Skips the format magic if a cache starts with it, which only caches of version 2 onwards do. Otherwise, the
+     * buffer is left unread.
+     *
+     * @return If the cache started with the format magic
+     */
+    static boolean skipFormatMagic(ByteBuffer buffer) {
+        if (buffer.remaining() < FORMAT_MAGIC.length || !buffer.slice(buffer.position(), FORMAT_MAGIC.length).equals(ByteBuffer.wrap(FORMAT_MAGIC))) {
+            return false;
+        }
+
+        buffer.position(buffer.position() + FORMAT_MAGIC.length);
+        return true;
+    }
+
     public static int getDescriptionItemIndex(DocDescription.DescriptionItem descriptionItem) {
         return switch (descriptionItem) {
             case DocDescription.DocText $ -> 0;
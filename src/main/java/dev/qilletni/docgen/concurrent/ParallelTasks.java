@@ -0,0 +1,120 @@
+package dev.qilletni.docgen.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs independent tasks on a bounded pool of worker threads, collecting the result or failure of every task instead
+ * of aborting on the first failure.
+ * <br><br>
+ * Every call with the same thread name and parallelism shares one pool, so calls made at the same time are bounded
+ * together. For example, the pages of every library rendered at once share the same render threads, instead of each
+ * library starting its own. Idle worker threads are stopped after 30 seconds.
+ */
+public class ParallelTasks {
+
+    private static final long IDLE_TIMEOUT_SECONDS = 30;
+
+    private static final Map<PoolKey, ExecutorService> POOLS = new ConcurrentHashMap<>();
+    // The pool running the current thread's task, if any
+    private static final ThreadLocal<ExecutorService> CURRENT_POOL = new ThreadLocal<>();
+
+    /**
+     * Applies the given task to every input, using at most {@code parallelism} threads shared with every other call
+     * of the same thread name and parallelism. If the parallelism is 1 or less, there is only a single input, or the
+     * call is made from a task of the same pool, every task is run on the calling thread.
+     *
+     * @param inputs      The inputs to process
+     * @param parallelism The maximum number of tasks to run at once
+     * @param threadName  The name prefix of the worker threads
+     * @param task        The task to apply to each input
+     * @return The results of every task, in the same order as the inputs
+     * @param <T> The input type
+     * @param <R> The result type
+     */
+    public static <T, R> List<TaskResult<T, R>> runAll(Collection<T> inputs, int parallelism, String threadName, Task<T, R> task) {
+        if (parallelism <= 1 || inputs.size() <= 1) {
+            return runAllOnCaller(inputs, task);
+        }
+
+        var executor = POOLS.computeIfAbsent(new PoolKey(threadName, parallelism), ParallelTasks::createPool);
+
+        // The task would wait for the pool it is running on, which may have no other threads free to run its tasks
+        if (CURRENT_POOL.get() == executor) {
+            return runAllOnCaller(inputs, task);
+        }
+
+        var futures = new ArrayList<Future<TaskResult<T, R>>>(inputs.size());
+
+        try {
+            for (var input : inputs) {
+                futures.add(executor.submit(() -> {
+                    CURRENT_POOL.set(executor);
+
+                    try {
+                        return runTask(input, task);
+                    } finally {
+                        CURRENT_POOL.remove();
+                    }
+                }));
+            }
+
+            var results = new ArrayList<TaskResult<T, R>>(inputs.size());
+            for (var future : futures) {
+                results.add(future.get());
+            }
+
+            return results;
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for tasks to complete", e);
+        } catch (ExecutionException e) { // runTask never throws, so this should never happen
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static <T, R> List<TaskResult<T, R>> runAllOnCaller(Collection<T> inputs, Task<T, R> task) {
+        return inputs.stream().map(input -> runTask(input, task)).toList();
+    }
+
+    private static ExecutorService createPool(PoolKey poolKey) {
+        var threadFactory = Thread.ofPlatform().name(poolKey.threadName() + "-", 0).daemon().factory();
+
+        var executor = new ThreadPoolExecutor(poolKey.parallelism(), poolKey.parallelism(), IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    private static <T, R> TaskResult<T, R> runTask(T input, Task<T, R> task) {
+        try {
+            return TaskResult.success(input, task.apply(input));
+        } catch (Exception e) {
+            return TaskResult.failure(input, e);
+        }
+    }
+
+    /**
+     * A single unit of work that may throw a checked exception.
+     *
+     * @param <T> The input type
+     * @param <R> The result type
+     */
+    @FunctionalInterface
+    public interface Task<T, R> {
+        R apply(T input) throws Exception;
+    }
+
+    private record PoolKey(String threadName, int parallelism) {}
+}
@@ -0,0 +1,25 @@
+package dev.qilletni.docgen.concurrent;
+
+/**
+ * The outcome of a single task run by {@link ParallelTasks}. Exactly one of {@code value} or {@code failure} is set.
+ *
+ * @param input   The input the task was run with
+ * @param value   The value the task returned, or {@code null} if it failed
+ * @param failure The exception thrown by the task, or {@code null} if it succeeded
+ * @param <T> The input type
+ * @param <R> The result type
+ */
+public record TaskResult<T, R>(T input, R value, Exception failure) {
+    
+    public static <T, R> TaskResult<T, R> success(T input, R value) {
+        return new TaskResult<>(input, value, null);
+    }
+    
+    public static <T, R> TaskResult<T, R> failure(T input, Exception failure) {
+        return new TaskResult<>(input, null, failure);
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+}
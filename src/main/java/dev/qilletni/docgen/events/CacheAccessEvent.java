@@ -0,0 +1,35 @@
+package dev.qilletni.docgen.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Reading a library from its cache file, or writing it to one.
+ */
+@Name("dev.qilletni.docgen.CacheAccess")
+@Label("Cache Access")
+@Category({"Qilletni", "Docgen"})
+@Description("A library read from or written to its documentation cache file")
+@StackTrace(false)
+public class CacheAccessEvent extends Event {
+
+    @Label("Library")
+    public String libraryName;
+
+    @Label("Write")
+    @Description("If the cache was written, false if it was read")
+    public boolean write;
+
+    @Label("Documented Files")
+    public int fileCount;
+
+    @Label("Bytes")
+    @Description("The size of the cache file")
+    @DataAmount
+    public long byteCount;
+}
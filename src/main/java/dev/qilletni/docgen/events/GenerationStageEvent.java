@@ -0,0 +1,66 @@
+package dev.qilletni.docgen.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A single stage of generating a library, such as parsing its sources or rendering its entity pages.
+ */
+@Name("dev.qilletni.docgen.GenerationStage")
+@Label("Generation Stage")
+@Category({"Qilletni", "Docgen"})
+@Description("A stage of generating the documentation of a library")
+@StackTrace(false)
+public class GenerationStageEvent extends Event {
+
+    @Label("Library")
+    public String libraryName;
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Items")
+    @Description("The number of source files, pages or index entries processed")
+    public int itemCount;
+
+    @Label("Bytes")
+    @Description("The number of bytes read or written")
+    @DataAmount
+    public long byteCount;
+
+    private GenerationStageEvent(String libraryName, String stage) {
+        this.libraryName = libraryName;
+        this.stage = stage;
+    }
+
+    /**
+     * Starts timing a stage.
+     *
+     * @param libraryName The library being generated
+     * @param stage       The name of the stage
+     * @return The started event
+     */
+    public static GenerationStageEvent begin(String libraryName, String stage) {
+        var event = new GenerationStageEvent(libraryName, stage);
+        event.begin();
+
+        return event;
+    }
+
+    /**
+     * Ends and records the stage, if the event is enabled.
+     *
+     * @param itemCount The number of items processed
+     * @param byteCount The number of bytes read or written
+     */
+    public void end(int itemCount, long byteCount) {
+        this.itemCount = itemCount;
+        this.byteCount = byteCount;
+        commit();
+    }
+}
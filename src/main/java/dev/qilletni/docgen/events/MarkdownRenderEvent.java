@@ -0,0 +1,27 @@
+package dev.qilletni.docgen.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Rendering a single description from markdown to HTML.
+ */
+@Name("dev.qilletni.docgen.MarkdownRender")
+@Label("Markdown Render")
+@Category({"Qilletni", "Docgen"})
+@Description("A description rendered from markdown to HTML")
+@StackTrace(false)
+public class MarkdownRenderEvent extends Event {
+
+    @Label("Markdown Length")
+    @Description("The number of characters of markdown")
+    public int markdownLength;
+
+    @Label("HTML Length")
+    @Description("The number of characters of rendered HTML")
+    public int htmlLength;
+}
@@ -0,0 +1,35 @@
+package dev.qilletni.docgen.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Rendering a single page from its template, and writing it to the output.
+ */
+@Name("dev.qilletni.docgen.PageRender")
+@Label("Page Render")
+@Category({"Qilletni", "Docgen"})
+@Description("A page rendered from a template and written to the output")
+@StackTrace(false)
+public class PageRenderEvent extends Event {
+
+    @Label("Template")
+    public String template;
+
+    @Label("Output File")
+    public String outputFile;
+
+    @Label("Bytes")
+    @Description("The size of the rendered page")
+    @DataAmount
+    public long byteCount;
+
+    @Label("Written")
+    @Description("If the page was written, false if the output already had the same content")
+    public boolean written;
+}
@@ -0,0 +1,154 @@
+package dev.qilletni.docgen.incremental;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import dev.qilletni.docgen.DocGenerator;
+import dev.qilletni.docgen.pages.TemplateEngineProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Records what a library's cache was generated from, stored next to the library's cache file. If the docgen build or
+ * templates differ from the current ones, every page is stale. Otherwise, only source files whose hash differs from
+ * the recorded one need to be parsed again.
+ * <br><br>
+ * The version of docgen is not changed by every build of it, so the build is identified by the hash of the jar or
+ * class directory docgen was loaded from.
+ *
+ * @param docgenVersion       The version of docgen that generated the library
+ * @param buildFingerprint    The hash of the docgen build that generated the library
+ * @param templateFingerprint The hash of all templates the library's pages were rendered with
+ * @param sourceHashes        The content hash of every successfully parsed source file, keyed by import path
+ */
+public record BuildManifest(String docgenVersion, String buildFingerprint, String templateFingerprint, Map<String, String> sourceHashes) {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildManifest.class);
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    
+    private static final String DOCGEN_VERSION = Objects.requireNonNullElse(DocGenerator.class.getPackage().getImplementationVersion(), "development");
+
+    /**
+     * Creates a manifest for the current docgen build and templates.
+     *
+     * @param sourceHashes The content hash of every source file, keyed by import path
+     * @return The created manifest
+     */
+    public static BuildManifest create(Map<String, String> sourceHashes) {
+        return new BuildManifest(DOCGEN_VERSION, Holder.BUILD_FINGERPRINT, Holder.TEMPLATE_FINGERPRINT, new TreeMap<>(sourceHashes));
+    }
+
+    /**
+     * Hashes the given source files.
+     *
+     * @param inputPath   The qilletni-src directory the import paths are relative to
+     * @param importPaths The import paths of the source files to hash
+     * @return The content hash of every file, keyed by import path
+     */
+    public static Map<String, String> hashSources(Path inputPath, List<String> importPaths) throws IOException {
+        var sourceHashes = new TreeMap<String, String>();
+        for (var importPath : importPaths) {
+            sourceHashes.put(importPath, ContentHasher.hashFile(inputPath.resolve(importPath)));
+        }
+        
+        return sourceHashes;
+    }
+
+    /**
+     * Checks if pages rendered with this manifest's docgen build and templates are still valid.
+     *
+     * @return If this manifest was created by the current docgen build and templates
+     */
+    public boolean isCompatible() {
+        return DOCGEN_VERSION.equals(docgenVersion) && Holder.BUILD_FINGERPRINT.equals(buildFingerprint)
+                && Holder.TEMPLATE_FINGERPRINT.equals(templateFingerprint);
+    }
+    
+    public static Path getManifestPath(Path cachePath, String libraryName) {
+        return cachePath.resolve(libraryName + ".manifest.json");
+    }
+
+    /**
+     * Reads a manifest, if it exists and is readable.
+     *
+     * @param manifestPath The path of the manifest
+     * @return The manifest, or empty if there is no valid manifest
+     */
+    public static Optional<BuildManifest> read(Path manifestPath) {
+        if (Files.notExists(manifestPath)) {
+            return Optional.empty();
+        }
+
+        try {
+            var manifestObject = JsonParser.parseString(Files.readString(manifestPath)).getAsJsonObject();
+            
+            var sourceHashes = new TreeMap<String, String>();
+            manifestObject.getAsJsonObject("sourceHashes").entrySet()
+                    .forEach(entry -> sourceHashes.put(entry.getKey(), entry.getValue().getAsString()));
+            
+            // Manifests written before builds were fingerprinted have none, so they are never compatible
+            var buildFingerprint = manifestObject.has("buildFingerprint") ? manifestObject.get("buildFingerprint").getAsString() : "";
+
+            return Optional.of(new BuildManifest(manifestObject.get("docgenVersion").getAsString(), buildFingerprint,
+                    manifestObject.get("templateFingerprint").getAsString(), sourceHashes));
+        } catch (IOException | RuntimeException e) { // Gson reports malformed or missing members as various runtime exceptions
+            LOGGER.warn("Unable to read build manifest {}, ignoring it", manifestPath, e);
+            return Optional.empty();
+        }
+    }
+
+    public void write(Path manifestPath) throws IOException {
+        var sourceHashesObject = new JsonObject();
+        sourceHashes.forEach(sourceHashesObject::addProperty);
+        
+        var manifestObject = new JsonObject();
+        manifestObject.addProperty("docgenVersion", docgenVersion);
+        manifestObject.addProperty("buildFingerprint", buildFingerprint);
+        manifestObject.addProperty("templateFingerprint", templateFingerprint);
+        manifestObject.add("sourceHashes", sourceHashesObject);
+        
+        Files.writeString(manifestPath, gson.toJson(manifestObject));
+    }
+
+    private static class Holder {
+        private static final String BUILD_FINGERPRINT = createBuildFingerprint();
+        private static final String TEMPLATE_FINGERPRINT = createTemplateFingerprint();
+
+        private static String createBuildFingerprint() {
+            var codeSource = DocGenerator.class.getProtectionDomain().getCodeSource();
+            if (codeSource == null || codeSource.getLocation() == null) {
+                LOGGER.warn("Unable to find the location docgen was loaded from, only its version identifies its build");
+                return DOCGEN_VERSION;
+            }
+
+            try {
+                return ContentHasher.hashFileTree(Path.of(codeSource.getLocation().toURI()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (URISyntaxException | RuntimeException e) { // Such as a location that is not on the file system
+                LOGGER.warn("Unable to hash the docgen build at {}, only its version identifies its build", codeSource.getLocation(), e);
+                return DOCGEN_VERSION;
+            }
+        }
+        
+        private static String createTemplateFingerprint() {
+            try {
+                return ContentHasher.hashResources(TemplateEngineProvider.TEMPLATE_RESOURCES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
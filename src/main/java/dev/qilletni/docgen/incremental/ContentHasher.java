@@ -0,0 +1,97 @@
+package dev.qilletni.docgen.incremental;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Creates content hashes of files and resources, used to detect what changed between generation runs.
+ */
+public class ContentHasher {
+
+    private static final String ALGORITHM = "SHA-256";
+
+    /**
+     * Hashes the contents of a file.
+     *
+     * @param file The file to hash
+     * @return The hex-encoded hash of the file
+     */
+    public static String hashFile(Path file) throws IOException {
+        try (var inputStream = Files.newInputStream(file)) {
+            var digest = createDigest();
+            updateDigest(digest, inputStream);
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+
+    /**
+     * Hashes a file, or the relative paths and contents of every file in a directory, in path order.
+     *
+     * @param path The file or directory to hash
+     * @return The hex-encoded hash of the file or directory
+     */
+    public static String hashFileTree(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return hashFile(path);
+        }
+
+        var digest = createDigest();
+
+        try (var walk = Files.walk(path)) {
+            for (var file : walk.filter(Files::isRegularFile).sorted().toList()) {
+                digest.update(path.relativize(file).toString().replace("\\", "/").getBytes());
+
+                try (var inputStream = Files.newInputStream(file)) {
+                    updateDigest(digest, inputStream);
+                }
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Creates a single hash of the contents of all given classpath resources, in order. A missing resource is hashed
+     * as empty.
+     *
+     * @param resourcePaths The absolute resource paths to hash
+     * @return The hex-encoded hash of all resources
+     */
+    public static String hashResources(List<String> resourcePaths) throws IOException {
+        var digest = createDigest();
+        
+        for (var resourcePath : resourcePaths) {
+            digest.update(resourcePath.getBytes());
+            
+            try (var inputStream = ContentHasher.class.getResourceAsStream(resourcePath)) {
+                if (inputStream != null) {
+                    updateDigest(digest, inputStream);
+                }
+            }
+        }
+        
+        return HexFormat.of().formatHex(digest.digest());
+    }
+    
+    private static void updateDigest(MessageDigest digest, InputStream inputStream) throws IOException {
+        var buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) { // Every JVM is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
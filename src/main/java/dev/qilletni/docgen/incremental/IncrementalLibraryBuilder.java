@@ -0,0 +1,285 @@
+package dev.qilletni.docgen.incremental;
+
+import dev.qilletni.api.lang.docs.structure.DocumentedFile;
+import dev.qilletni.api.lang.docs.structure.DocumentedItem;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeEntity;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeFunction;
+import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
+import dev.qilletni.docgen.DocParser;
+import dev.qilletni.docgen.DocParserFactory;
+import dev.qilletni.docgen.GenerationOptions;
+import dev.qilletni.docgen.cache.BasicQllData;
+import dev.qilletni.docgen.cache.CachedDocHandler;
+import dev.qilletni.docgen.cache.serializer.LazyDocumentedFileList;
+import dev.qilletni.docgen.pages.dialects.utility.TypeUtility;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Regenerates a library from only the source files that changed since it was last generated, reusing the rest of the
+ * library from its cache. Only the pages affected by the changed files are rendered again, along with any entity pages
+ * of other libraries the changed files add extension functions to.
+ * <br><br>
+ * If the library was never generated, or was generated by a different docgen version, templates or library info, a
+ * full build is required instead.
+ */
+public class IncrementalLibraryBuilder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalLibraryBuilder.class);
+
+    private final CachedDocHandler cachedDocHandler;
+    private final Path cachePath;
+    private final Path outputPath;
+    private final GenerationOptions options;
+
+    public IncrementalLibraryBuilder(CachedDocHandler cachedDocHandler, Path cachePath, Path outputPath, GenerationOptions options) {
+        this.cachedDocHandler = cachedDocHandler;
+        this.cachePath = cachePath;
+        this.outputPath = outputPath;
+        this.options = options;
+    }
+
+    /**
+     * Writes the build manifest of a fully generated library, so the next generation of it may be incremental.
+     *
+     * @param cachePath The directory containing documentation cache
+     * @param inputPath The qilletni-src directory of the library
+     * @param docParser The parser of the generated library
+     */
+    public static void writeManifest(Path cachePath, Path inputPath, DocParser docParser) throws IOException {
+        var sourceHashes = BuildManifest.hashSources(inputPath, getImportPaths(docParser.getDocumentedFiles()));
+        BuildManifest.create(sourceHashes).write(BuildManifest.getManifestPath(cachePath, docParser.getLibraryName()));
+    }
+
+    /**
+     * Attempts to incrementally regenerate a library.
+     *
+     * @param basicQllData The info of the library being generated
+     * @param inputPath    The qilletni-src directory of the library
+     * @return If the library was regenerated, false if a full build is required
+     * @throws IOException If the library could not be regenerated, or any changed file failed to parse, in which case
+     *                     the rest of the library is still regenerated
+     */
+    public boolean tryBuild(BasicQllData basicQllData, Path inputPath) throws IOException {
+        var libraryName = basicQllData.name();
+
+        var manifestOptional = BuildManifest.read(BuildManifest.getManifestPath(cachePath, libraryName));
+        if (manifestOptional.isEmpty()) {
+            LOGGER.info("No build manifest found for {}, generating all pages", libraryName);
+            return false;
+        }
+
+        var manifest = manifestOptional.get();
+        if (!manifest.isCompatible()) {
+            LOGGER.info("Docgen or its templates changed since {} was generated, generating all pages", libraryName);
+            return false;
+        }
+
+        if (!cachedDocHandler.getOutputSink().exists(outputPath.resolve("library").resolve(libraryName).resolve("index.html"))) {
+            LOGGER.info("No generated pages found for {}, generating all pages", libraryName);
+            return false;
+        }
+
+        var cachedLibraryOptional = cachedDocHandler.readLibrary(libraryName);
+        if (cachedLibraryOptional.isEmpty()) {
+            LOGGER.info("No cache found for {}, generating all pages", libraryName);
+            return false;
+        }
+
+        var cachedLibrary = cachedLibraryOptional.get();
+        if (!cachedLibrary.basicQllData().equals(basicQllData)) {
+            LOGGER.info("Library info of {} changed, generating all pages", libraryName);
+            return false;
+        }
+
+        // Only the cached files that are used are deserialized, so an up to date library reads none of them
+        var cachedFiles = cachedLibrary.documentedFiles();
+        var cachedFileIndices = new HashMap<String, Integer>();
+        for (int i = 0; i < cachedFiles.size(); i++) {
+            cachedFileIndices.put(getImportPath(cachedFiles, i), i);
+        }
+
+        var currentHashes = new TreeMap<String, String>();
+        var changedFiles = new ArrayList<Path>();
+        var staleImportPaths = new HashSet<String>();
+
+        for (var sourceFile : DocParserFactory.findSourceFiles(inputPath)) {
+            var importPath = DocParserFactory.getImportPath(inputPath, sourceFile);
+            var hash = ContentHasher.hashFile(sourceFile);
+            currentHashes.put(importPath, hash);
+
+            if (!hash.equals(manifest.sourceHashes().get(importPath)) || !cachedFileIndices.containsKey(importPath)) {
+                changedFiles.add(sourceFile);
+                staleImportPaths.add(importPath);
+            }
+        }
+
+        var removedImportPaths = new HashSet<>(manifest.sourceHashes().keySet());
+        removedImportPaths.addAll(cachedFileIndices.keySet());
+        removedImportPaths.removeAll(currentHashes.keySet());
+        staleImportPaths.addAll(removedImportPaths);
+
+        if (staleImportPaths.isEmpty()) {
+            LOGGER.info("Docs for library {} are up to date", libraryName);
+            return true;
+        }
+
+        LOGGER.info("Incrementally generating docs for library {}: {} changed and {} removed source file(s)", libraryName, changedFiles.size(), removedImportPaths.size());
+
+        var parsedSources = DocParserFactory.parseSourceFiles(libraryName, inputPath, changedFiles, options.parseThreads());
+        var parsedFiles = parsedSources.documentedFiles();
+
+        // A file whose new version fails to parse keeps its cached version, so its pages are not deleted
+        var failedImportPaths = parsedSources.failures().stream()
+                .map(failure -> DocParserFactory.getImportPath(inputPath, failure.file()))
+                .collect(Collectors.toSet());
+        staleImportPaths.removeAll(failedImportPaths);
+
+        var staleFiles = staleImportPaths.stream().filter(cachedFileIndices::containsKey).map(importPath -> cachedFiles.get(cachedFileIndices.get(importPath))).toList();
+
+        var documentedFiles = new ArrayList<DocumentedFile>(parsedFiles);
+        cachedFileIndices.forEach((importPath, index) -> {
+            if (!staleImportPaths.contains(importPath)) {
+                documentedFiles.add(cachedFiles.get(index));
+            }
+        });
+
+        documentedFiles.sort(Comparator.comparing(IncrementalLibraryBuilder::getImportPath));
+
+        var docParser = DocParser.createInitializedParser(cachedDocHandler, basicQllData, outputPath, documentedFiles, options);
+
+        // Extension functions from the stale files may already be on unchanged entities, so their old versions are
+        // removed and the current ones are added back
+        var parsedOnExtensionDocs = getOnExtensionDocs(parsedFiles);
+        var modifiedEntities = docParser.removeExtendedFunctions(libraryName, staleImportPaths);
+        modifiedEntities.addAll(docParser.addExtendedFunctions(parsedOnExtensionDocs));
+        modifiedEntities.addAll(getEntityNames(parsedFiles));
+
+        var deletedEntities = getEntityNames(staleFiles);
+        deletedEntities.removeAll(docParser.getEntityNames());
+
+        var parsedImportPaths = getImportPaths(parsedFiles);
+        var deletedImportPaths = new HashSet<>(staleImportPaths);
+        parsedImportPaths.forEach(deletedImportPaths::remove);
+
+        docParser.createLibraryIndexPage();
+        if (!cachedFileIndices.keySet().equals(new HashSet<>(getImportPaths(documentedFiles)))) {
+            docParser.createLibraryFilesPage();
+        }
+
+        docParser.deleteEntityPages(deletedEntities);
+        docParser.createEntityPages(modifiedEntities);
+        docParser.deleteSourceFilePages(deletedImportPaths);
+        docParser.createSourceFilePages(parsedImportPaths);
+        docParser.writeToCache();
+        docParser.createSearchIndex();
+
+        // Files that failed to parse keep the hash of their cached version, or are left out if they have none, so they
+        // are parsed again next time
+        var sourceHashes = new TreeMap<String, String>();
+        for (var importPath : getImportPaths(documentedFiles)) {
+            var hash = failedImportPaths.contains(importPath) ? manifest.sourceHashes().get(importPath) : currentHashes.get(importPath);
+            if (hash != null) {
+                sourceHashes.put(importPath, hash);
+            }
+        }
+
+        BuildManifest.create(sourceHashes).write(BuildManifest.getManifestPath(cachePath, libraryName));
+
+        updateExtendedLibraries(libraryName, staleImportPaths, getOnExtensionDocs(staleFiles), parsedOnExtensionDocs);
+
+        if (!parsedSources.failures().isEmpty()) {
+            throw parsedSources.createException(libraryName);
+        }
+
+        return true;
+    }
+
+    /**
+     * Updates the extension functions the stale files of a library added to entities of other libraries, and renders
+     * the pages of the modified entities.
+     *
+     * @param libraryName           The library being generated
+     * @param staleImportPaths      The import paths of the library's changed and removed files
+     * @param staleOnExtensionDocs  The extension functions the stale files previously declared
+     * @param parsedOnExtensionDocs The extension functions the changed files now declare
+     */
+    private void updateExtendedLibraries(String libraryName, Set<String> staleImportPaths, List<DocumentedItem> staleOnExtensionDocs, List<DocumentedItem> parsedOnExtensionDocs) throws IOException {
+        var addedDocsByLibrary = parsedOnExtensionDocs.stream()
+                .collect(Collectors.groupingBy(docItem -> TypeUtility.getOnStatus(docItem).libraryName()));
+
+        var extendedLibraries = new HashSet<>(addedDocsByLibrary.keySet());
+        staleOnExtensionDocs.forEach(docItem -> extendedLibraries.add(TypeUtility.getOnStatus(docItem).libraryName()));
+        extendedLibraries.remove("");
+        extendedLibraries.remove(libraryName);
+
+        for (var extendedLibrary : extendedLibraries) {
+            var docParserOptional = cachedDocHandler.getCachedLibrayDocParser(extendedLibrary);
+            if (docParserOptional.isEmpty()) {
+                LOGGER.debug("Skipping adding functions for library {} as it has no cache file", extendedLibrary);
+                continue;
+            }
+
+            var docParser = docParserOptional.get();
+            var addingDocs = addedDocsByLibrary.getOrDefault(extendedLibrary, List.of());
+
+            var modifiedEntities = docParser.removeExtendedFunctions(libraryName, staleImportPaths);
+            modifiedEntities.addAll(docParser.addExtendedFunctions(addingDocs));
+
+            LOGGER.debug("Updating {} entity page(s) of library {}", modifiedEntities.size(), extendedLibrary);
+            
+            if (!modifiedEntities.isEmpty()) {
+                docParser.createEntityPages(modifiedEntities);
+                docParser.writeToCache();
+            }
+        }
+    }
+
+    private static List<DocumentedItem> getOnExtensionDocs(Collection<DocumentedFile> documentedFiles) {
+        return documentedFiles.stream()
+                .flatMap(documentedFile -> documentedFile.documentedItems().stream())
+                .filter(docItem -> docItem instanceof DocumentedItem(DocumentedTypeFunction documentedTypeFunction, FunctionDoc _)
+                        && documentedTypeFunction.onOptional().isPresent())
+                .toList();
+    }
+
+    private static Set<String> getEntityNames(Collection<DocumentedFile> documentedFiles) {
+        return documentedFiles.stream()
+                .flatMap(documentedFile -> documentedFile.documentedItems().stream())
+                .filter(docItem -> docItem.itemBeingDocumented() instanceof DocumentedTypeEntity)
+                .map(docItem -> ((DocumentedTypeEntity) docItem.itemBeingDocumented()).name())
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private static List<String> getImportPaths(Collection<DocumentedFile> documentedFiles) {
+        return documentedFiles.stream().map(IncrementalLibraryBuilder::getImportPath).toList();
+    }
+
+    /**
+     * Gets the import path of a file in a list, without deserializing it if the list was lazily read from a cache.
+     */
+    private static String getImportPath(List<DocumentedFile> documentedFiles, int index) {
+        if (documentedFiles instanceof LazyDocumentedFileList lazyDocumentedFiles) {
+            return lazyDocumentedFiles.getImportPath(index).replace("\\", "/");
+        }
+        
+        return getImportPath(documentedFiles.get(index));
+    }
+
+    private static String getImportPath(DocumentedFile documentedFile) {
+        return documentedFile.importPath().toString().replace("\\", "/");
+    }
+}
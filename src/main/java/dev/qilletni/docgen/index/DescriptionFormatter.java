@@ -9,6 +9,10 @@ import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
 import dev.qilletni.api.lang.docs.structure.text.inner.InnerDoc;
 import dev.qilletni.docgen.pages.dialects.description.MessageCreator;
 
+/**
+ * Creates plain text descriptions from documentation. This is safe to share between threads, as the markdown parser
+ * is immutable and all other state is local to each call.
+ */
 public class DescriptionFormatter {
     
     private final Parser parser;
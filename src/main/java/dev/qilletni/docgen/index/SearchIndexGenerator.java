@@ -9,6 +9,8 @@ import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeEntityConstructor
 import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeField;
 import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeFunction;
 import dev.qilletni.api.lang.docs.structure.text.inner.EntityDoc;
+import dev.qilletni.docgen.events.GenerationStageEvent;
+import dev.qilletni.docgen.output.OutputSink;
 import dev.qilletni.docgen.pages.dialects.constructor.ConstructorSignatureAttributeTagProcessor;
 import dev.qilletni.docgen.pages.dialects.entity.EntityHrefAttributeTagProcessor;
 import dev.qilletni.docgen.pages.dialects.function.FunctionSignatureAttributeTagProcessor;
@@ -17,7 +19,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -42,11 +45,15 @@ public class SearchIndexGenerator {
         this.descriptionFormatter = new DescriptionFormatter();
     }
 
-    public void generateSearchIndex(Path outputFile) throws IOException {
+    public void generateSearchIndex(OutputSink outputSink, Path outputFile) throws IOException {
         LOGGER.info("Generating search index at {}", outputFile);
         
+        var stageEvent = GenerationStageEvent.begin(libraryName, "search index");
+        
         var indexEntries = createIndexEntries();
-        writeIndexEntries(indexEntries, outputFile);
+        var indexSize = writeIndexEntries(indexEntries, outputSink, outputFile);
+        
+        stageEvent.end(indexEntries.size(), indexSize);
     }
     
     private List<IndexEntry> createIndexEntries() {
@@ -147,8 +154,10 @@ public class SearchIndexGenerator {
         };
     }
     
-    private void writeIndexEntries(List<IndexEntry> indexEntries, Path outputFile) throws IOException {
-        var jsonString = gson.toJson(indexEntries);
-        Files.writeString(outputFile, jsonString);
+    private int writeIndexEntries(List<IndexEntry> indexEntries, OutputSink outputSink, Path outputFile) throws IOException {
+        var jsonBytes = gson.toJson(indexEntries).getBytes(StandardCharsets.UTF_8);
+        outputSink.write(outputFile, ByteBuffer.wrap(jsonBytes));
+        
+        return jsonBytes.length;
     }
 }
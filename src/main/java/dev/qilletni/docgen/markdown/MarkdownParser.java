@@ -9,12 +9,20 @@ import com.vladsch.flexmark.html.renderer.NodeRenderingHandler;
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.data.MutableDataSet;
+import dev.qilletni.docgen.events.MarkdownRenderEvent;
+import dev.qilletni.docgen.metrics.DocgenMetrics;
 import dev.qilletni.docgen.pages.dialects.utility.LinkFactory;
 
 import java.util.Collections;
 import java.util.Set;
 
+/**
+ * Renders description markdown to HTML. Flexmark's {@link Parser} and {@link HtmlRenderer} are immutable once built,
+ * so a single instance may be shared between threads.
+ */
 public class MarkdownParser {
+
+    private static final MarkdownParser SHARED_PARSER = createMarkdownParser();
     
     private final Parser parser;
     private final HtmlRenderer renderer;
@@ -24,6 +32,16 @@ public class MarkdownParser {
         this.renderer = renderer;
     }
 
+    /**
+     * Gets the markdown parser shared by all pages, as building the parser and renderer is far more expensive than
+     * rendering a single description.
+     *
+     * @return The shared markdown parser
+     */
+    public static MarkdownParser getSharedParser() {
+        return SHARED_PARSER;
+    }
+
     public static MarkdownParser createMarkdownParser() {
         var options = new MutableDataSet();
 
@@ -42,8 +60,23 @@ public class MarkdownParser {
     }
     
     public String renderMarkdown(String markdown) {
+        var startNanos = System.nanoTime();
+        var event = new MarkdownRenderEvent();
+        event.begin();
+        
         Node document = parser.parse(markdown);
-        return renderer.render(document);
+        var html = renderer.render(document);
+        
+        DocgenMetrics.MARKDOWN_RENDERS.increment();
+        DocgenMetrics.MARKDOWN_RENDER_SECONDS.recordSince(startNanos);
+        
+        if (event.shouldCommit()) {
+            event.markdownLength = markdown.length();
+            event.htmlLength = html.length();
+            event.commit();
+        }
+        
+        return html;
     }
 
     static class TargetBlankLinkRenderer implements NodeRenderer {
@@ -0,0 +1,34 @@
+package dev.qilletni.docgen.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that only ever increases.
+ */
+public final class Counter implements Metric {
+
+    private final LongAdder count = new LongAdder();
+
+    Counter() {}
+
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Adds to the count.
+     *
+     * @param amount The amount to add, which must not be negative
+     */
+    public void add(long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Counters can not decrease, tried to add " + amount);
+        }
+
+        count.add(amount);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,92 @@
+package dev.qilletni.docgen.metrics;
+
+import dev.qilletni.docgen.output.OutputFiles;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metrics docgen records in {@link MetricsRegistry#global()}. Metrics without labels are recorded through these
+ * fields directly, and labelled metrics through their family's {@link MetricFamily#get(String...)}.
+ */
+public class DocgenMetrics {
+
+    private static final MetricsRegistry REGISTRY = MetricsRegistry.global();
+
+    public static final MetricFamily<Counter> PAGES_RENDERED = REGISTRY.counterFamily("docgen_pages_rendered_total",
+            "Pages rendered, by template and if they were written or unchanged on disk", "template", "result");
+
+    public static final MetricFamily<Histogram> PAGE_RENDER_SECONDS = REGISTRY.timerFamily("docgen_page_render_seconds",
+            "Time taken to render and write a page, by template", "template");
+
+    public static final MetricFamily<Histogram> PAGE_SIZE_BYTES = REGISTRY.histogramFamily("docgen_page_size_bytes",
+            "Size of rendered pages, by template", Histogram.SIZE_BUCKETS, "template");
+
+    public static final Counter MARKDOWN_RENDERS = REGISTRY.counter("docgen_markdown_renders_total", "Markdown descriptions rendered to HTML");
+
+    public static final Timer MARKDOWN_RENDER_SECONDS = REGISTRY.timer("docgen_markdown_render_seconds", "Time taken to render a markdown description");
+
+    public static final Counter FILES_PARSED = REGISTRY.counter("docgen_files_parsed_total", "Source files parsed");
+
+    public static final Counter PARSE_FAILURES = REGISTRY.counter("docgen_parse_failures_total", "Source files that failed to parse");
+
+    public static final Timer FILE_PARSE_SECONDS = REGISTRY.timer("docgen_file_parse_seconds", "Time taken to parse a source file");
+
+    public static final MetricFamily<Counter> CACHE_LOOKUPS = REGISTRY.counterFamily("docgen_cache_lookups_total",
+            "Library cache lookups, by if the library had a cache file", "result");
+
+    public static final Counter CACHE_READ_BYTES = REGISTRY.counter("docgen_cache_read_bytes_total", "Bytes of library cache files read");
+
+    public static final Counter CACHE_WRITTEN_BYTES = REGISTRY.counter("docgen_cache_written_bytes_total", "Bytes of library cache files written");
+
+    public static final Gauge LIBRARIES = REGISTRY.gauge("docgen_libraries", "Libraries in the batch manifest of the last run");
+
+    public static final MetricFamily<Gauge> OUTPUT_FILES = REGISTRY.gaugeFamily("docgen_output_files",
+            "Output files of the last run, by if they were written or unchanged", "result");
+
+    public static final Gauge RUN_DURATION_SECONDS = REGISTRY.gauge("docgen_run_duration_seconds", "Duration of the last run");
+
+    public static final Gauge LAST_RUN_TIMESTAMP_SECONDS = REGISTRY.gauge("docgen_last_run_timestamp_seconds", "Unix time the last run finished at");
+
+    public static final Gauge LAST_RUN_SUCCESS = REGISTRY.gauge("docgen_last_run_success", "1 if the last run succeeded, 0 if it failed");
+
+    private DocgenMetrics() {}
+
+    /**
+     * Records a page that was rendered.
+     *
+     * @param template   The template the page was rendered from
+     * @param startNanos The {@link System#nanoTime()} rendering started at
+     * @param pageSize   The size of the page in bytes
+     * @param written    If the page was written, false if it was unchanged
+     */
+    public static void recordPage(String template, long startNanos, int pageSize, boolean written) {
+        new Timer(PAGE_RENDER_SECONDS.get(template)).recordSince(startNanos);
+        PAGE_SIZE_BYTES.get(template).observe(pageSize);
+        PAGES_RENDERED.get(template, written ? "written" : "unchanged").increment();
+    }
+
+    /**
+     * Records a lookup of a library's cache file.
+     *
+     * @param hit If the library had a cache file
+     */
+    public static void recordCacheLookup(boolean hit) {
+        CACHE_LOOKUPS.get(hit ? "hit" : "miss").increment();
+    }
+
+    /**
+     * Records the outcome of a whole run, which is exported along with everything recorded during it.
+     *
+     * @param startNanos      The {@link System#nanoTime()} the run started at
+     * @param writeStatistics The output files of the run
+     * @param successful      If the run succeeded
+     */
+    public static void recordRun(long startNanos, OutputFiles.WriteStatistics writeStatistics, boolean successful) {
+        RUN_DURATION_SECONDS.set((double) (System.nanoTime() - startNanos) / TimeUnit.SECONDS.toNanos(1));
+        LAST_RUN_TIMESTAMP_SECONDS.set(Instant.now().getEpochSecond());
+        LAST_RUN_SUCCESS.set(successful ? 1 : 0);
+        OUTPUT_FILES.get("written").set(writeStatistics.writtenFiles());
+        OUTPUT_FILES.get("unchanged").set(writeStatistics.skippedFiles());
+    }
+}
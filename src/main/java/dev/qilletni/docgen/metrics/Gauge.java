@@ -0,0 +1,22 @@
+package dev.qilletni.docgen.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A value that is set to the latest measurement.
+ */
+public final class Gauge implements Metric {
+
+    // The bits of a double, as there is no atomic double
+    private final AtomicLong valueBits = new AtomicLong(Double.doubleToLongBits(0));
+
+    Gauge() {}
+
+    public void set(double value) {
+        valueBits.set(Double.doubleToLongBits(value));
+    }
+
+    public double getValue() {
+        return Double.longBitsToDouble(valueBits.get());
+    }
+}
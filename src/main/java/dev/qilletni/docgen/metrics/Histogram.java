@@ -0,0 +1,100 @@
+package dev.qilletni.docgen.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts observed values into fixed buckets, from which percentiles are estimated. Observing a value never allocates
+ * or locks, so it is cheap enough to call for every page.
+ */
+public final class Histogram implements Metric {
+
+    /**
+     * Buckets in seconds, suited to anything from rendering markdown to rendering a large page.
+     */
+    public static final double[] LATENCY_BUCKETS = {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    /**
+     * Buckets in bytes, from 1 KiB to 4 MiB.
+     */
+    public static final double[] SIZE_BUCKETS = {1024, 4096, 16384, 65536, 262144, 1048576, 4194304};
+
+    private final double[] upperBounds;
+    // One more than the bounds, the last counting values above every bound
+    private final LongAdder[] bucketCounts;
+    private final DoubleAdder sum;
+
+    Histogram(double[] upperBounds) {
+        this.upperBounds = upperBounds.clone();
+        Arrays.sort(this.upperBounds);
+
+        this.bucketCounts = new LongAdder[this.upperBounds.length + 1];
+        Arrays.setAll(bucketCounts, _ -> new LongAdder());
+        this.sum = new DoubleAdder();
+    }
+
+    public void observe(double value) {
+        var bucket = Arrays.binarySearch(upperBounds, value);
+        if (bucket < 0) {
+            bucket = -bucket - 1;
+        }
+
+        bucketCounts[bucket].increment();
+        sum.add(value);
+    }
+
+    /**
+     * Takes a snapshot of the histogram. Values observed while the snapshot is taken may or may not be in it.
+     */
+    public Snapshot snapshot() {
+        var counts = new long[bucketCounts.length];
+        Arrays.setAll(counts, i -> bucketCounts[i].sum());
+
+        return new Snapshot(upperBounds.clone(), counts, sum.sum());
+    }
+
+    /**
+     * The buckets of a histogram at one point in time.
+     *
+     * @param upperBounds  The inclusive upper bound of every bucket but the last, in ascending order
+     * @param bucketCounts The number of values in each bucket, not including the values of lower buckets. The last
+     *                     bucket counts values above every bound
+     * @param sum          The sum of every observed value
+     */
+    public record Snapshot(double[] upperBounds, long[] bucketCounts, double sum) {
+
+        public long count() {
+            return Arrays.stream(bucketCounts).sum();
+        }
+
+        /**
+         * Estimates a percentile by interpolating within the bucket it falls in, in the same way as Prometheus's
+         * {@code histogram_quantile}. Percentiles above the highest bound are reported as the highest bound.
+         *
+         * @param percentile The percentile, from 0 to 1
+         * @return The estimated value, or {@link Double#NaN} if nothing was observed
+         */
+        public double percentile(double percentile) {
+            var count = count();
+            if (count == 0) {
+                return Double.NaN;
+            }
+
+            var rank = percentile * count;
+            var cumulativeCount = 0L;
+
+            for (int i = 0; i < upperBounds.length; i++) {
+                var bucketCount = bucketCounts[i];
+                if (bucketCount > 0 && cumulativeCount + bucketCount >= rank) {
+                    var lowerBound = i == 0 ? 0 : upperBounds[i - 1];
+                    return lowerBound + (upperBounds[i] - lowerBound) * (rank - cumulativeCount) / bucketCount;
+                }
+
+                cumulativeCount += bucketCount;
+            }
+
+            return upperBounds.length == 0 ? Double.NaN : upperBounds[upperBounds.length - 1];
+        }
+    }
+}
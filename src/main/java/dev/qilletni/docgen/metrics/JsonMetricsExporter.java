@@ -0,0 +1,110 @@
+package dev.qilletni.docgen.metrics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import dev.qilletni.docgen.output.OutputFiles;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Exports metrics as JSON, for tools that do not read Prometheus's format. Unlike Prometheus's cumulative buckets,
+ * each histogram bucket only counts the values above the previous bucket's bound. Histograms also include their 50th,
+ * 90th and 99th percentiles, estimated from their buckets.
+ */
+public class JsonMetricsExporter {
+
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final List<Integer> PERCENTILES = List.of(50, 90, 99);
+
+    private JsonMetricsExporter() {}
+
+    /**
+     * Writes every metric of a registry to a file.
+     *
+     * @param registry   The registry to export
+     * @param outputFile The JSON file to write
+     */
+    public static void export(MetricsRegistry registry, Path outputFile) throws IOException {
+        Files.createDirectories(outputFile.toAbsolutePath().getParent());
+        OutputFiles.replace(outputFile, ByteBuffer.wrap(gson.toJson(toJson(registry)).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Converts every metric of a registry to JSON.
+     */
+    public static JsonObject toJson(MetricsRegistry registry) {
+        var metrics = new JsonArray();
+
+        for (var family : registry.getFamilies()) {
+            var familyJson = new JsonObject();
+            familyJson.addProperty("name", family.getName());
+            familyJson.addProperty("type", family.getType().getPrometheusName());
+            familyJson.addProperty("help", family.getHelp());
+
+            var samples = new JsonArray();
+            for (var entry : family.getMetrics()) {
+                var sample = new JsonObject();
+
+                var labels = new JsonObject();
+                for (int i = 0; i < family.getLabelNames().size(); i++) {
+                    labels.addProperty(family.getLabelNames().get(i), entry.getKey().get(i));
+                }
+
+                sample.add("labels", labels);
+
+                switch (entry.getValue()) {
+                    case Counter counter -> sample.addProperty("value", counter.getCount());
+                    case Gauge gauge -> sample.add("value", toJson(gauge.getValue()));
+                    case Histogram histogram -> addHistogram(sample, histogram.snapshot());
+                }
+
+                samples.add(sample);
+            }
+
+            familyJson.add("samples", samples);
+            metrics.add(familyJson);
+        }
+
+        var json = new JsonObject();
+        json.addProperty("timestamp", Instant.now().toString());
+        json.add("metrics", metrics);
+
+        return json;
+    }
+
+    private static void addHistogram(JsonObject sample, Histogram.Snapshot snapshot) {
+        sample.addProperty("count", snapshot.count());
+        sample.add("sum", toJson(snapshot.sum()));
+
+        var buckets = new JsonObject();
+        for (int i = 0; i < snapshot.bucketCounts().length; i++) {
+            var upperBound = i < snapshot.upperBounds().length ? PrometheusTextExporter.formatValue(snapshot.upperBounds()[i]) : "+Inf";
+            buckets.addProperty(upperBound, snapshot.bucketCounts()[i]);
+        }
+
+        sample.add("buckets", buckets);
+
+        var percentiles = new JsonObject();
+        for (var percentile : PERCENTILES) {
+            percentiles.add("p" + percentile, toJson(snapshot.percentile(percentile / 100.0)));
+        }
+
+        sample.add("percentiles", percentiles);
+    }
+
+    private static JsonElement toJson(double value) {
+        // JSON has no NaN or infinity
+        return Double.isFinite(value) ? new JsonPrimitive(value) : JsonNull.INSTANCE;
+    }
+}
@@ -0,0 +1,26 @@
+package dev.qilletni.docgen.metrics;
+
+/**
+ * A single labelled value of a {@link MetricFamily}.
+ */
+public sealed interface Metric permits Counter, Gauge, Histogram {
+
+    /**
+     * The types of metric, with the names Prometheus knows them by.
+     */
+    enum Type {
+        COUNTER("counter"),
+        GAUGE("gauge"),
+        HISTOGRAM("histogram");
+
+        private final String prometheusName;
+
+        Type(String prometheusName) {
+            this.prometheusName = prometheusName;
+        }
+
+        public String getPrometheusName() {
+            return prometheusName;
+        }
+    }
+}
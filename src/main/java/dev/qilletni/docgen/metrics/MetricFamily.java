@@ -0,0 +1,78 @@
+package dev.qilletni.docgen.metrics;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Every metric of a single name, one for each combination of label values.
+ *
+ * @param <M> The type of metric
+ */
+public class MetricFamily<M extends Metric> {
+
+    private final String name;
+    private final String help;
+    private final Metric.Type type;
+    private final List<String> labelNames;
+    private final Supplier<M> metricFactory;
+    private final Map<List<String>, M> metrics;
+
+    MetricFamily(String name, String help, Metric.Type type, List<String> labelNames, Supplier<M> metricFactory) {
+        this.name = name;
+        this.help = help;
+        this.type = type;
+        this.labelNames = List.copyOf(labelNames);
+        this.metricFactory = metricFactory;
+        this.metrics = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the metric with the given label values, creating it if it does not exist.
+     *
+     * @param labelValues The value of every label, in the order of {@link #getLabelNames()}
+     * @return The metric
+     */
+    public M get(String... labelValues) {
+        if (labelValues.length != labelNames.size()) {
+            throw new IllegalArgumentException("Metric %s has labels %s, but got %d value(s)".formatted(name, labelNames, labelValues.length));
+        }
+
+        return metrics.computeIfAbsent(List.of(labelValues), _ -> metricFactory.get());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    public Metric.Type getType() {
+        return type;
+    }
+
+    public List<String> getLabelNames() {
+        return labelNames;
+    }
+
+    /**
+     * Gets every metric of the family, sorted by their label values so exports are stable.
+     *
+     * @return The metrics, keyed by their label values
+     */
+    public List<Map.Entry<List<String>, M>> getMetrics() {
+        return metrics.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(labelValues -> String.join("\0", labelValues))))
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    boolean hasDefinition(Metric.Type type, String... labelNames) {
+        return this.type == type && this.labelNames.equals(Arrays.asList(labelNames));
+    }
+}
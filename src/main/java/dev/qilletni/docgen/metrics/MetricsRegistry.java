@@ -0,0 +1,103 @@
+package dev.qilletni.docgen.metrics;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds the counters, gauges, histograms and timers of a run, to be exported once it ends. Registering a metric that
+ * already exists returns the existing one, so callers may register metrics wherever they use them.
+ * <br><br>
+ * Metric names follow Prometheus's conventions, with counters ending in {@code _total} and units as a suffix, such as
+ * {@code _seconds} or {@code _bytes}.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, MetricFamily<?>> families;
+
+    public MetricsRegistry() {
+        this.families = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the registry that docgen records its metrics in.
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public Counter counter(String name, String help) {
+        return counterFamily(name, help).get();
+    }
+
+    public MetricFamily<Counter> counterFamily(String name, String help, String... labelNames) {
+        return register(name, help, Metric.Type.COUNTER, labelNames, Counter::new);
+    }
+
+    public Gauge gauge(String name, String help) {
+        return gaugeFamily(name, help).get();
+    }
+
+    public MetricFamily<Gauge> gaugeFamily(String name, String help, String... labelNames) {
+        return register(name, help, Metric.Type.GAUGE, labelNames, Gauge::new);
+    }
+
+    public Histogram histogram(String name, String help, double[] upperBounds) {
+        return histogramFamily(name, help, upperBounds).get();
+    }
+
+    /**
+     * Registers a family of histograms.
+     *
+     * @param name        The name of the histogram
+     * @param help        A description of what is observed
+     * @param upperBounds The inclusive upper bound of every bucket. Values above every bound are counted separately
+     * @param labelNames  The names of the labels that distinguish the histograms of the family
+     * @return The family
+     */
+    public MetricFamily<Histogram> histogramFamily(String name, String help, double[] upperBounds, String... labelNames) {
+        return register(name, help, Metric.Type.HISTOGRAM, labelNames, () -> new Histogram(upperBounds));
+    }
+
+    /**
+     * Registers a timer, which is a histogram of durations with {@link Histogram#LATENCY_BUCKETS}.
+     *
+     * @param name The name of the timer, which should end in {@code _seconds}
+     * @param help A description of what is timed
+     * @return The timer
+     */
+    public Timer timer(String name, String help) {
+        return new Timer(histogram(name, help, Histogram.LATENCY_BUCKETS));
+    }
+
+    /**
+     * Registers a family of timers, whose {@link Histogram}s are wrapped with {@link Timer#Timer(Histogram)}.
+     */
+    public MetricFamily<Histogram> timerFamily(String name, String help, String... labelNames) {
+        return histogramFamily(name, help, Histogram.LATENCY_BUCKETS, labelNames);
+    }
+
+    /**
+     * Gets every registered family, sorted by name.
+     */
+    public List<MetricFamily<?>> getFamilies() {
+        return families.values().stream()
+                .sorted(Comparator.comparing(MetricFamily::getName))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <M extends Metric> MetricFamily<M> register(String name, String help, Metric.Type type, String[] labelNames, Supplier<M> metricFactory) {
+        var family = families.computeIfAbsent(name, _ -> new MetricFamily<>(name, help, type, List.of(labelNames), metricFactory));
+
+        if (!family.hasDefinition(type, labelNames)) {
+            throw new IllegalArgumentException("Metric %s is already registered as a %s with labels %s".formatted(name, family.getType(), family.getLabelNames()));
+        }
+
+        return (MetricFamily<M>) family;
+    }
+}
@@ -0,0 +1,121 @@
+package dev.qilletni.docgen.metrics;
+
+import dev.qilletni.docgen.output.OutputFiles;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exports metrics in Prometheus's text format, to be picked up by node_exporter's textfile collector. The file is
+ * written to a temporary file and renamed over the existing one, so the collector never reads a partial file.
+ */
+public class PrometheusTextExporter {
+
+    private PrometheusTextExporter() {}
+
+    /**
+     * Writes every metric of a registry to a file.
+     *
+     * @param registry   The registry to export
+     * @param outputFile The file to write, which should end in {@code .prom} for the textfile collector to read it
+     */
+    public static void export(MetricsRegistry registry, Path outputFile) throws IOException {
+        Files.createDirectories(outputFile.toAbsolutePath().getParent());
+        OutputFiles.replace(outputFile, ByteBuffer.wrap(format(registry).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Formats every metric of a registry in Prometheus's text format.
+     */
+    public static String format(MetricsRegistry registry) {
+        var output = new StringBuilder();
+
+        for (var family : registry.getFamilies()) {
+            output.append("# HELP ").append(family.getName()).append(' ').append(escapeHelp(family.getHelp())).append('\n');
+            output.append("# TYPE ").append(family.getName()).append(' ').append(family.getType().getPrometheusName()).append('\n');
+
+            for (var entry : family.getMetrics()) {
+                var labels = formatLabels(family.getLabelNames(), entry.getKey());
+
+                switch (entry.getValue()) {
+                    case Counter counter -> appendSample(output, family.getName(), labels, counter.getCount());
+                    case Gauge gauge -> appendSample(output, family.getName(), labels, gauge.getValue());
+                    case Histogram histogram -> appendHistogram(output, family.getName(), family.getLabelNames(), entry.getKey(), histogram.snapshot());
+                }
+            }
+        }
+
+        return output.toString();
+    }
+
+    private static void appendHistogram(StringBuilder output, String name, List<String> labelNames, List<String> labelValues, Histogram.Snapshot snapshot) {
+        var bucketLabelNames = new ArrayList<>(labelNames);
+        bucketLabelNames.add("le");
+
+        // Prometheus buckets are cumulative, each counting every value up to its bound
+        var cumulativeCount = 0L;
+        for (int i = 0; i < snapshot.bucketCounts().length; i++) {
+            cumulativeCount += snapshot.bucketCounts()[i];
+
+            var upperBound = i < snapshot.upperBounds().length ? formatValue(snapshot.upperBounds()[i]) : "+Inf";
+            var bucketLabelValues = new ArrayList<>(labelValues);
+            bucketLabelValues.add(upperBound);
+
+            appendSample(output, name + "_bucket", formatLabels(bucketLabelNames, bucketLabelValues), cumulativeCount);
+        }
+
+        var labels = formatLabels(labelNames, labelValues);
+        appendSample(output, name + "_sum", labels, snapshot.sum());
+        appendSample(output, name + "_count", labels, cumulativeCount);
+    }
+
+    private static void appendSample(StringBuilder output, String name, String labels, double value) {
+        output.append(name).append(labels).append(' ').append(formatValue(value)).append('\n');
+    }
+
+    private static String formatLabels(List<String> labelNames, List<String> labelValues) {
+        if (labelNames.isEmpty()) {
+            return "";
+        }
+
+        var labels = new StringBuilder("{");
+        for (int i = 0; i < labelNames.size(); i++) {
+            if (i > 0) {
+                labels.append(',');
+            }
+
+            labels.append(labelNames.get(i)).append("=\"").append(escapeLabelValue(labelValues.get(i))).append('"');
+        }
+
+        return labels.append('}').toString();
+    }
+
+    static String formatValue(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+
+        return Double.toString(value);
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String escapeLabelValue(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
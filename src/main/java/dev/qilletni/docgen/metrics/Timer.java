@@ -0,0 +1,33 @@
+package dev.qilletni.docgen.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times operations into a {@link Histogram} of seconds.
+ */
+public final class Timer {
+
+    private final Histogram histogram;
+
+    public Timer(Histogram histogram) {
+        this.histogram = histogram;
+    }
+
+    /**
+     * Records the time since an operation started.
+     *
+     * @param startNanos The {@link System#nanoTime()} the operation started at
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records the duration of an operation.
+     *
+     * @param durationNanos The duration in nanoseconds
+     */
+    public void record(long durationNanos) {
+        histogram.observe((double) durationNanos / TimeUnit.SECONDS.toNanos(1));
+    }
+}
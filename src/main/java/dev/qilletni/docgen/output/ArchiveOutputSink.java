@@ -0,0 +1,84 @@
+package dev.qilletni.docgen.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Streams output files into a single archive as they are written, so a run creates one file instead of a directory of
+ * pages. Entries can not be replaced or removed once written, so every file may only be written once, and an archive
+ * only contains the files written in its run.
+ */
+public abstract class ArchiveOutputSink implements OutputSink {
+
+    private final Path outputPath;
+    private final Set<String> entryNames;
+
+    /**
+     * @param outputPath The output directory the written files are in, which does not need to exist. Entry names are
+     *                   the paths of files relative to it
+     */
+    protected ArchiveOutputSink(Path outputPath) {
+        this.outputPath = outputPath.toAbsolutePath().normalize();
+        this.entryNames = new HashSet<>();
+    }
+
+    @Override
+    public synchronized boolean write(Path outputFile, ByteBuffer content) throws IOException {
+        var entryName = getEntryName(outputFile);
+        if (!entryNames.add(entryName)) {
+            throw new IOException("File was already written to the archive: " + entryName);
+        }
+
+        writeEntry(entryName, content.duplicate());
+        OutputFiles.recordWrite(true);
+
+        return true;
+    }
+
+    @Override
+    public synchronized void delete(Path outputFile) throws IOException {
+        var entryName = getEntryName(outputFile);
+        if (entryNames.contains(entryName)) {
+            throw new IOException("Can not delete a file already written to the archive: " + entryName);
+        }
+    }
+
+    @Override
+    public synchronized boolean exists(Path outputFile) {
+        return entryNames.contains(getEntryName(outputFile));
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return false;
+    }
+
+    /**
+     * Writes a single entry to the archive. Only called by one thread at a time.
+     *
+     * @param entryName The {@code /}-separated path of the entry
+     * @param content   The content of the entry
+     */
+    protected abstract void writeEntry(String entryName, ByteBuffer content) throws IOException;
+
+    /**
+     * Writes the remaining content of a buffer to a stream, without changing the buffer's position.
+     */
+    protected static void writeContent(OutputStream outputStream, ByteBuffer content) throws IOException {
+        if (content.hasArray()) {
+            outputStream.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+        } else {
+            var bytes = new byte[content.remaining()];
+            content.duplicate().get(bytes);
+            outputStream.write(bytes);
+        }
+    }
+
+    private String getEntryName(Path outputFile) {
+        return outputPath.relativize(outputFile.toAbsolutePath().normalize()).toString().replace("\\", "/");
+    }
+}
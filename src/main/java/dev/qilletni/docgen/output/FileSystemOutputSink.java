@@ -0,0 +1,85 @@
+package dev.qilletni.docgen.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * Writes output files directly to the filesystem, skipping files that are unchanged. Directories are created as files
+ * are written to them.
+ * <br><br>
+ * When a file is changed or deleted, its precompressed {@code .gz} sibling from an earlier run with a
+ * {@link GzipOutputSink} is deleted, as a server would otherwise keep serving the compressed old content.
+ */
+public class FileSystemOutputSink implements OutputSink {
+
+    private final boolean replaceFiles;
+
+    /**
+     * Creates a sink writing changed files in place.
+     */
+    public FileSystemOutputSink() {
+        this(false);
+    }
+
+    /**
+     * Creates a sink writing to the filesystem.
+     *
+     * @param replaceFiles If changed files should be written to a new file renamed over the existing one, instead of
+     *                     in place. This is required when files are hard links shared with another directory
+     */
+    public FileSystemOutputSink(boolean replaceFiles) {
+        this.replaceFiles = replaceFiles;
+    }
+
+    @Override
+    public boolean write(Path outputFile, ByteBuffer content) throws IOException {
+        var parent = outputFile.toAbsolutePath().getParent();
+        if (!Files.isDirectory(parent)) {
+            Files.createDirectories(parent);
+        }
+
+        var written = replaceFiles ? OutputFiles.replace(outputFile, content) : OutputFiles.write(outputFile, content);
+        if (written) {
+            deleteCompressed(outputFile);
+        }
+
+        return written;
+    }
+
+    @Override
+    public void delete(Path outputFile) throws IOException {
+        deleteCompressed(outputFile);
+        Files.deleteIfExists(outputFile);
+    }
+
+    @Override
+    public boolean exists(Path outputFile) {
+        return Files.exists(outputFile);
+    }
+
+    @Override
+    public boolean isAtLeastAsNew(Path outputFile, Path otherFile) throws IOException {
+        try {
+            return Files.getLastModifiedTime(outputFile).compareTo(Files.getLastModifiedTime(otherFile)) >= 0;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static void deleteCompressed(Path outputFile) throws IOException {
+        if (!GzipOutputSink.isCompressedFile(outputFile)) {
+            Files.deleteIfExists(GzipOutputSink.getCompressedFile(outputFile));
+        }
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+
+    @Override
+    public void close() {}
+}
@@ -0,0 +1,201 @@
+package dev.qilletni.docgen.output;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes files to another sink along with a precompressed {@code .gz} sibling, for nginx's {@code gzip_static}. Only
+ * HTML, JSON, CSS and JS files of at least {@link #MIN_COMPRESSED_SIZE} bytes are compressed, and only if compressing
+ * them makes them smaller.
+ * <br><br>
+ * Files are compressed on a separate pool of threads, so rendering continues while pages are compressed. A file that
+ * was unchanged in the backing sink is only compressed again if its sibling is missing or older than it, such as after
+ * a run without compression changed the file.
+ */
+public class GzipOutputSink implements OutputSink {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GzipOutputSink.class);
+
+    /**
+     * Files smaller than this gain too little from being compressed for the extra file to be worth it.
+     */
+    public static final int MIN_COMPRESSED_SIZE = 1024;
+
+    private static final List<String> COMPRESSED_EXTENSIONS = List.of(".html", ".json", ".css", ".js");
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final int LOCK_COUNT = 64;
+
+    private final OutputSink backingSink;
+    private final ExecutorService compressionExecutor;
+    // The latest write of every file, so a slow compression of an older version never replaces a newer one
+    private final Map<Path, Long> latestWrites;
+    private final AtomicLong writeCounter;
+    private final Object[] locks;
+    private final List<Exception> failures;
+
+    /**
+     * Creates a sink compressing files written to another sink.
+     *
+     * @param backingSink        The sink to write files and their compressed siblings to
+     * @param compressionThreads The number of threads to compress files with
+     */
+    public GzipOutputSink(OutputSink backingSink, int compressionThreads) {
+        this.backingSink = backingSink;
+        this.compressionExecutor = Executors.newFixedThreadPool(compressionThreads, Thread.ofPlatform().name("docgen-compression-", 0).daemon().factory());
+        this.latestWrites = new ConcurrentHashMap<>();
+        this.writeCounter = new AtomicLong();
+        this.locks = new Object[LOCK_COUNT];
+        Arrays.setAll(locks, _ -> new Object());
+        this.failures = new CopyOnWriteArrayList<>();
+    }
+
+    @Override
+    public boolean write(Path outputFile, ByteBuffer content) throws IOException {
+        var written = backingSink.write(outputFile, content);
+
+        var compressedFile = getCompressedFile(outputFile);
+        if (!isCompressible(outputFile, content.remaining())) {
+            deleteCompressed(outputFile, compressedFile);
+            return written;
+        }
+
+        if (!written && backingSink.isAtLeastAsNew(compressedFile, outputFile)) {
+            return false;
+        }
+
+        var bytes = new byte[content.remaining()];
+        content.duplicate().get(bytes);
+
+        var writeId = writeCounter.incrementAndGet();
+        latestWrites.put(outputFile, writeId);
+
+        compressionExecutor.execute(() -> {
+            try {
+                writeCompressed(outputFile, compressedFile, writeId, bytes.length, compress(bytes));
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Failed to compress {}", outputFile, e);
+                failures.add(e);
+            }
+        });
+
+        return written;
+    }
+
+    private void writeCompressed(Path outputFile, Path compressedFile, long writeId, int originalSize, byte[] compressed) throws IOException {
+        synchronized (getLock(outputFile)) {
+            if (!latestWrites.remove(outputFile, writeId)) {
+                return;
+            }
+
+            if (compressed.length < originalSize) {
+                // An unchanged sibling older than its file would be compressed again every run, so it is replaced
+                if (!backingSink.write(compressedFile, ByteBuffer.wrap(compressed)) && !backingSink.isAtLeastAsNew(compressedFile, outputFile)) {
+                    backingSink.delete(compressedFile);
+                    backingSink.write(compressedFile, ByteBuffer.wrap(compressed));
+                }
+            } else if (backingSink.exists(compressedFile)) {
+                backingSink.delete(compressedFile);
+            }
+        }
+    }
+
+    private void deleteCompressed(Path outputFile, Path compressedFile) throws IOException {
+        synchronized (getLock(outputFile)) {
+            // Any compression still running is of an older version of the file
+            latestWrites.remove(outputFile);
+
+            if (backingSink.exists(compressedFile)) {
+                backingSink.delete(compressedFile);
+            }
+        }
+    }
+
+    @Override
+    public void delete(Path outputFile) throws IOException {
+        deleteCompressed(outputFile, getCompressedFile(outputFile));
+        backingSink.delete(outputFile);
+    }
+
+    @Override
+    public boolean exists(Path outputFile) throws IOException {
+        return backingSink.exists(outputFile);
+    }
+
+    @Override
+    public boolean isAtLeastAsNew(Path outputFile, Path otherFile) throws IOException {
+        return backingSink.isAtLeastAsNew(outputFile, otherFile);
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return backingSink.isPersistent();
+    }
+
+    /**
+     * Waits for every file to be compressed, then closes the backing sink.
+     *
+     * @throws IOException If any file failed to be compressed or written, with each failure attached as a suppressed
+     *                     exception
+     */
+    @Override
+    public void close() throws IOException {
+        compressionExecutor.close();
+
+        try (backingSink) {
+            if (!failures.isEmpty()) {
+                var exception = new IOException("Failed to compress %d file(s)".formatted(failures.size()));
+                failures.forEach(exception::addSuppressed);
+
+                throw exception;
+            }
+        }
+    }
+
+    private static boolean isCompressible(Path outputFile, int size) {
+        var fileName = outputFile.getFileName().toString();
+        return size >= MIN_COMPRESSED_SIZE && COMPRESSED_EXTENSIONS.stream().anyMatch(fileName::endsWith);
+    }
+
+    static Path getCompressedFile(Path outputFile) {
+        return outputFile.resolveSibling(outputFile.getFileName() + GZIP_EXTENSION);
+    }
+
+    static boolean isCompressedFile(Path outputFile) {
+        return outputFile.getFileName().toString().endsWith(GZIP_EXTENSION);
+    }
+
+    private static byte[] compress(byte[] content) throws IOException {
+        var compressed = new ByteArrayOutputStream(content.length / 4);
+
+        // Files are compressed once and served many times, so the best compression is worth its time
+        try (OutputStream gzipOutputStream = new GZIPOutputStream(compressed) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            gzipOutputStream.write(content);
+        }
+
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Gets the lock for writing the compressed sibling of a file. Files share a fixed set of locks, which only makes
+     * unrelated files occasionally wait on each other.
+     */
+    private Object getLock(Path outputFile) {
+        return locks[Math.floorMod(outputFile.hashCode(), locks.length)];
+    }
+}
@@ -0,0 +1,113 @@
+package dev.qilletni.docgen.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps output files in memory, keyed by their {@code /}-separated path relative to the output directory. Files may
+ * also be written through to a backing sink, so they can be served from memory while still being persisted.
+ */
+public class InMemoryOutputSink implements OutputSink {
+
+    private final Path outputPath;
+    private final OutputSink backingSink;
+    private final Map<String, byte[]> files;
+
+    /**
+     * Creates a sink only keeping files in memory.
+     *
+     * @param outputPath The output directory the written files are in
+     */
+    public InMemoryOutputSink(Path outputPath) {
+        this(outputPath, null);
+    }
+
+    /**
+     * Creates a sink keeping files in memory, and also writing them to another sink.
+     *
+     * @param outputPath  The output directory the written files are in
+     * @param backingSink The sink to also write files to, or null to only keep them in memory
+     */
+    public InMemoryOutputSink(Path outputPath, OutputSink backingSink) {
+        this.outputPath = outputPath.toAbsolutePath().normalize();
+        this.backingSink = backingSink;
+        this.files = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public boolean write(Path outputFile, ByteBuffer content) throws IOException {
+        var bytes = new byte[content.remaining()];
+        content.duplicate().get(bytes);
+
+        var previousBytes = files.put(getRelativePath(outputFile), bytes);
+
+        if (backingSink != null) {
+            return backingSink.write(outputFile, content);
+        }
+
+        var written = !Arrays.equals(bytes, previousBytes);
+        OutputFiles.recordWrite(written);
+
+        return written;
+    }
+
+    @Override
+    public void delete(Path outputFile) throws IOException {
+        files.remove(getRelativePath(outputFile));
+
+        if (backingSink != null) {
+            backingSink.delete(outputFile);
+        }
+    }
+
+    @Override
+    public boolean exists(Path outputFile) throws IOException {
+        return files.containsKey(getRelativePath(outputFile)) || (backingSink != null && backingSink.exists(outputFile));
+    }
+
+    @Override
+    public boolean isAtLeastAsNew(Path outputFile, Path otherFile) throws IOException {
+        return backingSink != null && backingSink.isAtLeastAsNew(outputFile, otherFile);
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return backingSink != null && backingSink.isPersistent();
+    }
+
+    /**
+     * Gets a file written to this sink. Files only in the backing sink are not read.
+     *
+     * @param outputFile The path of the file in the output directory
+     * @return The content of the file, if it was written
+     */
+    public Optional<byte[]> getFile(Path outputFile) {
+        return Optional.ofNullable(files.get(getRelativePath(outputFile)));
+    }
+
+    /**
+     * Gets every file written to this sink.
+     *
+     * @return The content of every file, sorted by their relative path
+     */
+    public Map<String, byte[]> getFiles() {
+        return new TreeMap<>(files);
+    }
+
+    private String getRelativePath(Path outputFile) {
+        return outputPath.relativize(outputFile.toAbsolutePath().normalize()).toString().replace("\\", "/");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (backingSink != null) {
+            backingSink.close();
+        }
+    }
+}
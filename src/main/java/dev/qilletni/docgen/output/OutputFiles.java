@@ -0,0 +1,160 @@
+package dev.qilletni.docgen.output;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes generated output files, skipping any file whose content on disk is already identical. Unchanged files keep
+ * their modification times, so syncing the output directory only transfers what actually changed.
+ * <br><br>
+ * Existing files are compared directly instead of by a stored hash, as a file of a different size is never read, and
+ * reading one of the same size costs about as much as hashing the new content would.
+ */
+public class OutputFiles {
+
+    private static final LongAdder WRITTEN_FILES = new LongAdder();
+    private static final LongAdder SKIPPED_FILES = new LongAdder();
+
+    private OutputFiles() {}
+
+    /**
+     * Writes the remaining bytes of a buffer to a file, unless the file already has the same content. The buffer's
+     * position is not changed.
+     *
+     * @param outputFile The file to write
+     * @param content    The content of the file
+     * @return If the file was written, false if it was unchanged
+     */
+    public static boolean write(Path outputFile, ByteBuffer content) throws IOException {
+        if (hasContent(outputFile, content)) {
+            recordWrite(false);
+            return false;
+        }
+
+        writeContent(outputFile, content);
+
+        recordWrite(true);
+        return true;
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer to a new file, then renames it over the existing file, unless the file
+     * already has the same content. Unlike {@link #write(Path, ByteBuffer)}, the existing file is never modified, so
+     * other hard links to it keep their content, and readers never see a partially written file.
+     *
+     * @param outputFile The file to write
+     * @param content    The content of the file
+     * @return If the file was written, false if it was unchanged
+     */
+    public static boolean replace(Path outputFile, ByteBuffer content) throws IOException {
+        if (hasContent(outputFile, content)) {
+            recordWrite(false);
+            return false;
+        }
+
+        var temporaryFile = outputFile.resolveSibling(".%s.%d.tmp".formatted(outputFile.getFileName(), Thread.currentThread().threadId()));
+
+        try {
+            writeContent(temporaryFile, content);
+            Files.move(temporaryFile, outputFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+
+        recordWrite(true);
+        return true;
+    }
+
+    /**
+     * Writes bytes to a file, unless the file already has the same content.
+     *
+     * @param outputFile The file to write
+     * @param content    The content of the file
+     * @return If the file was written, false if it was unchanged
+     */
+    public static boolean write(Path outputFile, byte[] content) throws IOException {
+        return write(outputFile, ByteBuffer.wrap(content));
+    }
+
+    /**
+     * Writes the full contents of a stream to a file, unless the file already has the same content.
+     *
+     * @param outputFile  The file to write
+     * @param inputStream The stream to read the content from
+     * @return If the file was written, false if it was unchanged
+     */
+    public static boolean write(Path outputFile, InputStream inputStream) throws IOException {
+        return write(outputFile, inputStream.readAllBytes());
+    }
+
+    /**
+     * Gets the number of files written and skipped by this JVM so far. Taking the difference of two snapshots gives
+     * the counts of a single run.
+     */
+    public static WriteStatistics getStatistics() {
+        return new WriteStatistics(WRITTEN_FILES.sum(), SKIPPED_FILES.sum());
+    }
+
+    /**
+     * Counts a file written or skipped by a sink that does not write through this class.
+     */
+    static void recordWrite(boolean written) {
+        if (written) {
+            WRITTEN_FILES.increment();
+        } else {
+            SKIPPED_FILES.increment();
+        }
+    }
+
+    private static void writeContent(Path file, ByteBuffer content) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var byteBuffer = content.duplicate();
+            while (byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer);
+            }
+        }
+    }
+
+    private static boolean hasContent(Path file, ByteBuffer content) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != content.remaining()) {
+                return false;
+            }
+
+            var existingContent = ByteBuffer.allocate(content.remaining());
+            while (existingContent.hasRemaining()) {
+                if (channel.read(existingContent) == -1) {
+                    return false;
+                }
+            }
+
+            return existingContent.flip().equals(content);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Counts of output files.
+     *
+     * @param writtenFiles The number of files that were written
+     * @param skippedFiles The number of files that were not written, as they were unchanged
+     */
+    public record WriteStatistics(long writtenFiles, long skippedFiles) {
+
+        /**
+         * Gets the counts since an earlier snapshot.
+         */
+        public WriteStatistics since(WriteStatistics earlier) {
+            return new WriteStatistics(writtenFiles - earlier.writtenFiles, skippedFiles - earlier.skippedFiles);
+        }
+    }
+}
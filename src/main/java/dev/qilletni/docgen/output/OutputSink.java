@@ -0,0 +1,65 @@
+package dev.qilletni.docgen.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Where generated output files are written to. Files are always addressed by their path in the output directory, so
+ * the same generation code can write to the filesystem, to memory or into an archive.
+ * <br><br>
+ * Implementations must be thread-safe, as pages are written from multiple rendering threads.
+ */
+public interface OutputSink extends AutoCloseable {
+
+    /**
+     * Writes a file, replacing it if it was already written.
+     *
+     * @param outputFile The path of the file in the output directory
+     * @param content    The content of the file, from its position to its limit. It is only valid during the call, and
+     *                   its position is not changed
+     * @return If the file was written, false if it already had the same content
+     */
+    boolean write(Path outputFile, ByteBuffer content) throws IOException;
+
+    /**
+     * Deletes a previously written file, if it exists.
+     *
+     * @param outputFile The path of the file in the output directory
+     */
+    void delete(Path outputFile) throws IOException;
+
+    /**
+     * Checks if a file exists in the output, from this or an earlier run.
+     *
+     * @param outputFile The path of the file in the output directory
+     * @return If the file exists
+     */
+    boolean exists(Path outputFile) throws IOException;
+
+    /**
+     * Checks if a file was last written no earlier than another file, from this or an earlier run.
+     *
+     * @param outputFile The path of the file in the output directory
+     * @param otherFile  The path of the file to compare it to
+     * @return If both files exist and the file is at least as new, false if either does not exist or this sink does
+     * not know when its files were written
+     */
+    default boolean isAtLeastAsNew(Path outputFile, Path otherFile) throws IOException {
+        return false;
+    }
+
+    /**
+     * Checks if files written to this sink are still there in later runs. Only then can a library be incrementally
+     * generated, as unchanged pages are not written again.
+     *
+     * @return If the output persists between runs
+     */
+    boolean isPersistent();
+
+    /**
+     * Finishes writing the output. No files may be written afterward.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,187 @@
+package dev.qilletni.docgen.output;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+
+/**
+ * Generates documentation into a staging directory, and publishes it all at once. The output path becomes a symbolic
+ * link to the live generation, which lives in a sibling {@code .<output name>-generations} directory:
+ * <ol>
+ *     <li>{@link #stage(Path)} creates a new generation, with every file of the live generation hard linked into it,
+ *     so unchanged files are neither copied nor written again</li>
+ *     <li>Documentation is generated into {@link #getStagingPath()} with a {@link FileSystemOutputSink} replacing
+ *     files, so changed files never modify the hard linked files of the live generation</li>
+ *     <li>{@link #publish()} atomically points the output path at the new generation</li>
+ *     <li>{@link #collectGarbage(Duration)} deletes generations that have not been live for the grace period, leaving
+ *     time for requests to the old generation to finish</li>
+ * </ol>
+ * The server must follow the output path for every request, and the link is relative so the output path's parent
+ * directory may be mounted elsewhere, as {@code docker-compose.staged.yml} does.
+ * <br><br>
+ * Incremental generation should only be used if every staged generation is published, as the build manifests of a
+ * discarded generation would describe pages that were never published.
+ */
+public class StagedOutput {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StagedOutput.class);
+
+    public static final Duration DEFAULT_GRACE_PERIOD = Duration.ofMinutes(10);
+
+    // Generation names sort in the order they were created
+    private static final DateTimeFormatter GENERATION_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
+    private final Path outputPath;
+    private final Path generationsPath;
+    private final Path stagingPath;
+
+    private StagedOutput(Path outputPath, Path generationsPath, Path stagingPath) {
+        this.outputPath = outputPath;
+        this.generationsPath = generationsPath;
+        this.stagingPath = stagingPath;
+    }
+
+    /**
+     * Creates a new staging generation for an output path, with every file of the live generation linked into it.
+     *
+     * @param outputPath The path documentation is published at. If it is a directory instead of a link to a
+     *                   generation, it is used as the live generation, and is moved into the generations directory
+     *                   when publishing
+     * @return The staged output
+     */
+    public static StagedOutput stage(Path outputPath) throws IOException {
+        var absoluteOutputPath = outputPath.toAbsolutePath().normalize();
+        var generationsPath = absoluteOutputPath.resolveSibling(".%s-generations".formatted(absoluteOutputPath.getFileName()));
+
+        var stagingPath = generationsPath.resolve(GENERATION_NAME_FORMAT.format(Instant.now()));
+        Files.createDirectories(stagingPath);
+
+        var stagedOutput = new StagedOutput(absoluteOutputPath, generationsPath, stagingPath);
+
+        if (Files.isDirectory(absoluteOutputPath)) {
+            var linkedFiles = stagedOutput.linkTree(absoluteOutputPath.toRealPath());
+            LOGGER.info("Staging generation {} with {} file(s) linked from the live generation", stagingPath.getFileName(), linkedFiles);
+        } else {
+            LOGGER.info("Staging generation {}", stagingPath.getFileName());
+        }
+
+        return stagedOutput;
+    }
+
+    /**
+     * Gets the directory the generation should be written to.
+     */
+    public Path getStagingPath() {
+        return stagingPath;
+    }
+
+    /**
+     * Makes the staged generation live. The previous generation is kept until it is garbage collected.
+     */
+    public void publish() throws IOException {
+        var previousGeneration = Files.isSymbolicLink(outputPath) ? outputPath.toRealPath() : null;
+
+        if (!Files.isSymbolicLink(outputPath) && Files.isDirectory(outputPath)) {
+            // A directory can not be atomically replaced by a link, so it is briefly missing while it is moved
+            LOGGER.warn("Moving existing output directory {} into {}, it is unavailable until the link is created", outputPath, generationsPath);
+
+            previousGeneration = generationsPath.resolve(stagingPath.getFileName() + "-previous");
+            Files.move(outputPath, previousGeneration);
+        }
+
+        var temporaryLink = outputPath.resolveSibling(".%s.%s.link".formatted(outputPath.getFileName(), stagingPath.getFileName()));
+        Files.deleteIfExists(temporaryLink);
+        Files.createSymbolicLink(temporaryLink, outputPath.getParent().relativize(stagingPath));
+
+        // Renaming a link over another is atomic, so every request sees either the previous or the new generation
+        Files.move(temporaryLink, outputPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (previousGeneration != null) {
+            // The modification time of a generation's directory marks when it stopped being live
+            Files.setLastModifiedTime(previousGeneration, FileTime.from(Instant.now()));
+        }
+
+        LOGGER.info("Published generation {}", stagingPath.getFileName());
+    }
+
+    /**
+     * Deletes the staged generation without publishing it.
+     */
+    public void discard() throws IOException {
+        LOGGER.info("Discarding generation {}", stagingPath.getFileName());
+        deleteTree(stagingPath);
+    }
+
+    /**
+     * Deletes every generation that is neither live nor staged, and stopped being live at least the grace period ago.
+     *
+     * @param gracePeriod How long requests may still be reading a generation after it stopped being live
+     */
+    public void collectGarbage(Duration gracePeriod) throws IOException {
+        var livePath = Files.exists(outputPath) ? outputPath.toRealPath() : null;
+        var cutoff = Instant.now().minus(gracePeriod);
+
+        try (var generations = Files.list(generationsPath)) {
+            for (var generation : generations.filter(Files::isDirectory).toList()) {
+                var realGeneration = generation.toRealPath();
+                if (realGeneration.equals(livePath) || realGeneration.equals(stagingPath.toRealPath())) {
+                    continue;
+                }
+
+                if (Files.getLastModifiedTime(generation).toInstant().isBefore(cutoff)) {
+                    LOGGER.info("Deleting old generation {}", generation.getFileName());
+                    deleteTree(generation);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hard links every file in a directory tree into the staging directory, copying it if it can not be linked.
+     *
+     * @return The number of files linked or copied
+     */
+    private int linkTree(Path livePath) throws IOException {
+        var linkedFiles = 0;
+
+        try (var files = Files.walk(livePath)) {
+            for (var file : files.toList()) {
+                var stagedFile = stagingPath.resolve(livePath.relativize(file).toString());
+
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(stagedFile);
+                    continue;
+                }
+
+                try {
+                    Files.createLink(stagedFile, file);
+                } catch (UnsupportedOperationException | FileSystemException e) {
+                    Files.copy(file, stagedFile, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+
+                linkedFiles++;
+            }
+        }
+
+        return linkedFiles;
+    }
+
+    private static void deleteTree(Path path) throws IOException {
+        try (var files = Files.walk(path)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package dev.qilletni.docgen.output;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams output files into a ustar tar archive, which is gzipped if the archive's name ends in {@code .gz} or
+ * {@code .tgz}.
+ */
+public class TarOutputSink extends ArchiveOutputSink {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int MAX_PREFIX_LENGTH = 155;
+
+    private final OutputStream outputStream;
+    // Every entry gets the time the run started, as a file's modification time is meaningless inside the archive
+    private final long entryTime;
+
+    /**
+     * Creates a sink writing to a new tar archive, replacing it if it exists.
+     *
+     * @param outputPath  The output directory the written files are in, which does not need to exist
+     * @param archiveFile The archive to create
+     */
+    public TarOutputSink(Path outputPath, Path archiveFile) throws IOException {
+        super(outputPath);
+
+        var parent = archiveFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+
+        OutputStream fileOutputStream = new BufferedOutputStream(Files.newOutputStream(archiveFile));
+
+        var fileName = archiveFile.getFileName().toString();
+        if (fileName.endsWith(".gz") || fileName.endsWith(".tgz")) {
+            fileOutputStream = new GZIPOutputStream(fileOutputStream, 64 * 1024);
+        }
+
+        this.outputStream = fileOutputStream;
+        this.entryTime = System.currentTimeMillis() / 1000;
+    }
+
+    @Override
+    protected void writeEntry(String entryName, ByteBuffer content) throws IOException {
+        outputStream.write(createHeader(entryName, content.remaining()));
+        writeContent(outputStream, content);
+
+        var padding = (BLOCK_SIZE - content.remaining() % BLOCK_SIZE) % BLOCK_SIZE;
+        outputStream.write(new byte[padding]);
+    }
+
+    private byte[] createHeader(String entryName, long size) throws IOException {
+        var header = new byte[BLOCK_SIZE];
+
+        if (getLength(entryName) > MAX_NAME_LENGTH) {
+            // Long names are split on a directory separator into the prefix field, leaving the rest in the name field.
+            // The longest prefix that fits leaves the most room for the name
+            var separatorIndex = entryName.lastIndexOf('/');
+            while (separatorIndex > 0 && getLength(entryName.substring(0, separatorIndex)) > MAX_PREFIX_LENGTH) {
+                separatorIndex = entryName.lastIndexOf('/', separatorIndex - 1);
+            }
+
+            if (separatorIndex <= 0 || getLength(entryName.substring(separatorIndex + 1)) > MAX_NAME_LENGTH) {
+                throw new IOException("Path is too long for a tar archive: " + entryName);
+            }
+
+            putString(header, 345, entryName.substring(0, separatorIndex));
+            putString(header, 0, entryName.substring(separatorIndex + 1));
+        } else {
+            putString(header, 0, entryName);
+        }
+
+        putOctal(header, 100, 8, 0644);
+        putOctal(header, 108, 8, 0);
+        putOctal(header, 116, 8, 0);
+        putOctal(header, 124, 12, size);
+        putOctal(header, 136, 12, entryTime);
+        header[156] = '0';
+        putString(header, 257, "ustar");
+        putString(header, 263, "00");
+
+        // The checksum is calculated with the checksum field itself filled with spaces
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        var checksum = 0L;
+        for (var b : header) {
+            checksum += b & 0xFF;
+        }
+
+        putOctal(header, 148, 7, checksum);
+
+        return header;
+    }
+
+    /**
+     * Gets the length of a string in the header, which is in UTF-8 bytes rather than characters.
+     */
+    private static int getLength(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(byte[] header, int offset, String value) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+
+    /**
+     * Puts a zero-padded octal number ending in a NUL into a field.
+     */
+    private static void putOctal(byte[] header, int offset, int length, long value) {
+        var octal = Long.toOctalString(value);
+        putString(header, offset, "0".repeat(length - 1 - octal.length()) + octal);
+        header[offset + length - 1] = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try (outputStream) {
+            // An archive ends with two empty blocks
+            outputStream.write(new byte[BLOCK_SIZE * 2]);
+        }
+    }
+}
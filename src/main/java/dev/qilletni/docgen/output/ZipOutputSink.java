@@ -0,0 +1,51 @@
+package dev.qilletni.docgen.output;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams output files into a ZIP archive.
+ */
+public class ZipOutputSink extends ArchiveOutputSink {
+
+    private final ZipOutputStream zipOutputStream;
+    // Every entry gets the time the run started, as a file's modification time is meaningless inside the archive
+    private final FileTime entryTime;
+
+    /**
+     * Creates a sink writing to a new ZIP archive, replacing it if it exists.
+     *
+     * @param outputPath  The output directory the written files are in, which does not need to exist
+     * @param archiveFile The archive to create
+     */
+    public ZipOutputSink(Path outputPath, Path archiveFile) throws IOException {
+        super(outputPath);
+
+        var parent = archiveFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+
+        this.zipOutputStream = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(archiveFile)));
+        this.entryTime = FileTime.fromMillis(System.currentTimeMillis());
+    }
+
+    @Override
+    protected void writeEntry(String entryName, ByteBuffer content) throws IOException {
+        var zipEntry = new ZipEntry(entryName);
+        zipEntry.setLastModifiedTime(entryTime);
+
+        zipOutputStream.putNextEntry(zipEntry);
+        writeContent(zipOutputStream, content);
+        zipOutputStream.closeEntry();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        zipOutputStream.close();
+    }
+}
@@ -1,14 +1,17 @@
 package dev.qilletni.docgen.pages;
 
+import dev.qilletni.docgen.GenerationOptions;
 import dev.qilletni.docgen.cache.BasicQllData;
 import dev.qilletni.docgen.cache.serializer.DocumentationDeserializer;
-import dev.qilletni.docgen.pages.dialects.link.LinkDialect;
+import dev.qilletni.docgen.concurrent.ParallelTasks;
+import dev.qilletni.docgen.concurrent.TaskResult;
+import dev.qilletni.docgen.output.FileSystemOutputSink;
+import dev.qilletni.docgen.output.OutputSink;
 import dev.qilletni.docgen.pages.dialects.utility.AnchorFactory;
-import org.thymeleaf.TemplateEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.thymeleaf.context.Context;
-import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -17,56 +20,80 @@ import java.util.List;
 
 public class GlobalIndexPageGenerator {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(GlobalIndexPageGenerator.class);
+
+    public static final String INDEX_TEMPLATE = "templates/index.html";
 
     private final Path cachePath;
     private final Path outputPath;
+    private final OutputSink outputSink;
+    private final GenerationOptions options;
 
     public GlobalIndexPageGenerator(Path cachePath, Path outputPath) {
+        this(cachePath, outputPath, new FileSystemOutputSink());
+    }
+
+    public GlobalIndexPageGenerator(Path cachePath, Path outputPath, OutputSink outputSink) {
+        this(cachePath, outputPath, outputSink, GenerationOptions.defaultOptions());
+    }
+
+    /**
+     * @param cachePath  The directory containing documentation cache
+     * @param outputPath The output directory the index page is written to
+     * @param outputSink The sink the index page is written to
+     * @param options    The options to tune the generation with, of which up to
+     *                   {@link GenerationOptions#libraryThreads()} caches are read at once
+     */
+    public GlobalIndexPageGenerator(Path cachePath, Path outputPath, OutputSink outputSink, GenerationOptions options) {
         this.cachePath = cachePath;
         this.outputPath = outputPath;
+        this.outputSink = outputSink;
+        this.options = options;
     }
 
     public void generateIndex() throws IOException {
         var cachedLibraries = new ArrayList<>(fetchCachedLibraries());
 
+        PageRenderer.render(INDEX_TEMPLATE, createIndexContext(cachedLibraries), outputSink, outputPath.resolve("index.html"));
+    }
+    
+    public static Context createIndexContext(List<BasicQllData> libraries) {
         var context = new Context();
-        context.setVariable("libraries", cachedLibraries);
+        context.setVariable("libraries", libraries);
         context.setVariable("HTML_SUFFIX", AnchorFactory.HTML_SUFFIX);
-
-        var templateEngine = createTemplateEngine();
-
-        String output = templateEngine.process("templates/index.html", context);
-
-        try (var writer = new FileWriter(outputPath.resolve("index.html").toFile())) {
-            writer.write(output);
-        }
+        
+        return context;
     }
     
+    /**
+     * Reads the info of every cached library, ordered by the name of its cache file. A cache that fails to be read is
+     * logged and left out of the index.
+     */
     private List<BasicQllData> fetchCachedLibraries() {
+        List<Path> cacheFiles;
+        
         try (var walk = Files.list(cachePath)) {
-            return walk.filter(Files::isRegularFile)
+            cacheFiles = walk.filter(Files::isRegularFile)
                     .filter(file -> file.getFileName().toString().endsWith(".cache"))
-                    .map(file -> {
-                        try (var documentationDeserializer = new DocumentationDeserializer(Files.newInputStream(file))) {
-                            return documentationDeserializer.deserializeBasicQllData();
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
-                        }
-                    })
+                    .sorted()
                     .toList();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-    }
 
-    private TemplateEngine createTemplateEngine() {
-        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
-        templateResolver.setSuffix(".html");
+        var results = ParallelTasks.runAll(cacheFiles, options.libraryThreads(), "docgen-cache", file -> {
+            try (var documentationDeserializer = DocumentationDeserializer.map(file)) {
+                return documentationDeserializer.deserializeBasicQllData();
+            }
+        });
 
-        TemplateEngine templateEngine = new TemplateEngine();
-        templateEngine.addDialect(new LinkDialect());
-        templateEngine.setTemplateResolver(templateResolver);
+        results.stream()
+                .filter(result -> !result.isSuccess())
+                .forEach(result -> LOGGER.error("Failed to read cache file: {}", result.input().getFileName(), result.failure()));
 
-        return templateEngine;
+        return results.stream()
+                .filter(TaskResult::isSuccess)
+                .map(TaskResult::value)
+                .toList();
     }
 }
@@ -0,0 +1,106 @@
+package dev.qilletni.docgen.pages;
+
+import dev.qilletni.docgen.events.PageRenderEvent;
+import dev.qilletni.docgen.metrics.DocgenMetrics;
+import dev.qilletni.docgen.output.OutputSink;
+import org.thymeleaf.context.IContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Renders pages with the shared template engine and writes them to an {@link OutputSink} as UTF-8. Pages are rendered
+ * through Thymeleaf's {@link Writer} output into a byte buffer reused by each thread, so a page is never held as a
+ * {@link String}, and a page that fails to render is never partially written.
+ */
+public class PageRenderer {
+
+    /**
+     * Buffers that grew past this size for a single large page are dropped after use, instead of being held by the
+     * thread forever.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 8 * 1024 * 1024;
+
+    private static final ThreadLocal<PageBuffer> PAGE_BUFFER = ThreadLocal.withInitial(PageBuffer::new);
+
+    private PageRenderer() {}
+
+    /**
+     * Renders a template and writes it to a sink.
+     *
+     * @param templatePath The template to render
+     * @param context      The context to render the template with
+     * @param outputSink   The sink to write the page to
+     * @param outputFile   The path of the page in the output directory
+     * @return The size of the page in bytes
+     */
+    public static int render(String templatePath, IContext context, OutputSink outputSink, Path outputFile) throws IOException {
+        var pageBuffer = PAGE_BUFFER.get();
+        
+        var startNanos = System.nanoTime();
+        var event = new PageRenderEvent();
+        event.begin();
+
+        try {
+            TemplateEngineProvider.getTemplateEngine().process(templatePath, context, pageBuffer.writer);
+            pageBuffer.writer.flush();
+
+            var pageSize = pageBuffer.bytes.size();
+            var written = outputSink.write(outputFile, pageBuffer.bytes.asByteBuffer());
+            
+            DocgenMetrics.recordPage(templatePath, startNanos, pageSize, written);
+            
+            if (event.shouldCommit()) {
+                event.template = templatePath;
+                event.outputFile = outputFile.toString();
+                event.byteCount = pageSize;
+                event.written = written;
+                event.commit();
+            }
+            
+            return pageSize;
+        } finally {
+            if (pageBuffer.bytes.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                PAGE_BUFFER.remove();
+            } else {
+                pageBuffer.reset();
+            }
+        }
+    }
+
+    /**
+     * A UTF-8 writer over a growable byte array, reset between pages.
+     */
+    private static class PageBuffer {
+        private final ReusableByteArrayOutputStream bytes = new ReusableByteArrayOutputStream();
+        private final Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+
+        private void reset() throws IOException {
+            // Discards anything a failed render left in the encoder, then the bytes themselves
+            writer.flush();
+            bytes.reset();
+        }
+    }
+
+    /**
+     * Exposes the written bytes without copying them.
+     */
+    private static class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+        private ReusableByteArrayOutputStream() {
+            super(64 * 1024);
+        }
+
+        private ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package dev.qilletni.docgen.pages;
+
+import dev.qilletni.docgen.pages.dialects.constructor.ConstructorDialect;
+import dev.qilletni.docgen.pages.dialects.description.FormattedDocDialect;
+import dev.qilletni.docgen.pages.dialects.entity.EntityDialect;
+import dev.qilletni.docgen.pages.dialects.field.FieldDialect;
+import dev.qilletni.docgen.pages.dialects.file.FileDialect;
+import dev.qilletni.docgen.pages.dialects.function.FunctionDialect;
+import dev.qilletni.docgen.pages.dialects.link.LinkDialect;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.List;
+
+/**
+ * Holds the single {@link TemplateEngine} shared by every page rendered in this JVM. None of the registered dialects
+ * hold any library-specific state (they read it from the page's context instead), so parsed templates are cached once
+ * and reused by every page of every library.
+ */
+public class TemplateEngineProvider {
+
+    /**
+     * The variable name in a page's context holding the name of the library the page is for. Dialects that create
+     * library-relative links read it from the context.
+     */
+    public static final String LIBRARY_NAME_VARIABLE = "libraryName";
+
+    /**
+     * Every resource that affects how pages look. If any of these change, all previously generated pages are stale.
+     */
+    public static final List<String> TEMPLATE_RESOURCES = List.of(
+            "/templates/entity.html",
+            "/templates/file.html",
+            "/templates/file_tree.html",
+            "/templates/index.html",
+            "/templates/library.html",
+            "/templates/fragments/field_overview.html",
+            "/templates/fragments/file_tree.html",
+            "/templates/fragments/footer.html",
+            "/templates/fragments/function_card.html",
+            "/templates/fragments/nav_bar.html"
+    );
+
+    private TemplateEngineProvider() {}
+
+    /**
+     * Gets the shared, thread-safe template engine with template caching enabled and all dialects registered.
+     *
+     * @return The shared template engine
+     */
+    public static TemplateEngine getTemplateEngine() {
+        return Holder.TEMPLATE_ENGINE;
+    }
+
+    private static TemplateEngine createTemplateEngine() {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setSuffix(".html");
+        templateResolver.setCacheable(true);
+
+        TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.addDialect(new FunctionDialect());
+        templateEngine.addDialect(new FieldDialect());
+        templateEngine.addDialect(new EntityDialect());
+        templateEngine.addDialect(new FormattedDocDialect());
+        templateEngine.addDialect(new ConstructorDialect());
+        templateEngine.addDialect(new FileDialect());
+        templateEngine.addDialect(new LinkDialect());
+
+        return templateEngine;
+    }
+
+    private static class Holder {
+        private static final TemplateEngine TEMPLATE_ENGINE = createTemplateEngine();
+    }
+}
@@ -24,7 +24,7 @@ public class MessageCreator {
         this.model = model;
         this.descriptionItems = descriptionItems;
         
-        this.markdownParser = MarkdownParser.createMarkdownParser();
+        this.markdownParser = MarkdownParser.getSharedParser();
     }
     
     public void processMessage() {
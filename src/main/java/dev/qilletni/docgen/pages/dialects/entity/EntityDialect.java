@@ -7,15 +7,12 @@ import java.util.Set;
 
 public class EntityDialect extends AbstractProcessorDialect {
 
-    private final String libraryName;
-
-    public EntityDialect(String libraryName) {
+    public EntityDialect() {
         super("EntityDialect", "entity", 1000);
-        this.libraryName = libraryName;
     }
 
     @Override
     public Set<IProcessor> getProcessors(String dialectPrefix) {
-        return Set.of(new EntityHrefAttributeTagProcessor(dialectPrefix, libraryName));
+        return Set.of(new EntityHrefAttributeTagProcessor(dialectPrefix));
     }
 }
@@ -1,6 +1,7 @@
 package dev.qilletni.docgen.pages.dialects.entity;
 
 import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeEntity;
+import dev.qilletni.docgen.pages.TemplateEngineProvider;
 import dev.qilletni.docgen.pages.dialects.utility.AnchorFactory;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.AttributeName;
@@ -20,9 +21,8 @@ public class EntityHrefAttributeTagProcessor extends AbstractAttributeTagProcess
 
     private static final String ATTR_NAME = "link";
     private static final int PRECEDENCE = 10000;
-    private final String libraryName;
 
-    protected EntityHrefAttributeTagProcessor(String dialectPrefix, String libraryName) {
+    protected EntityHrefAttributeTagProcessor(String dialectPrefix) {
         super(
                 TemplateMode.HTML, // This processor will apply only to HTML mode
                 dialectPrefix,     // Prefix to be applied to name for matching
@@ -32,7 +32,6 @@ public class EntityHrefAttributeTagProcessor extends AbstractAttributeTagProcess
                 true,              // Apply dialect prefix to attribute name
                 PRECEDENCE,        // Precedence (inside dialect's precedence)
                 true);             // Remove the matched attribute afterwards
-        this.libraryName = libraryName;
     }
 
     @Override
@@ -47,6 +46,7 @@ public class EntityHrefAttributeTagProcessor extends AbstractAttributeTagProcess
             throw new RuntimeException("Expected a DocumentedTypeEntity, got " + executed.getClass().getCanonicalName());
         }
         
+        var libraryName = (String) context.getVariable(TemplateEngineProvider.LIBRARY_NAME_VARIABLE);
         var linkText = getEntityUrl(libraryName, documentedEntity.name());
         
         structureHandler.setAttribute("href", linkText);
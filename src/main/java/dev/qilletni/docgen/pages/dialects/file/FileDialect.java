@@ -7,16 +7,13 @@ import java.util.Set;
 
 public class FileDialect extends AbstractProcessorDialect {
 
-    private final String libraryName;
-
-    public FileDialect(String libraryName) {
+    public FileDialect() {
         super("FileDialect", "file", 1000);
-        this.libraryName = libraryName;
     }
 
     @Override
     public Set<IProcessor> getProcessors(String dialectPrefix) {
-        return Set.of(new FileHrefAttributeTagProcessor(dialectPrefix, libraryName));
+        return Set.of(new FileHrefAttributeTagProcessor(dialectPrefix));
     }
 }
 
@@ -1,5 +1,6 @@
 package dev.qilletni.docgen.pages.dialects.file;
 
+import dev.qilletni.docgen.pages.TemplateEngineProvider;
 import dev.qilletni.docgen.pages.dialects.utility.AnchorFactory;
 import dev.qilletni.docgen.pages.filetree.FileNode;
 import org.thymeleaf.context.ITemplateContext;
@@ -17,9 +18,8 @@ public class FileHrefAttributeTagProcessor extends AbstractAttributeTagProcessor
 
     private static final String ATTR_NAME = "link";
     private static final int PRECEDENCE = 10000;
-    private final String libraryName;
 
-    protected FileHrefAttributeTagProcessor(String dialectPrefix, String libraryName) {
+    protected FileHrefAttributeTagProcessor(String dialectPrefix) {
         super(
                 TemplateMode.HTML, // This processor will apply only to HTML mode
                 dialectPrefix,     // Prefix to be applied to name for matching
@@ -29,7 +29,6 @@ public class FileHrefAttributeTagProcessor extends AbstractAttributeTagProcessor
                 true,              // Apply dialect prefix to attribute name
                 PRECEDENCE,        // Precedence (inside dialect's precedence)
                 true);             // Remove the matched attribute afterwards
-        this.libraryName = libraryName;
     }
 
     @Override
@@ -51,6 +50,7 @@ public class FileHrefAttributeTagProcessor extends AbstractAttributeTagProcessor
             throw new RuntimeException("Expected a FileNode or String importPath, got " + executed);
         }
 
+        var libraryName = (String) context.getVariable(TemplateEngineProvider.LIBRARY_NAME_VARIABLE);
         var linkText = getSourceFileUrl(libraryName, anchor);
         
         structureHandler.setAttribute("href", linkText);
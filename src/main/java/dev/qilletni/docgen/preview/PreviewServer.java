@@ -0,0 +1,220 @@
+package dev.qilletni.docgen.preview;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.qilletni.docgen.output.InMemoryOutputSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * A local server for previewing generated documentation without a separate web server. Requests are resolved like
+ * {@code try_files $uri $uri.html $uri/index.html} in the nginx config, first against the pages written to an
+ * {@link InMemoryOutputSink} while the server is running, and then against the output directory.
+ * <br><br>
+ * Served HTML pages subscribe to server-sent events, and reload whenever {@link #notifyReload()} is called.
+ */
+public class PreviewServer implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PreviewServer.class);
+
+    private static final String EVENTS_PATH = "/__docgen/events";
+    private static final String RELOAD_SCRIPT = "<script>new EventSource('%s').addEventListener('reload', () => location.reload());</script>".formatted(EVENTS_PATH);
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "html", "text/html; charset=utf-8",
+            "css", "text/css; charset=utf-8",
+            "js", "text/javascript; charset=utf-8",
+            "json", "application/json",
+            "svg", "image/svg+xml",
+            "png", "image/png",
+            "ico", "image/x-icon"
+    );
+
+    private final Path outputPath;
+    private final InMemoryOutputSink pages;
+    private final HttpServer httpServer;
+    private final Set<OutputStream> eventStreams;
+
+    /**
+     * Creates a server for the given output directory, listening on the loopback address.
+     *
+     * @param outputPath The directory documentation is generated to
+     * @param pages      The sink documentation is generated with
+     * @param port       The port to listen on
+     */
+    public PreviewServer(Path outputPath, InMemoryOutputSink pages, int port) throws IOException {
+        this.outputPath = outputPath.toAbsolutePath().normalize();
+        this.pages = pages;
+        this.eventStreams = ConcurrentHashMap.newKeySet();
+
+        this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext("/", this::handlePage);
+        httpServer.createContext(EVENTS_PATH, this::handleEvents);
+        // Event streams stay open, so every connection gets its own thread
+        httpServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public void start() {
+        httpServer.start();
+
+        LOGGER.info("Serving docs at http://localhost:{}/", httpServer.getAddress().getPort());
+    }
+
+    /**
+     * Tells every open page to reload.
+     */
+    public void notifyReload() {
+        LOGGER.debug("Reloading {} page(s)", eventStreams.size());
+
+        var event = "event: reload\ndata: \n\n".getBytes(StandardCharsets.UTF_8);
+
+        for (var eventStream : eventStreams) {
+            try {
+                eventStream.write(event);
+                eventStream.flush();
+            } catch (IOException e) { // The page was closed
+                eventStreams.remove(eventStream);
+                closeQuietly(eventStream);
+            }
+        }
+    }
+
+    private void handlePage(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            var method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                sendText(exchange, 405, "Method Not Allowed");
+                return;
+            }
+
+            var requestedPath = outputPath.resolve(exchange.getRequestURI().getPath().replaceFirst("^/+", "")).normalize();
+            if (!requestedPath.startsWith(outputPath)) {
+                sendText(exchange, 404, "Not Found");
+                return;
+            }
+
+            var resolvedPage = findPage(requestedPath);
+            if (resolvedPage.isEmpty()) {
+                sendText(exchange, 404, "Not Found");
+                return;
+            }
+
+            var pagePath = resolvedPage.get().path();
+            var content = resolvedPage.get().content();
+            var contentType = getContentType(pagePath);
+
+            if (contentType.startsWith("text/html")) {
+                content = injectReloadScript(content);
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+
+            if (method.equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(200, content.length);
+            exchange.getResponseBody().write(content);
+        }
+    }
+
+    /**
+     * Finds the page for a request in the order of {@code try_files $uri $uri.html $uri/index.html}.
+     */
+    private Optional<ResolvedPage> findPage(Path requestedPath) throws IOException {
+        var candidates = new ArrayList<Path>();
+        candidates.add(requestedPath);
+
+        if (!requestedPath.equals(outputPath)) {
+            candidates.add(requestedPath.resolveSibling(requestedPath.getFileName() + ".html"));
+        }
+
+        candidates.add(requestedPath.resolve("index.html"));
+
+        for (var candidate : candidates) {
+            var content = pages.getFile(candidate).orElse(null);
+            if (content == null && Files.isRegularFile(candidate)) {
+                content = Files.readAllBytes(candidate);
+            }
+
+            if (content != null) {
+                return Optional.of(new ResolvedPage(candidate, content));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private void handleEvents(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+
+        // The exchange is left open after returning, and is closed once writing to the page fails
+        var eventStream = exchange.getResponseBody();
+        eventStream.write(": connected\n\n".getBytes(StandardCharsets.UTF_8));
+        eventStream.flush();
+
+        eventStreams.add(eventStream);
+    }
+
+    private static byte[] injectReloadScript(byte[] content) {
+        var html = new String(content, StandardCharsets.UTF_8);
+
+        var bodyEnd = html.lastIndexOf("</body>");
+        if (bodyEnd == -1) {
+            html += RELOAD_SCRIPT;
+        } else {
+            html = html.substring(0, bodyEnd) + RELOAD_SCRIPT + html.substring(bodyEnd);
+        }
+
+        return html.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String getContentType(Path path) {
+        var fileName = path.getFileName().toString();
+        var extension = fileName.substring(fileName.lastIndexOf('.') + 1);
+
+        return CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        var body = text.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void closeQuietly(OutputStream outputStream) {
+        try {
+            outputStream.close();
+        } catch (IOException ignored) {}
+    }
+
+    @Override
+    public void close() {
+        eventStreams.forEach(PreviewServer::closeQuietly);
+        eventStreams.clear();
+
+        httpServer.stop(0);
+    }
+
+    private record ResolvedPage(Path path, byte[] content) {}
+}
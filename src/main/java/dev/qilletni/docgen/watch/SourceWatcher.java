@@ -0,0 +1,114 @@
+package dev.qilletni.docgen.watch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches qilletni-src directories for changes to Qilletni source files. A {@link WatchService} only watches single
+ * directories, so every directory in the trees is registered, including ones created while watching.
+ */
+public class SourceWatcher implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SourceWatcher.class);
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories;
+    private final List<Path> roots;
+
+    /**
+     * Creates a watcher of the given directory trees.
+     *
+     * @param roots The qilletni-src directories to watch
+     */
+    public SourceWatcher(List<Path> roots) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.watchedDirectories = new HashMap<>();
+        this.roots = roots;
+
+        for (var root : roots) {
+            registerTree(root);
+        }
+    }
+
+    /**
+     * Blocks until a source file changes, then keeps collecting changes until none happened for the debounce
+     * duration, so a burst of events from a single save or a branch switch results in a single rebuild.
+     *
+     * @param debounce How long no changes must happen for before returning
+     * @return The changed source files and directories. If events were lost, this is every watched root
+     */
+    public Set<Path> awaitChanges(Duration debounce) throws InterruptedException, IOException {
+        var changedPaths = new HashSet<Path>();
+
+        var watchKey = watchService.take();
+        while (watchKey != null) {
+            collectChanges(watchKey, changedPaths);
+            
+            if (changedPaths.isEmpty()) { // Only irrelevant files changed, so start waiting for a change again
+                watchKey = watchService.take();
+            } else {
+                watchKey = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        return changedPaths;
+    }
+
+    private void collectChanges(WatchKey watchKey, Set<Path> changedPaths) throws IOException {
+        var directory = watchedDirectories.get(watchKey);
+
+        for (var watchEvent : watchKey.pollEvents()) {
+            if (watchEvent.kind() == StandardWatchEventKinds.OVERFLOW) {
+                LOGGER.warn("Lost file change events, treating every source file as changed");
+                changedPaths.addAll(roots);
+                continue;
+            }
+
+            if (directory == null) {
+                continue;
+            }
+
+            var changedPath = directory.resolve((Path) watchEvent.context());
+
+            if (watchEvent.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changedPath)) {
+                registerTree(changedPath);
+                changedPaths.add(changedPath);
+            } else if (changedPath.getFileName().toString().endsWith(".ql") || watchedDirectories.containsValue(changedPath)) {
+                changedPaths.add(changedPath);
+            }
+        }
+
+        if (!watchKey.reset()) { // The directory no longer exists
+            watchedDirectories.remove(watchKey);
+        }
+    }
+
+    private void registerTree(Path root) throws IOException {
+        try (var walk = Files.walk(root)) {
+            for (var directory : walk.filter(Files::isDirectory).toList()) {
+                var watchKey = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirectories.put(watchKey, directory);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -10,6 +10,9 @@ module qilletni.docgen {
     requires flexmark;
     requires flexmark.util.ast;
     requires com.google.gson;
+    requires jdk.httpserver;
+    requires jdk.jfr;
 
     exports dev.qilletni.docgen;
+    exports dev.qilletni.docgen.output;
 }
@@ -0,0 +1,183 @@
+package dev.qilletni.docgen.cache;
+
+import dev.qilletni.api.lang.docs.structure.DocFieldType;
+import dev.qilletni.api.lang.docs.structure.DocumentedFile;
+import dev.qilletni.api.lang.docs.structure.DocumentedItem;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeFunction;
+import dev.qilletni.api.lang.docs.structure.text.DocDescription;
+import dev.qilletni.api.lang.docs.structure.text.DocOnLine;
+import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
+import dev.qilletni.docgen.DocParser;
+import dev.qilletni.docgen.cache.serializer.DocumentationDeserializer;
+import dev.qilletni.docgen.cache.serializer.ExtensionIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedDocHandlerTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Creates a function, on an entity of the music library if it is given.
+     */
+    private static DocumentedItem createFunction(String libraryName, String name, Optional<String> onEntity) {
+        var docOnLine = onEntity.map(entityName -> new DocOnLine(new DocFieldType(DocFieldType.FieldType.QILLETNI, "music." + entityName), new DocDescription(Collections.emptyList())))
+                .orElse(null);
+
+        return new DocumentedItem(new DocumentedTypeFunction(libraryName, libraryName + ".ql", name, Collections.emptyList(), false, false, onEntity),
+                new FunctionDoc(new DocDescription(Collections.singletonList(new DocDescription.DocText(name))), Collections.emptyList(), null, docOnLine, null));
+    }
+
+    private CachedDocHandler createHandler() throws Exception {
+        var cachePath = tempDir.resolve("cache");
+        Files.createDirectories(cachePath);
+
+        return new CachedDocHandler(tempDir.resolve("output"), cachePath);
+    }
+
+    /**
+     * Writes the cache and extension index of a library with a single file declaring the given functions.
+     *
+     * @return The cache file
+     */
+    private Path writeCache(String libraryName, DocumentedItem... documentedItems) throws Exception {
+        var cachedDocHandler = createHandler();
+        var documentedFiles = List.of(new DocumentedFile(libraryName + ".ql", Path.of(libraryName + ".ql"), List.of(documentedItems)));
+
+        cachedDocHandler.writeLibraryCache(DocParser.createInitializedParser(cachedDocHandler, new BasicQllData(libraryName, "1.0.0", "author", "description", "https://example.com"), tempDir.resolve("output"), documentedFiles));
+
+        return tempDir.resolve("cache").resolve(libraryName + ".cache");
+    }
+
+    private static List<String> getNames(List<DocumentedItem> documentedItems) {
+        return documentedItems.stream().map(documentedItem -> ((DocumentedTypeFunction) documentedItem.itemBeingDocumented()).name()).toList();
+    }
+
+    private static List<String> getOnFunctionNames(List<ReferencedOnFunction> onFunctions) {
+        return onFunctions.stream().map(onFunction -> onFunction.getDocumentedFunction().name()).toList();
+    }
+
+    /**
+     * Rewrites the extension index of a cache with the given references, as valid for the cache's current content.
+     */
+    private static void writeIndex(Path cacheFile, Map<String, List<ExtensionIndex.Reference>> references) throws Exception {
+        ExtensionIndex.write(ExtensionIndex.getIndexPath(cacheFile), Files.size(cacheFile), ExtensionIndex.checksum(cacheFile), references);
+    }
+
+    @Test
+    void testReadsFunctionsFromUpToDateIndex() throws Exception {
+        var cacheFile = writeCache("lib",
+                createFunction("lib", "onSong", Optional.of("Song")),
+                createFunction("lib", "onAlbum", Optional.of("Album")),
+                createFunction("lib", "plain", Optional.empty()));
+
+        // An index that is up to date is trusted, so leaving a function out of it shows the cache was not decoded
+        var index = ExtensionIndex.read(ExtensionIndex.getIndexPath(cacheFile)).orElseThrow();
+        writeIndex(cacheFile, Map.of("Song", index.references().get("Song")));
+
+        var cachedDocHandler = createHandler();
+
+        assertEquals(List.of("onSong"), getNames(cachedDocHandler.getCachedOnExtensionDocs("lib").orElseThrow()));
+        assertEquals(List.of("onSong"), getOnFunctionNames(cachedDocHandler.getOnFunctionsForEntity("Song")));
+        assertEquals(List.of(), cachedDocHandler.getOnFunctionsForEntity("Album"));
+        assertTrue(cachedDocHandler.getCachedOnExtensionDocs("missing").isEmpty());
+    }
+
+    @Test
+    void testFallsBackToCacheWhenIndexIsStale() throws Exception {
+        var cacheFile = writeCache("lib", createFunction("lib", "onSongA", Optional.of("Song")));
+        var indexFile = ExtensionIndex.getIndexPath(cacheFile);
+        var staleIndex = Files.readAllBytes(indexFile);
+        var cacheSize = Files.size(cacheFile);
+
+        // Rewritten to the same size, so only the checksum tells the index is stale
+        writeCache("lib", createFunction("lib", "onSongB", Optional.of("Song")));
+        Files.write(indexFile, staleIndex);
+        assertEquals(cacheSize, Files.size(cacheFile));
+
+        assertEquals(List.of("onSongB"), getNames(createHandler().getCachedOnExtensionDocs("lib").orElseThrow()));
+    }
+
+    @Test
+    void testFallsBackToCacheWhenCacheChangesAfterIndexIsRead() throws Exception {
+        var cacheFile = writeCache("lib", createFunction("lib", "onSongA", Optional.of("Song")));
+        var indexFile = ExtensionIndex.getIndexPath(cacheFile);
+        var staleIndex = Files.readAllBytes(indexFile);
+        var lastModifiedTime = Files.getLastModifiedTime(cacheFile);
+
+        var cachedDocHandler = createHandler();
+        cachedDocHandler.initializeCache();
+
+        writeCache("lib", createFunction("lib", "onSongB", Optional.of("Song")));
+        Files.write(indexFile, staleIndex);
+        // The cache is only checked again once its stamp changes, which a rewrite in the same instant would not do
+        Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(lastModifiedTime.toMillis() + 10_000));
+
+        assertEquals(List.of("onSongB"), getOnFunctionNames(cachedDocHandler.getOnFunctionsForEntity("Song")));
+    }
+
+    @Test
+    void testFallsBackToCacheWhenIndexOffsetIsWrong() throws Exception {
+        var cacheFile = writeCache("lib",
+                createFunction("lib", "onSong", Optional.of("Song")),
+                createFunction("lib", "onAlbum", Optional.of("Album")));
+
+        // Each entity references the other's function, in an index that is otherwise valid for the cache
+        var index = ExtensionIndex.read(ExtensionIndex.getIndexPath(cacheFile)).orElseThrow();
+        writeIndex(cacheFile, Map.of("Song", index.references().get("Album"), "Album", index.references().get("Song")));
+
+        var cachedDocHandler = createHandler();
+        cachedDocHandler.initializeCache();
+
+        assertEquals(List.of("onSong"), getOnFunctionNames(cachedDocHandler.getOnFunctionsForEntity("Song")));
+        assertEquals(List.of("onAlbum"), getOnFunctionNames(cachedDocHandler.getOnFunctionsForEntity("Album")));
+        assertEquals(List.of("onAlbum", "onSong"), getNames(cachedDocHandler.getCachedOnExtensionDocs("lib").orElseThrow()));
+    }
+
+    @Test
+    void testOrdersFunctionsByCacheNameWhateverTheirSource() throws Exception {
+        writeCache("b", createFunction("b", "fromB", Optional.of("Song")));
+        var cacheFile = writeCache("a", createFunction("a", "fromA", Optional.of("Song")), createFunction("a", "albumFromA", Optional.of("Album")));
+
+        var indexedHandler = createHandler();
+        indexedHandler.initializeCache();
+        assertEquals(List.of("fromA", "fromB"), getOnFunctionNames(indexedHandler.getOnFunctionsForEntity("Song")));
+
+        // Without an index, the functions of a are read from its cache when the handler is initialized
+        Files.delete(ExtensionIndex.getIndexPath(cacheFile));
+
+        var decodedHandler = createHandler();
+        decodedHandler.initializeCache();
+        assertEquals(List.of("albumFromA"), getOnFunctionNames(decodedHandler.getOnFunctionsForEntity("Album")));
+        assertEquals(List.of("fromA", "fromB"), getOnFunctionNames(decodedHandler.getOnFunctionsForEntity("Song")));
+    }
+
+    @Test
+    void testConcurrentReadsShareOneLibrary() throws Exception {
+        writeCache("lib", createFunction("lib", "onSong", Optional.of("Song")));
+
+        var cachedDocHandler = createHandler();
+        var readTask = (Callable<DocumentationDeserializer.SerializedLibrary>) () -> cachedDocHandler.readLibrary("lib").orElseThrow();
+
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            var libraries = executor.invokeAll(Collections.nCopies(8, readTask));
+
+            for (var library : libraries) {
+                assertSame(libraries.getFirst().get(), library.get());
+            }
+        }
+    }
+}
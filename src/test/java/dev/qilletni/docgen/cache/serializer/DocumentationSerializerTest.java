@@ -1,7 +1,9 @@
 package dev.qilletni.docgen.cache.serializer;
 
+import dev.qilletni.docgen.cache.BasicQllData;
 import dev.qilletni.docgen.cache.serializer.DocumentationDeserializer;
 import dev.qilletni.docgen.cache.serializer.DocumentationSerializer;
+import dev.qilletni.docgen.cache.serializer.LazyDocumentedFileList;
 import dev.qilletni.api.lang.docs.structure.DocFieldType;
 import dev.qilletni.api.lang.docs.structure.DocumentedFile;
 import dev.qilletni.api.lang.docs.structure.DocumentedItem;
@@ -384,7 +386,97 @@ class DocumentationSerializerTest {
 
         assertEquals(originalItem, deserializedItem);
     }
-    
+
+    @ParameterizedTest
+    @MethodSource("documentedItemProvider")
+    void testDeserializeFormatVersion1(DocumentedItem originalItem) throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        var serializer = new DocumentationSerializer(outputStream, SerializationUtility.FORMAT_VERSION_1);
+        serializer.serializeDocumentedItem(originalItem);
+        serializer.close();
+
+        var inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+        var deserializer = new DocumentationDeserializer(inputStream);
+        DocumentedItem deserializedItem = deserializer.deserializeDocumentedItem();
+
+        assertEquals(SerializationUtility.FORMAT_VERSION_1, deserializer.getFormatVersion());
+        assertEquals(originalItem, deserializedItem);
+    }
+
+    @ParameterizedTest
+    @MethodSource("documentedItemProvider")
+    void testDeserializeFormatVersion2(DocumentedItem originalItem) throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        var serializer = new DocumentationSerializer(outputStream, SerializationUtility.FORMAT_VERSION_2);
+        serializer.serializeDocumentedItem(originalItem);
+        serializer.close();
+
+        var inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+        var deserializer = new DocumentationDeserializer(inputStream);
+        DocumentedItem deserializedItem = deserializer.deserializeDocumentedItem();
+
+        assertEquals(SerializationUtility.FORMAT_VERSION_2, deserializer.getFormatVersion());
+        assertEquals(originalItem, deserializedItem);
+    }
+
+    @Test
+    void testStringTableSharesRepeatedStrings() throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        var serializer = new DocumentationSerializer(outputStream);
+        var originalParamDocs = List.of(
+                new ParamDoc("paramName", new DocFieldType(DocFieldType.FieldType.QILLETNI, "string"), new DocDescription(Collections.emptyList())),
+                new ParamDoc("paramName", new DocFieldType(DocFieldType.FieldType.QILLETNI, "string"), new DocDescription(Collections.emptyList()))
+        );
+        serializer.serializeParamDocList(originalParamDocs);
+        serializer.close();
+
+        var inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+        var deserializer = new DocumentationDeserializer(inputStream);
+        var deserializedParamDocs = deserializer.deserializeParamDocList();
+
+        assertEquals(SerializationUtility.CURRENT_FORMAT_VERSION, deserializer.getFormatVersion());
+        assertEquals(originalParamDocs, deserializedParamDocs);
+        assertSame(deserializedParamDocs.get(0).name(), deserializedParamDocs.get(1).name());
+    }
+
+    @Test
+    void testDeserializeLazyLibrary() throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        var serializer = new DocumentationSerializer(outputStream);
+        var originalBasicQllData = new BasicQllData("example", "1.0.0", "author", "description", "https://example.com");
+        var originalFiles = documentedFileProvider().toList();
+        serializer.serializeLibrary(originalBasicQllData, originalFiles);
+        serializer.close();
+
+        var inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+        var deserializer = new DocumentationDeserializer(inputStream);
+        var deserializedLibrary = deserializer.deserializeLazyLibrary();
+
+        assertInstanceOf(LazyDocumentedFileList.class, deserializedLibrary.documentedFiles());
+        assertEquals(originalBasicQllData, deserializedLibrary.basicQllData());
+        assertEquals(originalFiles.get(2), deserializedLibrary.documentedFiles().get(2));
+        assertEquals(originalFiles, deserializedLibrary.documentedFiles());
+    }
+
+    @Test
+    void testExtensionReferencesPointToFunctions() throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        var serializer = new DocumentationSerializer(outputStream);
+        var originalFiles = documentedFileProvider().toList();
+        serializer.serializeLibrary(new BasicQllData("example", "1.0.0", "author", "description", "https://example.com"), originalFiles);
+        serializer.close();
+
+        var extensionReferences = serializer.getExtensionReferences();
+        var reference = extensionReferences.get("ReturnType").getFirst();
+
+        var inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+        var deserializer = new DocumentationDeserializer(inputStream);
+
+        assertEquals(1, extensionReferences.size());
+        assertEquals("ComplexFile", reference.fileName());
+        assertEquals(originalFiles.get(2).documentedItems().getFirst(), deserializer.deserializeDocumentedItemAt(reference.offset()));
+    }
+
 //    @Test
 //    void testLargerSerializeDeserialize() {
 //        var outputStream = new ByteArrayOutputStream();
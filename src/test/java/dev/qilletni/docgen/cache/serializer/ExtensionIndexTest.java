@@ -0,0 +1,102 @@
+package dev.qilletni.docgen.cache.serializer;
+
+import dev.qilletni.api.lang.docs.structure.DocFieldType;
+import dev.qilletni.api.lang.docs.structure.DocumentedFile;
+import dev.qilletni.api.lang.docs.structure.DocumentedItem;
+import dev.qilletni.api.lang.docs.structure.item.DocumentedTypeFunction;
+import dev.qilletni.api.lang.docs.structure.text.DocDescription;
+import dev.qilletni.api.lang.docs.structure.text.DocOnLine;
+import dev.qilletni.api.lang.docs.structure.text.inner.FunctionDoc;
+import dev.qilletni.docgen.cache.BasicQllData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtensionIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static DocumentedItem createFunction(String name, Optional<String> onEntity) {
+        var docOnLine = onEntity.map(entityName -> new DocOnLine(new DocFieldType(DocFieldType.FieldType.QILLETNI, entityName), new DocDescription(Collections.emptyList())))
+                .orElse(null);
+
+        return new DocumentedItem(new DocumentedTypeFunction("example", "example.ql", name, Collections.emptyList(), false, false, onEntity),
+                new FunctionDoc(new DocDescription(Collections.singletonList(new DocDescription.DocText(name))), Collections.emptyList(), null, docOnLine, null));
+    }
+
+    /**
+     * Writes a cache of a library with a single extension function, and its extension index.
+     *
+     * @return The bytes of the cache
+     */
+    private static byte[] writeIndexedCache(Path cacheFile) throws Exception {
+        var documentedFiles = List.of(new DocumentedFile("example.ql", Path.of("example.ql"), List.of(
+                createFunction("plain", Optional.empty()),
+                createFunction("extension", Optional.of("Song")))));
+
+        var outputStream = new ByteArrayOutputStream();
+        var serializer = new DocumentationSerializer(outputStream);
+        serializer.serializeLibrary(new BasicQllData("example", "1.0.0", "author", "description", "https://example.com"), documentedFiles);
+        serializer.close();
+
+        var cacheBytes = outputStream.toByteArray();
+        Files.write(cacheFile, cacheBytes);
+        ExtensionIndex.write(ExtensionIndex.getIndexPath(cacheFile), serializer.getTotalWrittenBytes(), serializer.getChecksum(), serializer.getExtensionReferences());
+
+        return cacheBytes;
+    }
+
+    @Test
+    void testRoundTrip() throws Exception {
+        var cacheFile = tempDir.resolve("example.cache");
+        writeIndexedCache(cacheFile);
+
+        var index = ExtensionIndex.read(ExtensionIndex.getIndexPath(cacheFile)).orElseThrow();
+        var reference = index.references().get("Song").getFirst();
+
+        assertTrue(index.isOf(Files.size(cacheFile), ExtensionIndex.checksum(cacheFile)));
+        assertEquals(1, index.references().size());
+        assertEquals("example.ql", reference.fileName());
+        assertFalse(Files.exists(tempDir.resolve("example.extidx.tmp")));
+
+        try (var deserializer = DocumentationDeserializer.map(cacheFile)) {
+            assertEquals(createFunction("extension", Optional.of("Song")), deserializer.deserializeDocumentedItemAt(reference.offset()));
+        }
+    }
+
+    @Test
+    void testIsNotOfCacheRewrittenToSameSize() throws Exception {
+        var cacheFile = tempDir.resolve("example.cache");
+        var cacheBytes = writeIndexedCache(cacheFile);
+
+        cacheBytes[cacheBytes.length - 1]++;
+        Files.write(cacheFile, cacheBytes);
+
+        var index = ExtensionIndex.read(ExtensionIndex.getIndexPath(cacheFile)).orElseThrow();
+        assertFalse(index.isOf(Files.size(cacheFile), ExtensionIndex.checksum(cacheFile)));
+    }
+
+    @Test
+    void testRejectsTruncatedIndex() throws Exception {
+        var cacheFile = tempDir.resolve("example.cache");
+        writeIndexedCache(cacheFile);
+
+        var indexFile = ExtensionIndex.getIndexPath(cacheFile);
+        var indexBytes = Files.readAllBytes(indexFile);
+
+        for (int length = 0; length < indexBytes.length; length++) {
+            Files.write(indexFile, Arrays.copyOf(indexBytes, length));
+            assertTrue(ExtensionIndex.read(indexFile).isEmpty(), "Truncated to " + length + " bytes");
+        }
+    }
+}
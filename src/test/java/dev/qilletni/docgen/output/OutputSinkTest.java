@@ -0,0 +1,261 @@
+package dev.qilletni.docgen.output;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutputSinkTest {
+
+    private static final int TAR_BLOCK_SIZE = 512;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Files covering the edge cases of the archive formats, keyed by their path relative to the output directory.
+     */
+    static Map<String, byte[]> createFiles() {
+        var files = new LinkedHashMap<String, byte[]>();
+        files.put("index.html", "<html></html>".getBytes(StandardCharsets.UTF_8));
+        files.put("empty.json", new byte[0]);
+        // Longer than the 100 bytes of a tar name, so it is split into the prefix
+        files.put("library/" + "a".repeat(60) + "/entity/" + "b".repeat(60) + ".html", "long".getBytes(StandardCharsets.UTF_8));
+        files.put("library/ünïcødé/ファイル.html", "ünïcødé".getBytes(StandardCharsets.UTF_8));
+        // Its last separator is within the first 155 characters, but not the first 155 bytes of the prefix
+        files.put("ü".repeat(40) + "/" + "ü".repeat(40) + "/page.html", "split".getBytes(StandardCharsets.UTF_8));
+        // Exact multiples of the tar block size, so no padding follows them
+        files.put("block.html", createContent(TAR_BLOCK_SIZE));
+        files.put("blocks.html", createContent(TAR_BLOCK_SIZE * 3));
+        files.put("unaligned.html", createContent(TAR_BLOCK_SIZE + 1));
+
+        return files;
+    }
+
+    private static byte[] createContent(int size) {
+        var content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+
+        return content;
+    }
+
+    private void writeFiles(OutputSink outputSink, Path outputPath, Map<String, byte[]> files) throws IOException {
+        try (outputSink) {
+            for (var file : files.entrySet()) {
+                assertTrue(outputSink.write(outputPath.resolve(file.getKey()), ByteBuffer.wrap(file.getValue())));
+            }
+        }
+    }
+
+    @Test
+    void testTarRoundTrip() throws IOException {
+        var outputPath = tempDir.resolve("docs");
+        var archiveFile = tempDir.resolve("docs.tar");
+        var files = createFiles();
+
+        writeFiles(new TarOutputSink(outputPath, archiveFile), outputPath, files);
+
+        try (var inputStream = Files.newInputStream(archiveFile)) {
+            assertArchiveEquals(files, readTar(inputStream));
+        }
+
+        assertEquals(0, Files.size(archiveFile) % TAR_BLOCK_SIZE);
+    }
+
+    @Test
+    void testGzippedTarRoundTrip() throws IOException {
+        var outputPath = tempDir.resolve("docs");
+        var archiveFile = tempDir.resolve("docs.tar.gz");
+        var files = createFiles();
+
+        writeFiles(new TarOutputSink(outputPath, archiveFile), outputPath, files);
+
+        try (var inputStream = new GZIPInputStream(Files.newInputStream(archiveFile))) {
+            assertArchiveEquals(files, readTar(inputStream));
+        }
+    }
+
+    @Test
+    void testTarRejectsUnsplittableName() throws IOException {
+        var outputPath = tempDir.resolve("docs");
+
+        try (var tarOutputSink = new TarOutputSink(outputPath, tempDir.resolve("docs.tar"))) {
+            var content = ByteBuffer.wrap(new byte[1]);
+            assertThrows(IOException.class, () -> tarOutputSink.write(outputPath.resolve("c".repeat(101) + ".html"), content));
+        }
+    }
+
+    @Test
+    void testZipRoundTrip() throws IOException {
+        var outputPath = tempDir.resolve("docs");
+        var archiveFile = tempDir.resolve("docs.zip");
+        var files = createFiles();
+
+        writeFiles(new ZipOutputSink(outputPath, archiveFile), outputPath, files);
+
+        var entries = new LinkedHashMap<String, byte[]>();
+        try (var zipInputStream = new ZipInputStream(Files.newInputStream(archiveFile))) {
+            for (var entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry()) {
+                entries.put(entry.getName(), zipInputStream.readAllBytes());
+            }
+        }
+
+        assertArchiveEquals(files, entries);
+    }
+
+    @Test
+    void testArchiveRejectsRewritingAndDeletingEntries() throws IOException {
+        var outputPath = tempDir.resolve("docs");
+        var outputFile = outputPath.resolve("index.html");
+
+        try (var zipOutputSink = new ZipOutputSink(outputPath, tempDir.resolve("docs.zip"))) {
+            assertFalse(zipOutputSink.exists(outputFile));
+            zipOutputSink.delete(outputFile);
+
+            zipOutputSink.write(outputFile, ByteBuffer.wrap(new byte[1]));
+            assertTrue(zipOutputSink.exists(outputFile));
+
+            assertThrows(IOException.class, () -> zipOutputSink.write(outputFile, ByteBuffer.wrap(new byte[1])));
+            assertThrows(IOException.class, () -> zipOutputSink.delete(outputFile));
+            assertFalse(zipOutputSink.isPersistent());
+        }
+    }
+
+    @Test
+    void testInMemoryRoundTrip() throws IOException {
+        var outputPath = tempDir.resolve("docs");
+        var files = createFiles();
+
+        var inMemoryOutputSink = new InMemoryOutputSink(outputPath);
+        writeFiles(inMemoryOutputSink, outputPath, files);
+
+        assertArchiveEquals(files, inMemoryOutputSink.getFiles());
+        assertEquals(inMemoryOutputSink.getFiles().keySet().stream().sorted().toList(), inMemoryOutputSink.getFiles().keySet().stream().toList());
+        assertArrayEquals(files.get("index.html"), inMemoryOutputSink.getFile(outputPath.resolve("index.html")).orElseThrow());
+        assertFalse(inMemoryOutputSink.isPersistent());
+    }
+
+    @Test
+    void testInMemoryOnlyReportsChangedWrites() throws IOException {
+        var outputPath = tempDir.resolve("docs");
+        var outputFile = outputPath.resolve("index.html");
+        var inMemoryOutputSink = new InMemoryOutputSink(outputPath);
+
+        // The buffer's position must not matter, or be changed by writing it
+        var content = ByteBuffer.wrap("xxpage".getBytes(StandardCharsets.UTF_8)).position(2);
+
+        assertTrue(inMemoryOutputSink.write(outputFile, content));
+        assertEquals(2, content.position());
+        assertArrayEquals("page".getBytes(StandardCharsets.UTF_8), inMemoryOutputSink.getFile(outputFile).orElseThrow());
+
+        assertFalse(inMemoryOutputSink.write(outputFile, content));
+        assertTrue(inMemoryOutputSink.write(outputFile, ByteBuffer.wrap("changed".getBytes(StandardCharsets.UTF_8))));
+
+        inMemoryOutputSink.delete(outputFile);
+        assertFalse(inMemoryOutputSink.exists(outputFile));
+        assertTrue(inMemoryOutputSink.getFile(outputFile).isEmpty());
+    }
+
+    @Test
+    void testInMemoryWritesThroughToBackingSink() throws IOException {
+        var outputPath = tempDir.resolve("docs");
+        var outputFile = outputPath.resolve("index.html");
+
+        var backingSink = new InMemoryOutputSink(outputPath);
+        var inMemoryOutputSink = new InMemoryOutputSink(outputPath, backingSink);
+
+        inMemoryOutputSink.write(outputFile, ByteBuffer.wrap(new byte[] {1, 2, 3}));
+        assertArrayEquals(new byte[] {1, 2, 3}, backingSink.getFile(outputFile).orElseThrow());
+
+        inMemoryOutputSink.delete(outputFile);
+        assertFalse(backingSink.exists(outputFile));
+    }
+
+    private static void assertArchiveEquals(Map<String, byte[]> expected, Map<String, byte[]> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((name, content) -> assertArrayEquals(content, actual.get(name), name));
+    }
+
+    /**
+     * Reads every entry of a ustar archive, checking each header's checksum and that the archive ends with two empty
+     * blocks.
+     *
+     * @return The content of every entry, keyed by its full name
+     */
+    private static Map<String, byte[]> readTar(InputStream inputStream) throws IOException {
+        var entries = new LinkedHashMap<String, byte[]>();
+
+        while (true) {
+            var header = inputStream.readNBytes(TAR_BLOCK_SIZE);
+            assertEquals(TAR_BLOCK_SIZE, header.length, "Archive ended without its end blocks");
+
+            if (isEmpty(header)) {
+                assertTrue(isEmpty(inputStream.readNBytes(TAR_BLOCK_SIZE)), "Archive must end with two empty blocks");
+                assertEquals(-1, inputStream.read());
+                return entries;
+            }
+
+            assertEquals("ustar", readString(header, 257, 6));
+            assertEquals('0', header[156]);
+            assertEquals(readOctal(header, 148, 8), calculateChecksum(header));
+
+            var prefix = readString(header, 345, 155);
+            var name = readString(header, 0, 100);
+            var size = (int) readOctal(header, 124, 12);
+
+            entries.put(prefix.isEmpty() ? name : prefix + "/" + name, inputStream.readNBytes(size));
+
+            var padding = (TAR_BLOCK_SIZE - size % TAR_BLOCK_SIZE) % TAR_BLOCK_SIZE;
+            assertTrue(isEmpty(inputStream.readNBytes(padding)));
+        }
+    }
+
+    private static boolean isEmpty(byte[] bytes) {
+        for (var b : bytes) {
+            if (b != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String readString(byte[] header, int offset, int length) {
+        var end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static long readOctal(byte[] header, int offset, int length) {
+        return Long.parseLong(readString(header, offset, length).trim(), 8);
+    }
+
+    private static long calculateChecksum(byte[] header) {
+        var checksumHeader = Arrays.copyOf(header, header.length);
+        Arrays.fill(checksumHeader, 148, 156, (byte) ' ');
+
+        var checksum = 0L;
+        for (var b : checksumHeader) {
+            checksum += b & 0xFF;
+        }
+
+        return checksum;
+    }
+}